@@ -0,0 +1,604 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code jdbcBean.GeneratedMapper} for every class having {@code @Mapped} fields.
+ * <br/>
+ * The mapper of class {@code com.example.Outer.Inner} is named {@code com.example.Outer_Inner_Mapper},
+ * which is the name {@code jdbcBean.MapperRegistry} looks for at runtime.
+ * It reads columns with {@code jdbcBean.ColumnValues} and writes fields through their setters,
+ * producing the same Java Beans as the reflection based mapping.
+ * <br/>
+ * A class is skipped (with a note) when the generated code can't access it, its no args constructor or one of its
+ * fields. Those classes keep using reflection.
+ */
+@SupportedAnnotationTypes({
+    MapperProcessor.MAPPED,
+    MapperProcessor.EMBEDDED,
+    MapperProcessor.TO_MANY
+})
+public class MapperProcessor extends AbstractProcessor {
+
+    static final String MAPPED = "jdbcBean.annotation.Mapped";
+    static final String EMBEDDED = "jdbcBean.annotation.Embedded";
+    static final String TO_MANY = "jdbcBean.annotation.ToMany";
+    static final String MAPPER_SUFFIX = "_Mapper";
+
+    private final Set<String> generatedClasses = new LinkedHashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> beanClasses = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            if (!annotation.getQualifiedName().contentEquals(MAPPED)) continue;
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.FIELD && element.getEnclosingElement() instanceof TypeElement type) {
+                    beanClasses.add(type);
+                }
+            }
+        }
+
+        for (TypeElement beanClass : beanClasses) {
+            String beanName = beanClass.getQualifiedName().toString();
+            if (generatedClasses.contains(beanName)) continue;
+            generatedClasses.add(beanName);
+
+            try {
+                generateMapper(beanClass);
+            }
+            catch (UnsupportedBeanException e) {
+                processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.NOTE,
+                    String.format("No mapper generated for %s, reflection will be used instead: %s", beanName, e.getMessage()),
+                    beanClass
+                );
+            }
+            catch (IOException e) {
+                processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR,
+                    String.format("Cannot write mapper of %s: %s", beanName, e.getMessage()),
+                    beanClass
+                );
+            }
+        }
+        return false;
+    }
+
+    private void generateMapper(TypeElement beanClass) throws IOException {
+        List<FieldInfo> mappedFields = new ArrayList<>();
+        boolean hasToMany = collectFields(beanClass, mappedFields, new ArrayList<>());
+
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(beanClass);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String flatName = beanClass.getQualifiedName().toString()
+            .substring(packageName.isEmpty() ? 0 : packageName.length() + 1)
+            .replace('.', '_');
+        String mapperName = flatName + MAPPER_SUFFIX;
+        String beanType = beanClass.getQualifiedName().toString();
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("@javax.annotation.processing.Generated(\"").append(MapperProcessor.class.getName()).append("\")\n");
+        source.append("public final class ").append(mapperName)
+            .append(" implements jdbcBean.GeneratedMapper<").append(beanType).append("> {\n\n");
+
+        source.append("    private static final String[] MAPPED_NAMES = {");
+        for (int i = 0; i < mappedFields.size(); i++) {
+            source.append(i == 0 ? "\n        \"" : ",\n        \"").append(mappedFields.get(i).mappedName()).append('"');
+        }
+        source.append("\n    };\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public String[] mappedNames() {\n");
+        source.append("        return MAPPED_NAMES.clone();\n");
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public boolean hasToMany() {\n");
+        source.append("        return ").append(hasToMany).append(";\n");
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        // casts of generic fields, like List<String>, are unchecked
+        source.append("    @SuppressWarnings(\"unchecked\")\n");
+        source.append("    public ").append(beanType)
+            .append(" mapRow(java.sql.ResultSet resultSet, int[] columnIndexes) throws java.sql.SQLException {\n");
+        source.append("        ").append(beanType).append(" object0 = new ").append(beanType).append("();\n");
+        appendMapRow(source, beanClass, "object0", new int[]{1}, new int[]{0});
+        source.append("        return object0;\n");
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public void bind(java.sql.PreparedStatement statement, int[] parameterIndexes, ")
+            .append(beanType).append(" object0) throws java.sql.SQLException {\n");
+        appendBind(source, beanClass, "object0", false, new int[]{1}, new int[]{0});
+        source.append("    }\n");
+        source.append("}\n");
+
+        String qualifiedMapperName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedMapperName, beanClass).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    /**
+     * Collects the mapped fields in the order used by the reflection based mapping:
+     * mapped fields of the class and its super classes, then mapped fields of the embedded objects, depth-first.
+     *
+     * @return true if the class or one of its embedded objects has a to-many field
+     */
+    private boolean collectFields(TypeElement type, List<FieldInfo> mappedFields, List<String> visitedTypes) {
+        String typeName = type.getQualifiedName().toString();
+        if (visitedTypes.contains(typeName)) {
+            throw new UnsupportedBeanException(String.format("%s embeds itself", typeName));
+        }
+        visitedTypes.add(typeName);
+        checkInstantiable(type);
+
+        boolean hasToMany = false;
+        List<TypeElement> embeddedTypes = new ArrayList<>();
+        for (VariableElement field : getFields(type)) {
+            if (getAnnotation(field, MAPPED) != null) {
+                mappedFields.add(getFieldInfo(type, field));
+            }
+            else if (getAnnotation(field, EMBEDDED) != null) {
+                getFieldInfo(type, field);
+                embeddedTypes.add(asTypeElement(field));
+            }
+            else if (getAnnotation(field, TO_MANY) != null) {
+                hasToMany = true;
+            }
+        }
+        for (TypeElement embeddedType : embeddedTypes) {
+            hasToMany |= collectFields(embeddedType, mappedFields, visitedTypes);
+        }
+
+        visitedTypes.remove(typeName);
+        return hasToMany;
+    }
+
+    private void appendMapRow(StringBuilder source, TypeElement type, String object, int[] nextObject, int[] nextColumn) {
+        List<VariableElement> embeddedFields = new ArrayList<>();
+        for (VariableElement field : getFields(type)) {
+            if (getAnnotation(field, MAPPED) != null) {
+                FieldInfo fieldInfo = getFieldInfo(type, field);
+                String columnIndex = "columnIndexes[" + nextColumn[0]++ + "]";
+                String value;
+                if (field.asType().getKind().isPrimitive()) {
+                    // keep the initialized value when the column is null
+                    value = String.format(
+                        "jdbcBean.ColumnValues.%s(resultSet, %s, %s)",
+                        primitiveReader(field.asType().getKind()), columnIndex, fieldInfo.read(object)
+                    );
+                }
+                else {
+                    ValueKind valueKind = ValueKind.of(erasure(field.asType()), getJdbcType(field));
+                    value = String.format("jdbcBean.ColumnValues.%s(resultSet, %s)", valueKind.methodName, columnIndex);
+                    String fieldType = field.asType().toString();
+                    String erasedType = erasure(field.asType());
+                    if (!erasedType.equals(fieldType)) {
+                        // List<Object> can't be cast to List<String> directly, go through Object
+                        value = String.format("(%s) (java.lang.Object) %s", fieldType, value);
+                    }
+                    else if (!valueKind.valueType.equals(fieldType) && !fieldType.equals("java.lang.Object")) {
+                        value = String.format("(%s) %s", fieldType, value);
+                    }
+                }
+                source.append("        ").append(fieldInfo.write(object, value)).append(";\n");
+            }
+            else if (getAnnotation(field, EMBEDDED) != null) {
+                embeddedFields.add(field);
+            }
+        }
+
+        for (VariableElement field : embeddedFields) {
+            String embeddedObject = "object" + nextObject[0]++;
+            String embeddedType = asTypeElement(field).getQualifiedName().toString();
+            source.append("        ").append(embeddedType).append(' ').append(embeddedObject)
+                .append(" = new ").append(embeddedType).append("();\n");
+            appendMapRow(source, asTypeElement(field), embeddedObject, nextObject, nextColumn);
+            source.append("        ").append(getFieldInfo(type, field).write(object, embeddedObject)).append(";\n");
+        }
+    }
+
+    /**
+     * @param nullableObject true if {@code object} is an embedded object that may be null, its fields are bound to NULL then
+     */
+    private void appendBind(
+        StringBuilder source,
+        TypeElement type,
+        String object,
+        boolean nullableObject,
+        int[] nextObject,
+        int[] nextParameter
+    ) {
+        List<VariableElement> embeddedFields = new ArrayList<>();
+        for (VariableElement field : getFields(type)) {
+            if (getAnnotation(field, MAPPED) != null) {
+                int parameter = nextParameter[0]++;
+                String value = getFieldInfo(type, field).read(object);
+                if (nullableObject) value = String.format("(%s == null ? null : %s)", object, value);
+                String elementTypeName = getArrayElementTypeName(field);
+                if (elementTypeName != null) {
+                    source.append(String.format(
+                        "        if (parameterIndexes[%d] > 0) {\n" +
+                        "            jdbcBean.ParameterValues.setArray(statement, parameterIndexes[%d], \"%s\", %s);\n" +
+                        "        }\n",
+                        parameter, parameter, elementTypeName, value
+                    ));
+                    continue;
+                }
+                source.append(String.format(
+                    "        if (parameterIndexes[%d] > 0) {\n" +
+                    "            statement.setObject(parameterIndexes[%d], %s, java.sql.JDBCType.%s.getVendorTypeNumber());\n" +
+                    "        }\n",
+                    parameter, parameter, value, getJdbcType(field)
+                ));
+            }
+            else if (getAnnotation(field, EMBEDDED) != null) {
+                embeddedFields.add(field);
+            }
+        }
+
+        for (VariableElement field : embeddedFields) {
+            String embeddedObject = "object" + nextObject[0]++;
+            String value = getFieldInfo(type, field).read(object);
+            if (nullableObject) value = String.format("%s == null ? null : %s", object, value);
+            source.append("        ").append(asTypeElement(field).getQualifiedName()).append(' ').append(embeddedObject)
+                .append(" = ").append(value).append(";\n");
+            appendBind(source, asTypeElement(field), embeddedObject, true, nextObject, nextParameter);
+        }
+    }
+
+    /**
+     * @return fields of the class, then fields of its super classes
+     */
+    private List<VariableElement> getFields(TypeElement type) {
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement current = type; current != null; current = getSuperclass(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private TypeElement getSuperclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) return null;
+        TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+        return superElement.getQualifiedName().contentEquals("java.lang.Object") ? null : superElement;
+    }
+
+    private TypeElement asTypeElement(VariableElement field) {
+        if (field.asType().getKind() != TypeKind.DECLARED) {
+            throw new UnsupportedBeanException(String.format("embedded field %s is not a class", field.getSimpleName()));
+        }
+        return (TypeElement) ((DeclaredType) field.asType()).asElement();
+    }
+
+    private void checkInstantiable(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new UnsupportedBeanException(String.format("%s is not a concrete class", type.getQualifiedName()));
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            throw new UnsupportedBeanException(String.format("%s is generic", type.getQualifiedName()));
+        }
+        for (Element current = type; current instanceof TypeElement currentType; current = current.getEnclosingElement()) {
+            if (!currentType.getModifiers().contains(Modifier.PUBLIC)) {
+                throw new UnsupportedBeanException(String.format("%s is not public", currentType.getQualifiedName()));
+            }
+            if (currentType.getNestingKind() == NestingKind.MEMBER && !currentType.getModifiers().contains(Modifier.STATIC)) {
+                throw new UnsupportedBeanException(String.format("%s is an inner class", currentType.getQualifiedName()));
+            }
+            if (currentType.getNestingKind() == NestingKind.LOCAL || currentType.getNestingKind() == NestingKind.ANONYMOUS) {
+                throw new UnsupportedBeanException(String.format("%s is a local class", currentType.getQualifiedName()));
+            }
+        }
+
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        boolean hasNoArgsConstructor = constructors.isEmpty() ?
+            // Lombok constructors are not visible yet, the default constructor only exists without them
+            hasLombokAnnotation(type, "NoArgsConstructor", "Data") ||
+                !hasLombokAnnotation(type, "AllArgsConstructor", "RequiredArgsConstructor", "Value") :
+            constructors.stream().anyMatch(constructor ->
+                constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)
+            );
+        if (!hasNoArgsConstructor) {
+            throw new UnsupportedBeanException(String.format("%s has no public no args constructor", type.getQualifiedName()));
+        }
+    }
+
+    private FieldInfo getFieldInfo(TypeElement beanClass, VariableElement field) {
+        String fieldName = field.getSimpleName().toString();
+        TypeElement declaringType = (TypeElement) field.getEnclosingElement();
+        boolean isBoolean = field.asType().getKind() == TypeKind.BOOLEAN;
+        boolean hasBooleanPrefix = isBoolean && fieldName.length() > 2 && fieldName.startsWith("is") &&
+            Character.isUpperCase(fieldName.charAt(2));
+
+        String capitalized = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        String getterName = hasBooleanPrefix ? fieldName : (isBoolean ? "is" : "get") + capitalized;
+        String setterName = hasBooleanPrefix ? "set" + fieldName.substring(2) : "set" + capitalized;
+
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(beanClass));
+        boolean hasGetter = methods.stream().anyMatch(method ->
+            method.getSimpleName().contentEquals(getterName) && method.getParameters().isEmpty() &&
+                method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)
+        ) || hasLombokAnnotation(declaringType, "Getter", "Data", "Value") || hasLombokAnnotation(field, "Getter");
+        boolean hasSetter = methods.stream().anyMatch(method ->
+            method.getSimpleName().contentEquals(setterName) && method.getParameters().size() == 1 &&
+                processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), field.asType()) &&
+                method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)
+        ) || (!field.getModifiers().contains(Modifier.FINAL) &&
+            (hasLombokAnnotation(declaringType, "Setter", "Data") || hasLombokAnnotation(field, "Setter")));
+
+        boolean isFieldAccessible = field.getModifiers().contains(Modifier.PUBLIC) &&
+            declaringType.getModifiers().contains(Modifier.PUBLIC);
+        if (!hasGetter && !isFieldAccessible) {
+            throw new UnsupportedBeanException(String.format("field %s has no public getter", fieldName));
+        }
+        if (!hasSetter && !(isFieldAccessible && !field.getModifiers().contains(Modifier.FINAL))) {
+            throw new UnsupportedBeanException(String.format("field %s has no public setter", fieldName));
+        }
+
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+            processingEnv.getElementUtils().getElementValuesWithDefaults(getAnnotation(field, MAPPED) != null ?
+                getAnnotation(field, MAPPED) : getAnnotation(field, EMBEDDED));
+        String mappedName = "";
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("name")) {
+                mappedName = (String) entry.getValue().getValue();
+            }
+        }
+        if (mappedName.isEmpty()) mappedName = convertCamelCaseToSnakeCase(fieldName);
+
+        return new FieldInfo(
+            escape(mappedName),
+            hasGetter ? getterName + "()" : null,
+            hasSetter ? setterName : null,
+            fieldName
+        );
+    }
+
+    private String getJdbcType(VariableElement field) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+            processingEnv.getElementUtils().getElementValuesWithDefaults(getAnnotation(field, MAPPED)).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("type")) {
+                return ((VariableElement) entry.getValue().getValue()).getSimpleName().toString();
+            }
+        }
+        return "OTHER";
+    }
+
+    private static AnnotationMirror getAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return annotationMirror;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasLombokAnnotation(Element element, String... simpleNames) {
+        for (String simpleName : simpleNames) {
+            if (getAnnotation(element, "lombok." + simpleName) != null) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Mirror of {@code jdbcBean.ParameterValues.getArrayElementTypeName}
+     *
+     * @return SQL type name of the elements of an array field, null if the field isn't bound as an SQL ARRAY
+     */
+    private String getArrayElementTypeName(VariableElement field) {
+        String elementType;
+        String fieldType = erasure(field.asType());
+        if (fieldType.equals("int[]") || fieldType.equals("long[]") || fieldType.equals("java.lang.String[]")) {
+            elementType = fieldType.substring(0, fieldType.length() - 2);
+        }
+        else if (fieldType.equals("java.util.List")) {
+            List<? extends TypeMirror> typeArguments = ((DeclaredType) field.asType()).getTypeArguments();
+            if (typeArguments.isEmpty()) {
+                throw new UnsupportedBeanException(String.format("List field %s has no type argument", field.getSimpleName()));
+            }
+            elementType = erasure(typeArguments.get(0));
+        }
+        else return null;
+
+        return switch (elementType) {
+            case "int", "java.lang.Integer" -> "INTEGER";
+            case "long", "java.lang.Long" -> "BIGINT";
+            case "java.lang.Short" -> "SMALLINT";
+            case "java.lang.Double" -> "DOUBLE";
+            case "java.lang.Boolean" -> "BOOLEAN";
+            case "java.lang.String" -> "VARCHAR";
+            case "java.math.BigDecimal" -> "NUMERIC";
+            default -> throw new UnsupportedBeanException(String.format("ARRAY element type %s is not supported", elementType));
+        };
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private static String primitiveReader(TypeKind kind) {
+        return switch (kind) {
+            case INT -> "getInt";
+            case LONG -> "getLong";
+            case DOUBLE -> "getDouble";
+            case FLOAT -> "getFloat";
+            case SHORT -> "getShort";
+            case BYTE -> "getByte";
+            case BOOLEAN -> "getBoolean";
+            case CHAR -> "getChar";
+            default -> throw new IllegalArgumentException(kind.toString());
+        };
+    }
+
+    private static String escape(String input) {
+        return input.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Same conversion as {@code jdbcBean.JDBCUtil#convertCamelCaseToSnakeCase}
+     */
+    static String convertCamelCaseToSnakeCase(String input) {
+        StringBuilder output = new StringBuilder();
+
+        for (int i = 0; i < input.length(); i++) {
+            boolean curCharDigit = Character.isDigit(input.charAt(i));
+            boolean curCharLowerCase = Character.isLowerCase(input.charAt(i));
+            boolean curCharUpperCase = Character.isUpperCase(input.charAt(i));
+
+            boolean nextCharUpperCase = i + 1 < input.length() && Character.isUpperCase(input.charAt(i+1));
+            boolean nextCharDigit = i + 1 < input.length() && Character.isDigit(input.charAt(i+1));
+
+            boolean nextNextCharLowerCase = i + 2 < input.length() && Character.isLowerCase(input.charAt(i+2));
+
+            output.append(Character.toLowerCase(input.charAt(i)));
+            if (
+                (curCharLowerCase && (nextCharUpperCase || nextCharDigit))
+                || ((curCharLowerCase || curCharUpperCase) && nextCharDigit)
+                || (curCharDigit && nextCharUpperCase)
+                || (curCharUpperCase && nextCharUpperCase && nextNextCharLowerCase)
+            ) {
+                output.append('_');
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * How generated code reads and writes a field: through its getter / setter when present, directly otherwise.
+     */
+    private record FieldInfo(String mappedName, String getterCall, String setterName, String fieldName) {
+
+        String read(String object) {
+            return object + "." + (getterCall != null ? getterCall : fieldName);
+        }
+
+        String write(String object, String value) {
+            return setterName != null ?
+                String.format("%s.%s(%s)", object, setterName, value) :
+                String.format("%s.%s = %s", object, fieldName, value);
+        }
+    }
+
+    /**
+     * Mirror of {@code jdbcBean.ColumnReaders.ValueKind}, selecting the {@code jdbcBean.ColumnValues} getter
+     */
+    private enum ValueKind {
+        INTEGER("getInteger", "java.lang.Integer"),
+        LONG("getLong", "java.lang.Long"),
+        DOUBLE("getDouble", "java.lang.Double"),
+        FLOAT("getFloat", "java.lang.Float"),
+        SHORT("getShort", "java.lang.Short"),
+        BYTE("getByte", "java.lang.Byte"),
+        BOOLEAN("getBoolean", "java.lang.Boolean"),
+        CHARACTER("getCharacter", "java.lang.Character"),
+        STRING("getString", "java.lang.String"),
+        BIG_DECIMAL("getBigDecimal", "java.math.BigDecimal"),
+        BYTES("getBytes", "byte[]"),
+        INT_ARRAY("getIntArray", "int[]"),
+        LONG_ARRAY("getLongArray", "long[]"),
+        STRING_ARRAY("getStringArray", "java.lang.String[]"),
+        LIST("getList", "java.util.List"),
+        OBJECT("getObject", "java.lang.Object");
+
+        final String methodName;
+        final String valueType;
+
+        ValueKind(String methodName, String valueType) {
+            this.methodName = methodName;
+            this.valueType = valueType;
+        }
+
+        static ValueKind of(String type, String jdbcType) {
+            for (ValueKind valueKind : values()) {
+                if (valueKind != OBJECT && valueKind.valueType.equals(type)) return valueKind;
+            }
+
+            if (type.equals("java.lang.Object") || type.equals("java.lang.Number")) {
+                return switch (jdbcType) {
+                    case "TINYINT", "SMALLINT", "INTEGER" -> INTEGER;
+                    case "BIGINT" -> LONG;
+                    case "FLOAT", "DOUBLE" -> DOUBLE;
+                    case "REAL" -> FLOAT;
+                    case "BIT", "BOOLEAN" -> BOOLEAN;
+                    case "DECIMAL", "NUMERIC" -> BIG_DECIMAL;
+                    case "CHAR", "VARCHAR", "LONGVARCHAR", "NCHAR", "NVARCHAR", "LONGNVARCHAR", "CLOB", "NCLOB" -> STRING;
+                    default -> OBJECT;
+                };
+            }
+            return OBJECT;
+        }
+    }
+
+    private static class UnsupportedBeanException extends RuntimeException {
+        UnsupportedBeanException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean.processor;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import jdbcBean.GeneratedMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MapperProcessorTest {
+
+    // compile-testing keeps compiled classes in memory under this path
+    private static final String CLASS_OUTPUT = "/CLASS_OUTPUT/";
+
+    private static Compilation compile(String className, String source) {
+        return javac()
+            .withProcessors(new MapperProcessor())
+            .compile(JavaFileObjects.forSourceString(className, source));
+    }
+
+    /**
+     * Load the classes of a successful compilation, beans and generated mappers
+     */
+    private static ClassLoader getClassLoader(Compilation compilation) throws IOException {
+        Map<String, byte[]> classFiles = new HashMap<>();
+        for (JavaFileObject file : compilation.generatedFiles()) {
+            if (file.getKind() != JavaFileObject.Kind.CLASS) continue;
+            String path = file.toUri().getPath();
+            String className = path
+                .substring(path.indexOf(CLASS_OUTPUT) + CLASS_OUTPUT.length(), path.length() - ".class".length())
+                .replace('/', '.');
+            try (InputStream inputStream = file.openInputStream()) {
+                classFiles.put(className, inputStream.readAllBytes());
+            }
+        }
+        return new ClassLoader(MapperProcessorTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classFiles.get(name);
+                if (bytes == null) throw new ClassNotFoundException(name);
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+    }
+
+    private static GeneratedMapper<Object> getMapper(Compilation compilation, String mapperName) throws Exception {
+        return (GeneratedMapper<Object>) getClassLoader(compilation).loadClass(mapperName).getConstructor().newInstance();
+    }
+
+    /**
+     * @param row column values by column index, a missing column is NULL
+     */
+    private static ResultSet resultSet(Map<Integer, Object> row) {
+        boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("wasNull")) return wasNull[0];
+                Object value = row.get((Integer) args[0]);
+                wasNull[0] = value == null;
+                return switch (method.getName()) {
+                    case "getInt" -> value == null ? 0 : ((Number) value).intValue();
+                    case "getString", "getObject" -> value;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                };
+            });
+    }
+
+    /**
+     * @param boundValues receives the value bound to every parameter index
+     */
+    private static PreparedStatement preparedStatement(Map<Integer, Object> boundValues) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+            (proxy, method, args) -> {
+                if (!method.getName().equals("setObject")) throw new UnsupportedOperationException(method.getName());
+                boundValues.put((Integer) args[0], args[1]);
+                return null;
+            });
+    }
+
+    @Test
+    void testFlatBean() throws Exception {
+        Compilation compilation = compile("sample.Comment", """
+            package sample;
+
+            import jdbcBean.annotation.Mapped;
+            import java.sql.JDBCType;
+            
+            public class Comment {
+                @Mapped(type = JDBCType.INTEGER)
+                public Integer id;
+                @Mapped(name = "body", type = JDBCType.VARCHAR)
+                private String text;
+                @Mapped(type = JDBCType.INTEGER)
+                public int likeCount = -1;
+                public String unmapped;
+
+                public String getText() {
+                    return text;
+                }
+
+                public void setText(String text) {
+                    this.text = text;
+                }
+            }
+            """);
+        assertThat(compilation).succeededWithoutWarnings();
+        assertThat(compilation).generatedSourceFile("sample.Comment_Mapper").contentsAsUtf8String()
+            .contains("object0.setText(jdbcBean.ColumnValues.getString(resultSet, columnIndexes[1]));");
+
+        GeneratedMapper<Object> mapper = getMapper(compilation, "sample.Comment_Mapper");
+        assertArrayEquals(new String[]{"id", "body", "like_count"}, mapper.mappedNames());
+        assertFalse(mapper.hasToMany());
+
+        Object comment = mapper.mapRow(resultSet(Map.of(1, 7, 2, "hello")), new int[]{1, 2, 3});
+        assertEquals(7, comment.getClass().getField("id").get(comment));
+        assertEquals("hello", comment.getClass().getMethod("getText").invoke(comment));
+        // a NULL column keeps the initialized value of a primitive field
+        assertEquals(-1, comment.getClass().getField("likeCount").get(comment));
+
+        Map<Integer, Object> boundValues = new HashMap<>();
+        mapper.bind(preparedStatement(boundValues), new int[]{2, 0, 1}, comment);
+        assertEquals(Map.of(2, 7, 1, -1), boundValues);
+    }
+
+    @Test
+    void testNestedClasses() throws Exception {
+        Compilation compilation = compile("sample.Outer", """
+            package sample;
+
+            import jdbcBean.annotation.Embedded;
+            import jdbcBean.annotation.Mapped;
+            import java.sql.JDBCType;
+            
+            public class Outer {
+                public static class Inner {
+                    @Mapped(type = JDBCType.INTEGER)
+                    public Integer id;
+                    @Embedded
+                    public Detail detail;
+                }
+
+                public static class Detail {
+                    @Mapped(type = JDBCType.VARCHAR)
+                    public String note;
+                }
+            }
+            """);
+        assertThat(compilation).succeededWithoutWarnings();
+        assertThat(compilation).generatedSourceFile("sample.Outer_Detail_Mapper");
+
+        GeneratedMapper<Object> mapper = getMapper(compilation, "sample.Outer_Inner_Mapper");
+        assertArrayEquals(new String[]{"id", "note"}, mapper.mappedNames());
+
+        Object inner = mapper.mapRow(resultSet(Map.of(1, 3, 2, "embedded")), new int[]{1, 2});
+        Object detail = inner.getClass().getField("detail").get(inner);
+        assertEquals("embedded", detail.getClass().getField("note").get(detail));
+
+        // fields of a null embedded object are bound to NULL
+        inner.getClass().getField("detail").set(inner, null);
+        Map<Integer, Object> boundValues = new HashMap<>();
+        mapper.bind(preparedStatement(boundValues), new int[]{1, 2}, inner);
+        Map<Integer, Object> expectedValues = new HashMap<>();
+        expectedValues.put(1, 3);
+        expectedValues.put(2, null);
+        assertEquals(expectedValues, boundValues);
+    }
+
+    @Test
+    void testGenericFields() throws Exception {
+        Compilation compilation = javac()
+            .withProcessors(new MapperProcessor())
+            .withOptions("-Xlint:all,-processing", "-Werror")
+            .compile(JavaFileObjects.forSourceString("sample.Tagged", """
+                package sample;
+
+                import jdbcBean.annotation.Mapped;
+                import java.sql.JDBCType;
+                import java.util.List;
+
+                public class Tagged {
+                    @Mapped(type = JDBCType.ARRAY)
+                    public List<String> tags;
+                }
+                """));
+        assertThat(compilation).succeededWithoutWarnings();
+        assertThat(compilation).generatedSourceFile("sample.Tagged_Mapper").contentsAsUtf8String()
+            .contains("(java.util.List<java.lang.String>) (java.lang.Object) jdbcBean.ColumnValues.getList(");
+    }
+
+    @Test
+    void testToMany() throws Exception {
+        Compilation compilation = compile("sample.Parent", """
+            package sample;
+
+            import jdbcBean.annotation.Mapped;
+            import jdbcBean.annotation.ToMany;
+            import java.sql.JDBCType;
+            import java.util.ArrayList;
+            import java.util.List;
+
+            public class Parent {
+                @Mapped(type = JDBCType.INTEGER, isDistinct = true)
+                public Integer id;
+                @ToMany
+                public List<Child> children = new ArrayList<>();
+
+                public static class Child {
+                    @Mapped(type = JDBCType.INTEGER)
+                    public Integer childId;
+                }
+            }
+            """);
+        assertThat(compilation).succeededWithoutWarnings();
+
+        // flat rows only: the runtime doesn't use this mapper to assemble the children
+        GeneratedMapper<Object> mapper = getMapper(compilation, "sample.Parent_Mapper");
+        assertTrue(mapper.hasToMany());
+        assertArrayEquals(new String[]{"id"}, mapper.mappedNames());
+        assertFalse(getMapper(compilation, "sample.Parent_Child_Mapper").hasToMany());
+    }
+
+    @Test
+    void testUnsupportedClasses() {
+        Compilation compilation = compile("sample.Holder", """
+            package sample;
+
+            import jdbcBean.annotation.Mapped;
+            import java.sql.JDBCType;
+            
+            public class Holder {
+                public class Inner {
+                    @Mapped(type = JDBCType.INTEGER)
+                    public Integer id;
+                }
+
+                public static class WithoutNoArgsConstructor {
+                    @Mapped(type = JDBCType.INTEGER)
+                    public final Integer id;
+
+                    public WithoutNoArgsConstructor(Integer id) {
+                        this.id = id;
+                    }
+                }
+            }
+            """);
+        assertThat(compilation).succeeded();
+        assertThat(compilation).hadNoteContaining("No mapper generated for sample.Holder.Inner");
+        assertThat(compilation).hadNoteContaining("No mapper generated for sample.Holder.WithoutNoArgsConstructor");
+
+        List<String> generatedSources = new ArrayList<>();
+        for (JavaFileObject file : compilation.generatedSourceFiles()) {
+            generatedSources.add(file.getName());
+        }
+        assertEquals(List.of(), generatedSources);
+    }
+
+    @Test
+    void testConvertCamelCaseToSnakeCase() {
+        // same cases as JDBCUtilTest: columns must be named like the reflection based mapping
+        assertEquals("jdbc_driver", MapperProcessor.convertCamelCaseToSnakeCase("JDBCDriver"));
+        assertEquals("column_1", MapperProcessor.convertCamelCaseToSnakeCase("column1"));
+        assertEquals("special_jdbc_field_of_the_day", MapperProcessor.convertCamelCaseToSnakeCase("specialJDBCFieldOfTheDay"));
+        assertEquals("13_sheeps_with_1_shepherd_jdbc", MapperProcessor.convertCamelCaseToSnakeCase("13SheepsWith1ShepherdJDBC"));
+    }
+}
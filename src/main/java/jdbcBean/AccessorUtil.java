@@ -0,0 +1,560 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.exception.JDBCBeanException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Build compiled accessors (getter, setter, constructors) for Java Bean's fields.
+ * <br/>
+ * Public getters, setters and constructors are bound through {@link LambdaMetafactory},
+ * so calling them costs the same as a hand-written lambda.
+ * Fields without public accessors are read/written directly through {@link MethodHandle}.
+ * {@link Method#invoke} is only used when neither of them is possible.
+ */
+class AccessorUtil {
+
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    private static final MethodType getterMethodType = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType setterMethodType = MethodType.methodType(void.class, Object.class, Object.class);
+
+    public static @NotNull Function<Object, Object> getGetter(@NotNull Field field) {
+        @Nullable Method getterMethod = findGetterMethod(field);
+
+        if (getterMethod != null) {
+            Function<Object, Object> getter = metafactory(
+                field.getDeclaringClass(),
+                getterMethod,
+                Function.class,
+                "apply",
+                getterMethodType,
+                MethodType.methodType(wrap(getterMethod.getReturnType()), getterMethod.getDeclaringClass())
+            );
+            if (getter != null) return getter;
+            return o -> {
+                try {
+                    return getterMethod.invoke(o);
+                }
+                catch (ReflectiveOperationException e) {
+                    throw new RuntimeException(e);
+                }
+            };
+        }
+
+        @Nullable MethodHandle fieldGetter = unreflectField(field, false);
+        if (fieldGetter == null) {
+            throw new JDBCBeanException("Cannot find public getter for " + field.getName());
+        }
+        MethodHandle adaptedGetter = fieldGetter.asType(getterMethodType);
+        return o -> {
+            try {
+                return (Object) adaptedGetter.invokeExact(o);
+            }
+            catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    public static @NotNull IntGetter getIntGetter(@NotNull Field field) {
+        @Nullable IntGetter getter = getPrimitiveGetter(field, IntGetter.class);
+        if (getter != null) return getter;
+
+        @Nullable MethodHandle fieldGetter = getPrimitiveFieldGetter(field);
+        if (fieldGetter == null) {
+            Function<Object, Object> boxedGetter = getGetter(field);
+            return o -> (Integer) boxedGetter.apply(o);
+        }
+        return o -> {
+            try {
+                return (int) fieldGetter.invokeExact(o);
+            }
+            catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    public static @NotNull LongGetter getLongGetter(@NotNull Field field) {
+        @Nullable LongGetter getter = getPrimitiveGetter(field, LongGetter.class);
+        if (getter != null) return getter;
+
+        @Nullable MethodHandle fieldGetter = getPrimitiveFieldGetter(field);
+        if (fieldGetter == null) {
+            Function<Object, Object> boxedGetter = getGetter(field);
+            return o -> (Long) boxedGetter.apply(o);
+        }
+        return o -> {
+            try {
+                return (long) fieldGetter.invokeExact(o);
+            }
+            catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    public static @NotNull DoubleGetter getDoubleGetter(@NotNull Field field) {
+        @Nullable DoubleGetter getter = getPrimitiveGetter(field, DoubleGetter.class);
+        if (getter != null) return getter;
+
+        @Nullable MethodHandle fieldGetter = getPrimitiveFieldGetter(field);
+        if (fieldGetter == null) {
+            Function<Object, Object> boxedGetter = getGetter(field);
+            return o -> (Double) boxedGetter.apply(o);
+        }
+        return o -> {
+            try {
+                return (double) fieldGetter.invokeExact(o);
+            }
+            catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    public static @NotNull BooleanGetter getBooleanGetter(@NotNull Field field) {
+        @Nullable BooleanGetter getter = getPrimitiveGetter(field, BooleanGetter.class);
+        if (getter != null) return getter;
+
+        @Nullable MethodHandle fieldGetter = getPrimitiveFieldGetter(field);
+        if (fieldGetter == null) {
+            Function<Object, Object> boxedGetter = getGetter(field);
+            return o -> (Boolean) boxedGetter.apply(o);
+        }
+        return o -> {
+            try {
+                return (boolean) fieldGetter.invokeExact(o);
+            }
+            catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    /**
+     * Bind the public getter of a primitive field to one of the primitive getter interfaces, without boxing.
+     */
+    private static <F> @Nullable F getPrimitiveGetter(Field field, Class<F> getterInterface) {
+        @Nullable Method getterMethod = findGetterMethod(field);
+        if (getterMethod == null) return null;
+
+        return metafactory(
+            field.getDeclaringClass(),
+            getterMethod,
+            getterInterface,
+            "get",
+            MethodType.methodType(field.getType(), Object.class),
+            MethodType.methodType(field.getType(), getterMethod.getDeclaringClass())
+        );
+    }
+
+    /**
+     * @return a field getter of type (Object)primitive, null if there is a public getter or
+     * the field is not accessible.
+     */
+    private static @Nullable MethodHandle getPrimitiveFieldGetter(Field field) {
+        if (findGetterMethod(field) != null) return null;
+        @Nullable MethodHandle fieldGetter = unreflectField(field, false);
+        return fieldGetter == null ?
+            null : fieldGetter.asType(MethodType.methodType(field.getType(), Object.class));
+    }
+
+    /**
+     * @return null if the field has neither a public setter nor is writable (for example: final fields)
+     */
+    public static @Nullable BiConsumer<Object, Object> getSetter(@NotNull Field field) {
+        @Nullable Method setterMethod = findSetterMethod(field);
+
+        if (setterMethod != null) {
+            BiConsumer<Object, Object> setter = metafactory(
+                field.getDeclaringClass(),
+                setterMethod,
+                BiConsumer.class,
+                "accept",
+                setterMethodType,
+                MethodType.methodType(void.class, setterMethod.getDeclaringClass(), wrap(field.getType()))
+            );
+            if (setter != null) return setter;
+            return (o, val) -> {
+                try {
+                    setterMethod.invoke(o, val);
+                }
+                catch (ReflectiveOperationException e) {
+                    throw new RuntimeException(e);
+                }
+            };
+        }
+
+        if (Modifier.isFinal(field.getModifiers())) return null;
+        @Nullable MethodHandle fieldSetter = unreflectField(field, true);
+        if (fieldSetter == null) return null;
+
+        MethodHandle adaptedSetter = fieldSetter.asType(setterMethodType);
+        return (o, val) -> {
+            try {
+                adaptedSetter.invokeExact(o, val);
+            }
+            catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    public static @Nullable IntSetter getIntSetter(@NotNull Field field) {
+        @Nullable IntSetter setter = getPrimitiveSetter(field, IntSetter.class);
+        if (setter != null) return setter;
+
+        @Nullable MethodHandle fieldSetter = getPrimitiveFieldSetter(field);
+        if (fieldSetter == null) return null;
+        return (o, val) -> {
+            try {
+                fieldSetter.invokeExact(o, val);
+            }
+            catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    public static @Nullable LongSetter getLongSetter(@NotNull Field field) {
+        @Nullable LongSetter setter = getPrimitiveSetter(field, LongSetter.class);
+        if (setter != null) return setter;
+
+        @Nullable MethodHandle fieldSetter = getPrimitiveFieldSetter(field);
+        if (fieldSetter == null) return null;
+        return (o, val) -> {
+            try {
+                fieldSetter.invokeExact(o, val);
+            }
+            catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    public static @Nullable DoubleSetter getDoubleSetter(@NotNull Field field) {
+        @Nullable DoubleSetter setter = getPrimitiveSetter(field, DoubleSetter.class);
+        if (setter != null) return setter;
+
+        @Nullable MethodHandle fieldSetter = getPrimitiveFieldSetter(field);
+        if (fieldSetter == null) return null;
+        return (o, val) -> {
+            try {
+                fieldSetter.invokeExact(o, val);
+            }
+            catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    public static @Nullable BooleanSetter getBooleanSetter(@NotNull Field field) {
+        @Nullable BooleanSetter setter = getPrimitiveSetter(field, BooleanSetter.class);
+        if (setter != null) return setter;
+
+        @Nullable MethodHandle fieldSetter = getPrimitiveFieldSetter(field);
+        if (fieldSetter == null) return null;
+        return (o, val) -> {
+            try {
+                fieldSetter.invokeExact(o, val);
+            }
+            catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    /**
+     * Bind the public setter of a primitive field to one of the primitive setter interfaces, without boxing.
+     */
+    private static <F> @Nullable F getPrimitiveSetter(Field field, Class<F> setterInterface) {
+        @Nullable Method setterMethod = findSetterMethod(field);
+        if (setterMethod == null) return null;
+
+        return metafactory(
+            field.getDeclaringClass(),
+            setterMethod,
+            setterInterface,
+            "set",
+            MethodType.methodType(void.class, Object.class, field.getType()),
+            MethodType.methodType(void.class, setterMethod.getDeclaringClass(), field.getType())
+        );
+    }
+
+    /**
+     * @return a field setter of type (Object, primitive)void, null if there is a public setter or
+     * the field is not writable.
+     */
+    private static @Nullable MethodHandle getPrimitiveFieldSetter(Field field) {
+        if (findSetterMethod(field) != null || Modifier.isFinal(field.getModifiers())) return null;
+        @Nullable MethodHandle fieldSetter = unreflectField(field, true);
+        return fieldSetter == null ?
+            null : fieldSetter.asType(MethodType.methodType(void.class, Object.class, field.getType()));
+    }
+
+    /**
+     * @return null if the class doesn't have a public no args constructor
+     */
+    public static @Nullable Supplier<Object> getNoArgsConstructor(@NotNull Class<?> clazz) {
+        Constructor<?> constructor;
+        try {
+            constructor = clazz.getConstructor();
+        }
+        catch (NoSuchMethodException e) {
+            return null;
+        }
+
+        for (MethodHandles.Lookup caller : callers(clazz)) {
+            try {
+                CallSite callSite = LambdaMetafactory.metafactory(
+                    caller,
+                    "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    caller.unreflectConstructor(constructor),
+                    MethodType.methodType(clazz)
+                );
+                return (Supplier<Object>) callSite.getTarget().invoke();
+            }
+            catch (Throwable ignored) {
+                // try next caller, then fall back to reflection
+            }
+        }
+
+        return () -> {
+            try {
+                return constructor.newInstance();
+            }
+            catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    /**
+     * Used for records and classes with final fields, which can only be built through a constructor.
+     *
+     * @return the constructor taking {@code parameterTypes}, adapted to take them as an {@code Object[]},
+     * null if the class doesn't have such constructor or it isn't accessible
+     */
+    public static @Nullable MethodHandle getSpreadConstructor(@NotNull Class<?> clazz, @NotNull Class<?>[] parameterTypes) {
+        Constructor<?> constructor;
+        try {
+            constructor = clazz.getDeclaredConstructor(parameterTypes);
+        }
+        catch (NoSuchMethodException e) {
+            return null;
+        }
+
+        for (MethodHandles.Lookup caller : callers(clazz)) {
+            try {
+                return caller.unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, parameterTypes.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            }
+            catch (IllegalAccessException ignored) {
+                // try next caller
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the value of an uninitialized field of this type: 0 / false for primitives, null otherwise
+     */
+    static @Nullable Object defaultValue(@NotNull Class<?> type) {
+        return type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+    }
+
+    public static @Nullable Method findGetterMethod(@NotNull Field field) {
+        if (field.getDeclaringClass().isRecord()) {
+            try {
+                return field.getDeclaringClass().getMethod(field.getName());
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        boolean isBool = field.getType().isPrimitive() && field.getType().equals(boolean.class);
+        String name = (isBool ? "is" : "get") +
+            Character.toUpperCase(field.getName().charAt(0)) +
+            field.getName().substring(1);
+        try {
+            return field.getDeclaringClass().getMethod(name);
+        } catch (NoSuchMethodException e) {
+            // lombok names the getter of boolean field "isActive" isActive() instead of isIsActive()
+            if (isBool && hasBooleanPrefix(field)) {
+                try {
+                    return field.getDeclaringClass().getMethod(field.getName());
+                } catch (NoSuchMethodException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+
+    public static @Nullable Method findSetterMethod(@NotNull Field field) {
+        String name = "set" +
+            Character.toUpperCase(field.getName().charAt(0)) +
+            field.getName().substring(1);
+        try {
+            return field.getDeclaringClass().getMethod(name, field.getType());
+        } catch (NoSuchMethodException e) {
+            // lombok names the setter of boolean field "isActive" setActive() instead of setIsActive()
+            if (field.getType().equals(boolean.class) && hasBooleanPrefix(field)) {
+                try {
+                    return field.getDeclaringClass().getMethod("set" + field.getName().substring(2), field.getType());
+                } catch (NoSuchMethodException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+
+    private static boolean hasBooleanPrefix(Field field) {
+        return field.getName().length() > 2
+            && field.getName().startsWith("is")
+            && Character.isUpperCase(field.getName().charAt(2));
+    }
+
+    /**
+     * Bind {@code method} to an instance of {@code functionalInterface} through {@link LambdaMetafactory}.
+     * @return null if the method can't be bound (for example: inaccessible class)
+     */
+    static <F> @Nullable F metafactory(
+        Class<?> targetClass,
+        Method method,
+        Class<? super F> functionalInterface,
+        String interfaceMethodName,
+        MethodType interfaceMethodType,
+        MethodType instantiatedMethodType
+    ) {
+        for (MethodHandles.Lookup caller : callers(targetClass)) {
+            try {
+                CallSite callSite = LambdaMetafactory.metafactory(
+                    caller,
+                    interfaceMethodName,
+                    MethodType.methodType(functionalInterface),
+                    interfaceMethodType,
+                    caller.unreflect(method),
+                    instantiatedMethodType
+                );
+                return (F) callSite.getTarget().invoke();
+            }
+            catch (Throwable ignored) {
+                // try next caller
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lookups used to spin lambdas. A lookup inside the bean's class is preferred so that the generated class
+     * is defined by the bean's class loader.
+     */
+    private static MethodHandles.Lookup[] callers(Class<?> targetClass) {
+        try {
+            return new MethodHandles.Lookup[] { MethodHandles.privateLookupIn(targetClass, lookup), lookup };
+        }
+        catch (IllegalAccessException | RuntimeException e) {
+            return new MethodHandles.Lookup[] { lookup };
+        }
+    }
+
+    private static @Nullable MethodHandle unreflectField(Field field, boolean isSetter) {
+        try {
+            MethodHandles.Lookup caller = MethodHandles.privateLookupIn(field.getDeclaringClass(), lookup);
+            return isSetter ? caller.unreflectSetter(field) : caller.unreflectGetter(field);
+        }
+        catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException runtimeException) return runtimeException;
+        if (e instanceof Error error) throw error;
+        return new RuntimeException(e);
+    }
+
+    @FunctionalInterface
+    public interface IntSetter {
+        void set(Object o, int val);
+    }
+
+    @FunctionalInterface
+    public interface LongSetter {
+        void set(Object o, long val);
+    }
+
+    @FunctionalInterface
+    public interface DoubleSetter {
+        void set(Object o, double val);
+    }
+
+    @FunctionalInterface
+    public interface BooleanSetter {
+        void set(Object o, boolean val);
+    }
+
+    @FunctionalInterface
+    public interface IntGetter {
+        int get(Object o);
+    }
+
+    @FunctionalInterface
+    public interface LongGetter {
+        long get(Object o);
+    }
+
+    @FunctionalInterface
+    public interface DoubleGetter {
+        double get(Object o);
+    }
+
+    @FunctionalInterface
+    public interface BooleanGetter {
+        boolean get(Object o);
+    }
+}
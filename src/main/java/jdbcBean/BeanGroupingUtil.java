@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+import static jdbcBean.BeanUtil.*;
+import static jdbcBean.RowMappingPlan.*;
+
+/**
+ * Assemble {@link jdbcBean.annotation.ToMany} results whose rows come in any order.
+ * <br/>
+ * Each level keeps an identity map from distinct value to object, so an object is created once
+ * no matter how many rows (or parents) refer to it, and is added once to the collection of each of its parents.
+ * Unlike {@link BeanIterator}, the whole result is held in memory until the last row is read.
+ */
+class BeanGroupingUtil {
+
+    @SuppressWarnings("unchecked") // top level objects are mapped from clazz
+    public static <T> List<T> getGroupedList(
+        @NotNull ResultSet resultSet,
+        @NotNull Class<T> clazz,
+        @Nullable PlanCache planCache
+    ) throws SQLException {
+        try (resultSet) {
+            if (!resultSet.next()) return new ArrayList<>();
+
+            List<LevelPlan> levelPlans = getPlan(resultSet, clazz, true, planCache).levels();
+            if (levelPlans.size() == 1) {
+                List<T> outputList = new ArrayList<>();
+                do {
+                    outputList.add(BeanIterator.flatRowToObject(resultSet, levelPlans.get(0).objectPlan()));
+                } while (resultSet.next());
+                return outputList;
+            }
+
+            List<Map<Object, Object>> levelObjects = new ArrayList<>(levelPlans.size());
+            List<Set<Edge>> levelEdges = new ArrayList<>(levelPlans.size());
+            for (int i = 0; i < levelPlans.size(); i++) {
+                levelObjects.add(i == 0 ? new LinkedHashMap<>() : new HashMap<>());
+                levelEdges.add(i == 0 ? Set.of() : new HashSet<>());
+            }
+
+            do {
+                readGroupedRow(resultSet, levelPlans, levelObjects, levelEdges);
+            } while (resultSet.next());
+
+            return new ArrayList<>((Collection<T>) levelObjects.get(0).values());
+        }
+    }
+
+    private static void readGroupedRow(
+        ResultSet resultSet,
+        List<LevelPlan> levelPlans,
+        List<Map<Object, Object>> levelObjects,
+        List<Set<Edge>> levelEdges
+    ) throws SQLException {
+        Object parent = null;
+        Object parentDistinctVal = null;
+
+        for (int i = 0; i < levelPlans.size(); i++) {
+            LevelPlan curPlan = levelPlans.get(i);
+            Object distinctVal = curPlan.annotationInfo().distinctInfo().valueReader()
+                .read(resultSet, curPlan.distinctColumnIndex());
+
+            if (distinctVal == null) {
+                // no child on this row (LEFT JOIN): still initialize the parent's collection
+                if (parent != null) {
+                    BeanIterator.addToNestedCollection(levelPlans.get(i - 1).annotationInfo(), parent, null);
+                }
+                return;
+            }
+
+            Map<Object, Object> objects = levelObjects.get(i);
+            Object object = objects.get(distinctVal);
+            if (object == null) {
+                object = BeanIterator.flatRowToObject(resultSet, curPlan.objectPlan());
+                objects.put(distinctVal, object);
+            }
+
+            if (parent != null && levelEdges.get(i).add(new Edge(parentDistinctVal, distinctVal))) {
+                BeanIterator.addToNestedCollection(levelPlans.get(i - 1).annotationInfo(), parent, object);
+            }
+
+            parent = object;
+            parentDistinctVal = distinctVal;
+        }
+    }
+
+    /**
+     * A parent - child link, identified by their distinct values
+     */
+    private record Edge(@NotNull Object parentDistinctVal, @NotNull Object childDistinctVal) {
+    }
+}
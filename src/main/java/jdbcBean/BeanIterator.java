@@ -0,0 +1,289 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.exception.JDBCBeanException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import static jdbcBean.BeanUtil.*;
+import static jdbcBean.RowMappingPlan.*;
+
+/**
+ * Map rows of a {@link ResultSet} to Java Beans on demand.
+ * <br/>
+ * For classes using {@link jdbcBean.annotation.ToMany}, a root object is emitted as soon as the distinct value
+ * of the root level changes, so only one group of rows is held in memory at a time.
+ * The {@link ResultSet} is closed when the iteration reaches its end or when {@link #close()} is called.
+ */
+class BeanIterator<T> implements CloseableIterator<T> {
+
+    @NotNull
+    private final ResultSet resultSet;
+    @NotNull
+    private final Class<T> clazz;
+    @Nullable
+    private final PlanCache planCache;
+
+    private List<LevelPlan> levelPlans;
+    private Object[] curFrontObjects;
+    private boolean[] equalStatuses;
+
+    // the root object whose rows are being read
+    private boolean hasOpenRoot = false;
+    private Object openRoot;
+
+    // the next object to emit
+    private boolean hasReadyObject = false;
+    private T readyObject;
+
+    private boolean isExhausted = false;
+
+    public BeanIterator(@NotNull ResultSet resultSet, @NotNull Class<T> clazz, @Nullable PlanCache planCache) {
+        this.resultSet = resultSet;
+        this.clazz = clazz;
+        this.planCache = planCache;
+    }
+
+    /**
+     * Read rows until an object is complete.
+     * @return false if there are no more objects
+     */
+    public boolean advance() throws SQLException {
+        if (hasReadyObject) return true;
+        if (isExhausted) return false;
+
+        try {
+            while (resultSet.next()) {
+                if (levelPlans == null) {
+                    levelPlans = getPlan(resultSet, clazz, true, planCache).levels();
+                    curFrontObjects = new Object[levelPlans.size()];
+                    equalStatuses = new boolean[levelPlans.size()];
+                }
+
+                if (levelPlans.size() == 1) {
+                    setReadyObject(flatRowToObject(resultSet, levelPlans.get(0).objectPlan()));
+                    return true;
+                }
+
+                readToManyRow();
+
+                if (!equalStatuses[0]) {
+                    boolean hadOpenRoot = hasOpenRoot;
+                    Object completedRoot = openRoot;
+                    hasOpenRoot = true;
+                    openRoot = curFrontObjects[0];
+
+                    if (hadOpenRoot) {
+                        setReadyObject(completedRoot);
+                        return true;
+                    }
+                }
+            }
+
+            isExhausted = true;
+            if (hasOpenRoot) {
+                setReadyObject(openRoot);
+                hasOpenRoot = false;
+                openRoot = null;
+            }
+            resultSet.close();
+            return hasReadyObject;
+        }
+        catch (SQLException | RuntimeException e) {
+            closeQuietly(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Return the object read by {@link #advance()}.
+     */
+    public T take() {
+        if (!hasReadyObject) throw new NoSuchElementException();
+        T output = readyObject;
+        hasReadyObject = false;
+        readyObject = null;
+        return output;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            return advance();
+        }
+        catch (SQLException e) {
+            throw new JDBCBeanException(e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return take();
+    }
+
+    @Override
+    public void close() {
+        isExhausted = true;
+        hasOpenRoot = false;
+        openRoot = null;
+        hasReadyObject = false;
+        readyObject = null;
+        try {
+            resultSet.close();
+        }
+        catch (SQLException e) {
+            throw new JDBCBeanException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked") // objects of the top level are mapped from clazz
+    private void setReadyObject(Object object) {
+        hasReadyObject = true;
+        readyObject = (T) object;
+    }
+
+    private void closeQuietly(Exception cause) {
+        isExhausted = true;
+        try {
+            resultSet.close();
+        }
+        catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void readToManyRow() throws SQLException {
+        // replace element of curRowObjects with elements from this row
+        // update equal statuses
+        for (int i = 0; i < curFrontObjects.length; i++) {
+
+            LevelPlan curPlan = levelPlans.get(i);
+            DeepAnnotationInfo curInfo = curPlan.annotationInfo();
+            Object newDistinctVal = curInfo.distinctInfo().valueReader().read(resultSet, curPlan.distinctColumnIndex());
+
+            equalStatuses[i] = Objects.equals(
+                // the distinct field of new object
+                newDistinctVal,
+                // the distinct field of old object
+                curFrontObjects[i] == null ? null : curInfo.distinctInfo().accessor().exec(curFrontObjects[i])
+            );
+
+            if (!equalStatuses[i]) {
+                curFrontObjects[i] = newDistinctVal != null ?
+                    flatRowToObject(resultSet, curPlan.objectPlan()) : null;
+            }
+        }
+
+        for (int i = curFrontObjects.length - 1; i >= 1; i--) {
+            if ((!equalStatuses[i] || !equalStatuses[i - 1])) {
+                addToNestedCollection(levelPlans.get(i - 1).annotationInfo(), curFrontObjects[i - 1], curFrontObjects[i]);
+            }
+        }
+    }
+
+    static void addToNestedCollection(DeepAnnotationInfo parentObjectInfo, Object parentObject, @Nullable Object objectToAdd) {
+
+        ToManyInfo toManyInfo = parentObjectInfo.toManyInfo();
+        Object collection = toManyInfo.accessor().exec(parentObject);
+
+        if (collection == null) {
+            toManyInfo.deepSetter().exec(
+                parentObject,
+                toManyInfo.field().getType().cast(new ArrayList<>())
+            );
+        }
+
+        if (objectToAdd != null) {
+            // a @ToMany field is a List, initialized above if it was null
+            @SuppressWarnings("unchecked")
+            List<Object> list = (List<Object>) toManyInfo.accessor().exec(parentObject);
+            list.add(objectToAdd);
+        }
+    }
+
+    @SuppressWarnings("unchecked") // the caller's T is the class of objectPlan
+    static <T> T flatRowToObject(ResultSet resultSet, ObjectPlan objectPlan) throws SQLException {
+        if (objectPlan.rowMapper() != null) {
+            return (T) objectPlan.rowMapper().mapRow(resultSet, objectPlan.flatColumnIndexes());
+        }
+
+        @Nullable ConstructorInfo constructorInfo = objectPlan.annotationInfo().constructorInfo();
+        if (constructorInfo != null) {
+            return (T) constructRowObject(resultSet, objectPlan, constructorInfo);
+        }
+
+        T output = (T) objectPlan.annotationInfo().noArgsConstructor().get();
+
+        MappedInfo[] mappedInfos = objectPlan.mappedInfos();
+        int[] columnIndexes = objectPlan.columnIndexes();
+        for (int i = 0; i < mappedInfos.length; i++) {
+            mappedInfos[i].columnReader().read(resultSet, columnIndexes[i], output);
+        }
+
+        EmbeddedInfo[] embeddedInfos = objectPlan.embeddedInfos();
+        ObjectPlan[] embeddedPlans = objectPlan.embeddedPlans();
+        for (int i = 0; i < embeddedInfos.length; i++) {
+            Object embeddedObject = flatRowToObject(resultSet, embeddedPlans[i]);
+            embeddedInfos[i].setter().accept(output, embeddedObject);
+        }
+
+        return output;
+    }
+
+    /**
+     * Read the columns into the constructor arguments, build the embedded objects (bottom-up),
+     * then call the constructor once.
+     */
+    private static Object constructRowObject(
+        ResultSet resultSet,
+        ObjectPlan objectPlan,
+        ConstructorInfo constructorInfo
+    ) throws SQLException {
+        Object[] arguments = constructorInfo.newArguments();
+        MappedInfo[] mappedInfos = objectPlan.mappedInfos();
+        int[] columnIndexes = objectPlan.columnIndexes();
+        for (int i = 0; i < mappedInfos.length; i++) {
+            mappedInfos[i].columnReader().read(resultSet, columnIndexes[i], arguments);
+        }
+
+        ObjectPlan[] embeddedPlans = objectPlan.embeddedPlans();
+        int[] embeddedArgumentIndexes = constructorInfo.embeddedArgumentIndexes();
+        for (int i = 0; i < embeddedPlans.length; i++) {
+            arguments[embeddedArgumentIndexes[i]] = flatRowToObject(resultSet, embeddedPlans[i]);
+        }
+
+        return constructorInfo.newInstance(arguments);
+    }
+}
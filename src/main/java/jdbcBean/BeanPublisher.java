@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Emit the objects of a {@link CloseableIterator} to a single {@link Flow.Subscriber}, as many as it requests.
+ * <br/>
+ * Objects are mapped and emitted on the thread calling {@link Flow.Subscription#request(long)}, and never by
+ * two threads at once. Rows that aren't requested yet stay in the driver.
+ * The iterator (or its resource if it wasn't created yet) is closed on completion, on error and on cancel.
+ */
+class BeanPublisher<T> implements Flow.Publisher<T> {
+
+    @NotNull
+    private final Supplier<CloseableIterator<T>> iteratorSupplier;
+    // closed instead of the iterator when the subscription ends before the iterator is created
+    @NotNull
+    private final AutoCloseable resource;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    /**
+     * @param resource read by the iterators of {@code iteratorSupplier}
+     */
+    BeanPublisher(@NotNull Supplier<CloseableIterator<T>> iteratorSupplier, @NotNull AutoCloseable resource) {
+        this.iteratorSupplier = iteratorSupplier;
+        this.resource = resource;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("The result can only be published to one subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new BeanSubscription<>(subscriber, iteratorSupplier, resource));
+    }
+
+    private static class BeanSubscription<T> implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Supplier<CloseableIterator<T>> iteratorSupplier;
+        private final AutoCloseable resource;
+        private final AtomicLong demand = new AtomicLong();
+        // number of drain requests, only the thread incrementing it from 0 drains
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+
+        private CloseableIterator<T> iterator;
+        private volatile boolean cancelled = false;
+        private volatile Throwable invalidRequest;
+        // only accessed by the draining thread
+        private boolean done = false;
+
+        BeanSubscription(
+            Flow.Subscriber<? super T> subscriber,
+            Supplier<CloseableIterator<T>> iteratorSupplier,
+            AutoCloseable resource
+        ) {
+            this.subscriber = subscriber;
+            this.iteratorSupplier = iteratorSupplier;
+            this.resource = resource;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " objects, expected a positive number");
+            }
+            else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (pendingDrains.getAndIncrement() != 0) return;
+            do {
+                if (!done) drainOnce();
+            } while (pendingDrains.decrementAndGet() != 0);
+        }
+
+        private void drainOnce() {
+            try {
+                if (invalidRequest != null) {
+                    finish();
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                if (iterator == null && !cancelled) iterator = iteratorSupplier.get();
+
+                while (!cancelled && demand.get() > 0) {
+                    if (!iterator.hasNext()) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    T object = iterator.next();
+                    if (demand.get() != Long.MAX_VALUE) demand.decrementAndGet();
+                    subscriber.onNext(object);
+                }
+                if (cancelled) finish();
+            }
+            catch (RuntimeException e) {
+                finish();
+                subscriber.onError(e);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            try {
+                if (iterator != null) iterator.close();
+                else resource.close();
+            }
+            catch (Exception ignored) {
+                // the result is abandoned, nothing to report to
+            }
+        }
+    }
+}
@@ -25,7 +25,9 @@
 
 package jdbcBean;
 
+import jdbcBean.exception.JDBCBeanException;
 import lombok.val;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
@@ -49,6 +51,7 @@ class BeanToManyUtil {
 
         List<DeepAnnotationInfo> annotationInfoList = new ArrayList<>();
         DeepAnnotationInfo curAnnotationInfo = getAnnotationInfo(clazz);
+        assertSingleToMany(curAnnotationInfo);
 
         if (curAnnotationInfo.toManyInfo() == null) {
             return Collections.singletonList(curAnnotationInfo);
@@ -73,7 +76,7 @@ class BeanToManyUtil {
         assertTrue(
             start.toManyInfo() != null && start.distinctInfo() != null,
             "Class %s doesn't have both ToMany annotated and distinct field"
-                .formatted(start.shallowInfo().noArgsConstructor().getDeclaringClass().getName())
+                .formatted(start.shallowInfo().clazz().getName())
         );
 
         int recursiveDepth = start.toManyInfo().annotation().recursiveDepth();
@@ -81,10 +84,12 @@ class BeanToManyUtil {
         for (int i = 1; i <= recursiveDepth; i++) {
             DistinctInfo newDistinctInfo = new DistinctInfo(
                 start.distinctInfo().accessor(),
+                start.distinctInfo().valueReader(),
                 new MappedInfo(
                     "%s_%s".formatted(start.distinctInfo().mappedInfo().finalizedName(), i),
                     start.distinctInfo().mappedInfo().getter(),
                     start.distinctInfo().mappedInfo().setter(),
+                    start.distinctInfo().mappedInfo().columnReader(),
                     start.distinctInfo().mappedInfo().field(),
                     start.distinctInfo().mappedInfo().annotation()
                 )
@@ -93,7 +98,7 @@ class BeanToManyUtil {
             annotationInfoList.add(new DeepAnnotationInfo(
                 appendNumberToFieldName(i, start.shallowInfo()),
                 newDistinctInfo,
-                start.toManyInfo()
+                start.toManyInfoList()
             ));
         }
     }
@@ -108,6 +113,7 @@ class BeanToManyUtil {
                 "%s_%s".formatted(mappedInfo.finalizedName(), number),
                 mappedInfo.getter(),
                 mappedInfo.setter(),
+                mappedInfo.columnReader(),
                 mappedInfo.field(),
                 mappedInfo.annotation()
             ))
@@ -125,7 +131,9 @@ class BeanToManyUtil {
             .toList();
 
         return new ShallowAnnotationInfo(
+            annotationInfo.clazz(),
             annotationInfo.noArgsConstructor(),
+            annotationInfo.constructorInfo(),
             newMappedInfoList,
             newEmbeddedInfoList
         );
@@ -142,7 +150,7 @@ class BeanToManyUtil {
             assertTrue(
                 curAnnotationInfo.distinctInfo() != null,
                 "Class %s doesn't have distinct field"
-                    .formatted(curAnnotationInfo.shallowInfo().noArgsConstructor().getDeclaringClass().getName())
+                    .formatted(curAnnotationInfo.shallowInfo().clazz().getName())
             );
 
             annotationInfoList.add(curAnnotationInfo);
@@ -155,11 +163,49 @@ class BeanToManyUtil {
                     curAnnotationInfo.toManyInfo().field()
                 );
                 curAnnotationInfo = getAnnotationInfo(listElementType);
+                assertSingleToMany(curAnnotationInfo);
             }
         }
     }
 
-    private static Class<?> getCollectionElementType(Field field) {
-        return (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+    /**
+     * Joined rows can only be assembled along one to-many field per class.
+     */
+    private static void assertSingleToMany(DeepAnnotationInfo annotationInfo) {
+        if (annotationInfo.toManyInfoList().size() > 1) {
+            Field field = annotationInfo.toManyInfoList().get(1).field();
+            Field firstField = annotationInfo.toManyInfoList().get(0).field();
+            throw new JDBCBeanException(
+                ("Cannot use annotation ToMany on field %s of %s because field %s of %s is already annotated with ToMany. " +
+                    "Use FetchPlan to load several collections.")
+                    .formatted(
+                        field.getName(),
+                        field.getDeclaringClass().getName(),
+                        firstField.getName(),
+                        firstField.getDeclaringClass()
+                    )
+            );
+        }
+    }
+
+    /**
+     * @throws JDBCBeanException if the element type isn't a class, see {@link #findCollectionElementType(Field)}
+     */
+    static Class<?> getCollectionElementType(Field field) {
+        Class<?> output = findCollectionElementType(field);
+        if (output == null) {
+            throw new JDBCBeanException("Can't find the element class of field %s of %s, declare it as List<ElementClass>"
+                .formatted(field.getName(), field.getDeclaringClass().getName())
+            );
+        }
+        return output;
+    }
+
+    /**
+     * @return {@code X} of a {@code List<X>} field, null for a raw type, a wildcard or a parameterized element type
+     */
+    static @Nullable Class<?> findCollectionElementType(Field field) {
+        if (!(field.getGenericType() instanceof ParameterizedType parameterizedType)) return null;
+        return parameterizedType.getActualTypeArguments()[0] instanceof Class<?> elementType ? elementType : null;
     }
 }
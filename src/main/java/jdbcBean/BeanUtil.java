@@ -32,13 +32,22 @@ import jdbcBean.exception.JDBCBeanException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.beans.ConstructorProperties;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.RecordComponent;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import static jdbcBean.ColumnReaders.*;
 import static jdbcBean.JDBCUtil.*;
 
 class BeanUtil {
@@ -63,13 +72,13 @@ class BeanUtil {
         if (cachedResult != null) return cachedResult;
 
         AtomicReference<DistinctInfo> distinctInfo = new AtomicReference<>(null);
-        AtomicReference<ToManyInfo> toManyInfo = new AtomicReference<>(null);
+        List<ToManyInfo> toManyInfoList = new ArrayList<>();
 
-        ShallowAnnotationInfo shallowAnnotationInfo = getAnnotationInfo(distinctInfo, toManyInfo, o -> o, clazz);
+        ShallowAnnotationInfo shallowAnnotationInfo = getAnnotationInfo(distinctInfo, toManyInfoList, o -> o, clazz);
         DeepAnnotationInfo deepAnnotationInfo = new DeepAnnotationInfo(
             shallowAnnotationInfo,
             distinctInfo.get(),
-            toManyInfo.get()
+            Collections.unmodifiableList(toManyInfoList)
         );
         cachedDeepAnnotationInfo.put(clazz, deepAnnotationInfo);
         return deepAnnotationInfo;
@@ -77,21 +86,29 @@ class BeanUtil {
 
     private static ShallowAnnotationInfo getAnnotationInfo(
         AtomicReference<@Nullable DistinctInfo> distinctInfo,
-        AtomicReference<@Nullable ToManyInfo> toManyInfo,
+        List<ToManyInfo> toManyInfoList,
         Accessor objectAccessor,
         Class<?> clazz
     ) {
-        Constructor<?> noArgsConstructor;
-        try {
-            noArgsConstructor = clazz.getConstructor();
-        }
-        catch (NoSuchMethodException e) {
-            throw new JDBCBeanException(String.format("Can't find no args constructor for %s", clazz.getName()));
+        // records and classes with final fields are built through the constructor taking every field
+        @Nullable Supplier<Object> noArgsConstructor = clazz.isRecord() ? null : AccessorUtil.getNoArgsConstructor(clazz);
+        @Nullable List<Field> argumentFields = noArgsConstructor != null && hasWritableFields(clazz) ?
+            null : getArgumentFields(clazz);
+        @Nullable MethodHandle constructor = argumentFields == null ?
+            null : AccessorUtil.getSpreadConstructor(clazz, argumentFields.stream().map(Field::getType).toArray(Class<?>[]::new));
+        if (noArgsConstructor == null && constructor == null) {
+            throw new JDBCBeanException(String.format(
+                "Can't find no args constructor for %s, nor a constructor taking every field by name"
+                    + " (annotated with @ConstructorProperties or compiled with -parameters)",
+                clazz.getName()
+            ));
         }
 
         List<MappedInfo> mappedInfoList = new ArrayList<>();
         List<EmbeddedInfo> embeddedInfoList = new ArrayList<>();
-
+        List<Integer> mappedArgumentIndexes = new ArrayList<>();
+        List<Integer> embeddedArgumentIndexes = new ArrayList<>();
+        List<Integer> toManyArgumentIndexes = new ArrayList<>();
 
         fieldsConsumer(clazz, field -> {
             @Nullable Mapped mapped = field.getAnnotation(Mapped.class);
@@ -99,58 +116,69 @@ class BeanUtil {
             @Nullable ToMany toMany = field.getAnnotation(ToMany.class);
 
             if (mapped != null) {
-                Method getter = getGetter(field);
+                Function<Object, Object> getter = AccessorUtil.getGetter(field);
+                @Nullable BiConsumer<Object, Object> setter = constructor != null ? null : getSetter(field);
                 MappedInfo mappedInfo = new MappedInfo(
                     mapped.name().isEmpty() ? convertCamelCaseToSnakeCase(field.getName()) : mapped.name(),
-                    getGetter(field),
-                    getSetter(field),
+                    getter,
+                    setter,
+                    setter != null ?
+                        ColumnReaders.getColumnReader(field, mapped, setter) :
+                        ColumnReaders.getArgumentReader(field, mapped, argumentFields.indexOf(field)),
                     field,
                     mapped
                 );
                 mappedInfoList.add(mappedInfo);
+                if (constructor != null) mappedArgumentIndexes.add(argumentFields.indexOf(field));
 
                 if (mapped.isDistinct() && distinctInfo.get() == null) {
                     distinctInfo.set(new DistinctInfo(
-                        o -> getter.invoke(objectAccessor.exec(o)),
+                        o -> getter.apply(objectAccessor.exec(o)),
+                        ColumnReaders.getValueReader(field.getType(), mapped.type()),
                         mappedInfo
                     ));
                 }
             }
             else if (embedded != null) {
-                Method getter = getGetter(field);
+                Function<Object, Object> getter = AccessorUtil.getGetter(field);
                 embeddedInfoList.add(new EmbeddedInfo(
                     getter,
-                    getSetter(field),
+                    constructor != null ? null : getSetter(field),
                     field,
                     getAnnotationInfo(
                         distinctInfo,
-                        toManyInfo,
-                        o -> getter.invoke(objectAccessor.exec(o)),
+                        toManyInfoList,
+                        o -> getter.apply(objectAccessor.exec(o)),
                         field.getType()
                     ),
                     embedded
                 ));
+                if (constructor != null) embeddedArgumentIndexes.add(argumentFields.indexOf(field));
             }
             else if (toMany != null) {
-                if (toManyInfo.get() != null) {
-                    throw new JDBCBeanException(
-                        "Cannot use annotation ToMany on field %s of %s because field %s of %s is already annotated with ToMany."
-                            .formatted(
-                                field.getName(),
-                                field.getDeclaringClass().getName(),
-                                toManyInfo.get().field().getName(),
-                                toManyInfo.get().field().getDeclaringClass()
-                            )
-                    );
-                }
                 if (!field.getType().equals(List.class)) {
                     throw new JDBCBeanException("Collection type of field %s must be %s"
                         .formatted(field.getName(), List.class.getName())
                     );
                 }
-                toManyInfo.set(new ToManyInfo(
-                    o -> getGetter(field).invoke(objectAccessor.exec(o)),
-                    (o, val) -> getSetter(field).invoke(objectAccessor.exec(o), val),
+                Function<Object, Object> getter = AccessorUtil.getGetter(field);
+                DeepSetter deepSetter;
+                if (constructor != null) {
+                    // the constructor is always given a new list
+                    toManyArgumentIndexes.add(argumentFields.indexOf(field));
+                    deepSetter = (o, val) -> {
+                        throw new JDBCBeanException("Cannot set field %s of %s created by its constructor"
+                            .formatted(field.getName(), field.getDeclaringClass().getName())
+                        );
+                    };
+                }
+                else {
+                    BiConsumer<Object, Object> setter = getSetter(field);
+                    deepSetter = (o, val) -> setter.accept(objectAccessor.exec(o), val);
+                }
+                toManyInfoList.add(new ToManyInfo(
+                    o -> getter.apply(objectAccessor.exec(o)),
+                    deepSetter,
                     field,
                     toMany
                 ));
@@ -160,20 +188,125 @@ class BeanUtil {
         });
 
         return new ShallowAnnotationInfo(
-            noArgsConstructor,
+            clazz,
+            constructor != null ? null : noArgsConstructor,
+            constructor == null ? null : new ConstructorInfo(
+                constructor,
+                argumentFields.stream().map(field -> AccessorUtil.defaultValue(field.getType())).toArray(),
+                mappedArgumentIndexes.stream().mapToInt(Integer::intValue).toArray(),
+                embeddedArgumentIndexes.stream().mapToInt(Integer::intValue).toArray(),
+                toManyArgumentIndexes.stream().mapToInt(Integer::intValue).toArray()
+            ),
             mappedInfoList,
             embeddedInfoList
         );
     }
 
+    /**
+     * @return false if one of the annotated fields is final and doesn't have a setter
+     */
+    private static boolean hasWritableFields(Class<?> clazz) {
+        AtomicBoolean output = new AtomicBoolean(true);
+        fieldsConsumer(clazz, field -> {
+            boolean isAnnotated = field.isAnnotationPresent(Mapped.class) || field.isAnnotationPresent(Embedded.class)
+                || field.isAnnotationPresent(ToMany.class);
+            if (isAnnotated && Modifier.isFinal(field.getModifiers()) && AccessorUtil.findSetterMethod(field) == null) {
+                output.set(false);
+            }
+        });
+        return output.get();
+    }
+
+    /**
+     * @return record components, or every instance field of the class and its super classes in the order of the
+     * parameters of the constructor taking them, matched by name (see {@link #getParameterNames(Constructor)}).
+     * Null if there is no such constructor
+     */
+    private static @Nullable List<Field> getArgumentFields(Class<?> clazz) {
+        List<Field> output = new ArrayList<>();
+        if (clazz.isRecord()) {
+            for (RecordComponent recordComponent : clazz.getRecordComponents()) {
+                try {
+                    output.add(clazz.getDeclaredField(recordComponent.getName()));
+                }
+                catch (NoSuchFieldException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return output;
+        }
+
+        Map<String, Field> fields = new HashMap<>();
+        AtomicBoolean hasHiddenFields = new AtomicBoolean(false);
+        fieldsConsumer(clazz, field -> {
+            if (!Modifier.isStatic(field.getModifiers()) && fields.putIfAbsent(field.getName(), field) != null) {
+                hasHiddenFields.set(true);
+            }
+        });
+        if (hasHiddenFields.get()) return null;
+
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            @Nullable String[] parameterNames = getParameterNames(constructor);
+            if (parameterNames == null || parameterNames.length != fields.size()) continue;
+
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            for (int i = 0; i < parameterNames.length; i++) {
+                Field field = fields.get(parameterNames[i]);
+                if (field == null || !field.getType().equals(parameterTypes[i]) || output.contains(field)) break;
+                output.add(field);
+            }
+            if (output.size() == fields.size()) return output;
+            output.clear();
+        }
+        return null;
+    }
+
+    /**
+     * @return names given by {@link ConstructorProperties}, or the parameter names if the class was compiled
+     * with {@code -parameters}, null otherwise
+     */
+    private static @Nullable String[] getParameterNames(Constructor<?> constructor) {
+        @Nullable ConstructorProperties constructorProperties = constructor.getAnnotation(ConstructorProperties.class);
+        if (constructorProperties != null) return constructorProperties.value();
+
+        Parameter[] parameters = constructor.getParameters();
+        if (parameters.length > 0 && !parameters[0].isNamePresent()) return null;
+        return Arrays.stream(parameters).map(Parameter::getName).toArray(String[]::new);
+    }
+
+    /**
+     * @return {@link MappedInfo} of the object followed by those of its embedded objects, depth-first
+     * (the order used by {@link RowMapper} and {@link ParameterBinder})
+     */
+    public static List<MappedInfo> getFlatMappedInfoList(ShallowAnnotationInfo annotationInfo) {
+        List<MappedInfo> output = new ArrayList<>(annotationInfo.mappedInfoList());
+        for (EmbeddedInfo embeddedInfo : annotationInfo.embeddedInfoList()) {
+            output.addAll(getFlatMappedInfoList(embeddedInfo.annotationInfo()));
+        }
+        return output;
+    }
+
     public record DeepAnnotationInfo(
         @NotNull ShallowAnnotationInfo shallowInfo,
         @Nullable DistinctInfo distinctInfo,
-        @Nullable ToManyInfo toManyInfo
-    ) {}
+        @NotNull List<ToManyInfo> toManyInfoList
+    ) {
+        /**
+         * @return the to-many field used to assemble joined rows, null if there is none
+         */
+        public @Nullable ToManyInfo toManyInfo() {
+            return toManyInfoList.isEmpty() ? null : toManyInfoList.get(0);
+        }
+    }
 
+    /**
+     * Exactly one of {@code noArgsConstructor} and {@code constructorInfo} is not null.
+     * Setters of {@link MappedInfo} and {@link EmbeddedInfo} are null when {@code constructorInfo} is used.
+     */
     public record ShallowAnnotationInfo(
-        @NotNull Constructor<?> noArgsConstructor,
+        @NotNull Class<?> clazz,
+        @Nullable Supplier<Object> noArgsConstructor,
+        @Nullable ConstructorInfo constructorInfo,
         @NotNull List<MappedInfo> mappedInfoList,
         @NotNull List<EmbeddedInfo> embeddedInfoList
     ) {
@@ -182,24 +315,69 @@ class BeanUtil {
 
     public record MappedInfo(
         @NotNull String finalizedName,
-        @NotNull Method getter,
-        @NotNull Method setter,
+        @NotNull Function<Object, Object> getter,
+        @Nullable BiConsumer<Object, Object> setter,
+        @NotNull ColumnReader columnReader,
         @NotNull Field field,
         @NotNull Mapped annotation
     ) {
     }
 
     public record EmbeddedInfo(
-        @NotNull Method getter,
-        @NotNull Method setter,
+        @NotNull Function<Object, Object> getter,
+        @Nullable BiConsumer<Object, Object> setter,
         @NotNull Field field,
         @NotNull ShallowAnnotationInfo annotationInfo,
         @NotNull Embedded annotation
     ) {
     }
 
+    /**
+     * Constructor of a record (canonical constructor) or of a class with final fields
+     * (constructor taking every instance field, matched by parameter name).
+     * <br/>
+     * Column values are read into a copy of {@code defaultArguments},
+     * then the constructor is called once per object.
+     * Unmapped fields are given 0 / false / null, to-many fields a new list.
+     *
+     * @param constructor takes the arguments as an {@code Object[]}
+     * @param mappedArgumentIndexes argument index of each {@link MappedInfo} of the object
+     * @param embeddedArgumentIndexes argument index of each {@link EmbeddedInfo} of the object
+     * @param toManyArgumentIndexes argument index of each to-many field of the object
+     */
+    public record ConstructorInfo(
+        @NotNull MethodHandle constructor,
+        @NotNull Object[] defaultArguments,
+        int @NotNull [] mappedArgumentIndexes,
+        int @NotNull [] embeddedArgumentIndexes,
+        int @NotNull [] toManyArgumentIndexes
+    ) {
+        /**
+         * @return the arguments of a new object, set to the default values
+         */
+        public Object[] newArguments() {
+            return defaultArguments.clone();
+        }
+
+        public Object newInstance(Object[] arguments) {
+            for (int toManyArgumentIndex : toManyArgumentIndexes) {
+                arguments[toManyArgumentIndex] = new ArrayList<>();
+            }
+            try {
+                return (Object) constructor.invokeExact(arguments);
+            }
+            catch (RuntimeException | Error e) {
+                throw e;
+            }
+            catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
     public record DistinctInfo(
         @NotNull Accessor accessor,
+        @NotNull ValueReader valueReader,
         @NotNull MappedInfo mappedInfo
     ) {
     }
@@ -219,43 +397,19 @@ class BeanUtil {
 
     @FunctionalInterface
     public interface Accessor {
-        Object exec(Object o) throws ReflectiveOperationException;
+        Object exec(Object o);
     }
 
     @FunctionalInterface
     public interface DeepSetter {
-        void exec(Object o, Object val) throws ReflectiveOperationException;
-    }
-
-    public static Method getGetter(Field field) {
-        if (field.getDeclaringClass().isRecord()) {
-            try {
-                return field.getDeclaringClass().getMethod(field.getName());
-            } catch (ReflectiveOperationException e) {
-                throw new RuntimeException(e);
-            }
-        }
-
-        boolean isBool = field.getType().isPrimitive() && field.getType().equals(boolean.class);
-        String name = (isBool ? "is" : "get") +
-            Character.toUpperCase(field.getName().charAt(0)) +
-            field.getName().substring(1);
-        try {
-            return field.getDeclaringClass().getMethod(name);
-        } catch (NoSuchMethodException e) {
-            throw new JDBCBeanException("Cannot find public getter for " + field.getName());
-        }
+        void exec(Object o, Object val);
     }
 
-    public static Method getSetter(Field field) {
-
-        String name = "set" +
-            Character.toUpperCase(field.getName().charAt(0)) +
-            field.getName().substring(1);
-        try {
-            return field.getDeclaringClass().getMethod(name, field.getType());
-        } catch (NoSuchMethodException e) {
+    private static BiConsumer<Object, Object> getSetter(Field field) {
+        @Nullable BiConsumer<Object, Object> setter = AccessorUtil.getSetter(field);
+        if (setter == null) {
             throw new JDBCBeanException("Cannot find public setter with argument type " + field.getType() + " for " + field.getName());
         }
+        return setter;
     }
 }
@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A size-bounded concurrent cache with CLOCK (second chance) eviction, an approximation of LRU.
+ * <br/>
+ * Reads don't lock: they only mark the entry as recently used.
+ * When the cache grows over its maximum size, the thread that added the entry sweeps the clock hand,
+ * clearing the mark of recently used entries and evicting the first entry without it.
+ * Only one thread sweeps at a time, the others don't wait for it.
+ */
+class BoundedCache<K, V> {
+
+    private final ConcurrentHashMap<K, Node<V>> map = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    @Nullable
+    private final BiConsumer<K, V> evictionListener;
+
+    private volatile int maxSize;
+
+    // the clock hand, only used while holding evictionLock
+    private Iterator<Map.Entry<K, Node<V>>> hand;
+
+    /**
+     * @param evictionListener called with entries removed to respect the maximum size
+     */
+    BoundedCache(int maxSize, @Nullable BiConsumer<K, V> evictionListener) {
+        this.maxSize = checkMaxSize(maxSize);
+        this.evictionListener = evictionListener;
+    }
+
+    public @Nullable V get(@NotNull K key) {
+        Node<V> node = map.get(key);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        if (!node.referenced) node.referenced = true;
+        hitCount.increment();
+        return node.value;
+    }
+
+    public void put(@NotNull K key, @NotNull V value) {
+        map.put(key, new Node<>(value));
+        if (map.size() > maxSize) evict();
+    }
+
+    /**
+     * @return the removed value, null if there was none
+     */
+    public @Nullable V remove(@NotNull K key) {
+        Node<V> node = map.remove(key);
+        return node == null ? null : node.value;
+    }
+
+    public void forEachValue(@NotNull Consumer<V> action) {
+        map.values().forEach(node -> action.accept(node.value));
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = checkMaxSize(maxSize);
+        if (map.size() > maxSize) evict();
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), map.size());
+    }
+
+    private void evict() {
+        if (!evictionLock.tryLock()) return;
+        try {
+            while (map.size() > maxSize) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = map.entrySet().iterator();
+                    if (!hand.hasNext()) return;
+                }
+                Map.Entry<K, Node<V>> entry = hand.next();
+                Node<V> node = entry.getValue();
+                if (node.referenced) {
+                    node.referenced = false;
+                }
+                else if (map.remove(entry.getKey(), node)) {
+                    evictionCount.increment();
+                    if (evictionListener != null) evictionListener.accept(entry.getKey(), node.value);
+                }
+            }
+        }
+        finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static int checkMaxSize(int maxSize) {
+        if (maxSize < 0) throw new IllegalArgumentException("Invalid maximum size " + maxSize);
+        return maxSize;
+    }
+
+    private static class Node<V> {
+        final V value;
+        volatile boolean referenced = false;
+
+        Node(V value) {
+            this.value = value;
+        }
+    }
+}
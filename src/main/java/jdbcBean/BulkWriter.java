@@ -0,0 +1,299 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.exception.JDBCBeanException;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static jdbcBean.BeanUtil.*;
+
+/**
+ * Insert Java Beans with multi-row {@code INSERT INTO table (columns) VALUES (...), (...), ...} statements.
+ * Example:
+ * <pre>{@code
+ * BulkWriter<CommentDTO> writer = new BulkWriter<>("comment", CommentDTO.class);
+ *
+ * try (Stream<CommentDTO> comments = readComments()) {
+ *     long insertedCount = writer.insertAll(connection, comments);
+ * }
+ * }</pre>
+ * Columns are the {@link jdbcBean.annotation.Mapped} fields of the class and of its embedded classes.
+ * Each statement holds as many rows as fit under {@code maxParameters}, the rows are read from
+ * the {@link Iterable} or {@link Stream} one chunk at a time and bound with plans computed once per row position.
+ * <br/>
+ * {@link #upsertAll(Connection, Collection)} inserts or updates rows keyed by the
+ * {@link jdbcBean.annotation.Mapped#isDistinct()} field, with {@code MERGE} or {@code INSERT ... ON CONFLICT}.
+ * A writer is immutable and can be shared by threads.
+ *
+ * @param <T> Java Bean class
+ */
+public final class BulkWriter<T> {
+
+    /**
+     * Under the parameter limit of most drivers (2100 for SQL Server, 32767 for Oracle, 65535 for PostgreSQL)
+     */
+    public static final int DEFAULT_MAX_PARAMETERS = 2000;
+
+    /**
+     * Rows per batch sent by {@link #upsertAll(Connection, Collection)}
+     */
+    public static final int UPSERT_BATCH_SIZE = 1000;
+
+    @Getter
+    private final String tableName;
+    @Getter
+    private final List<String> columnNames;
+    /**
+     * Rows of a full chunk
+     */
+    @Getter
+    private final int rowsPerStatement;
+    private final String columnList;
+    // rowPlans[i] binds the i-th row of a statement
+    private final ParameterBindingPlan[] rowPlans;
+    private final String fullInsertSql;
+    // column of the isDistinct field, null if the class doesn't have one
+    @Nullable
+    private final String keyColumnName;
+
+    public BulkWriter(@NotNull String tableName, @NotNull Class<T> clazz) {
+        this(tableName, clazz, DEFAULT_MAX_PARAMETERS);
+    }
+
+    /**
+     * @param maxParameters the most parameters allowed in one statement by the driver
+     */
+    public BulkWriter(@NotNull String tableName, @NotNull Class<T> clazz, int maxParameters) {
+        DeepAnnotationInfo annotationInfo = getAnnotationInfo(clazz);
+        Set<String> names = new LinkedHashSet<>();
+        for (MappedInfo mappedInfo : getFlatMappedInfoList(annotationInfo.shallowInfo())) {
+            names.add(mappedInfo.finalizedName());
+        }
+        if (names.isEmpty()) {
+            throw new JDBCBeanException(clazz.getName() + " doesn't have any @Mapped field");
+        }
+        if (maxParameters < names.size()) {
+            throw new JDBCBeanException(String.format(
+                "%s has %s columns, more than the limit of %s parameters", clazz.getName(), names.size(), maxParameters
+            ));
+        }
+
+        this.tableName = tableName;
+        this.columnNames = List.copyOf(names);
+        this.columnList = String.join(", ", columnNames);
+        this.rowsPerStatement = maxParameters / columnNames.size();
+
+        String rowNPSql = "INSERT INTO " + tableName + " (" + columnList + ") VALUES ("
+            + String.join(", ", columnNames.stream().map(name -> ":" + name).toList()) + ")";
+        ParameterBindingPlan rowPlan = QueryParser.parseNPSql(rowNPSql).getBindingPlan(clazz);
+        this.rowPlans = new ParameterBindingPlan[rowsPerStatement];
+        for (int i = 0; i < rowsPerStatement; i++) {
+            rowPlans[i] = rowPlan.withParameterOffset(i * columnNames.size());
+        }
+        this.fullInsertSql = getInsertSql(rowsPerStatement);
+        this.keyColumnName = annotationInfo.distinctInfo() == null ? null :
+            annotationInfo.distinctInfo().mappedInfo().finalizedName();
+    }
+
+    /**
+     * @return the SQL inserting {@code rowCount} rows
+     */
+    public String getInsertSql(int rowCount) {
+        String rowPlaceholders = "(" + "?, ".repeat(columnNames.size() - 1) + "?)";
+        StringBuilder sql = new StringBuilder(
+            32 + tableName.length() + columnList.length() + rowCount * (rowPlaceholders.length() + 2)
+        );
+        sql.append("INSERT INTO ").append(tableName).append(" (").append(columnList).append(") VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(rowPlaceholders);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Insert every object, {@link #getRowsPerStatement()} rows per statement.
+     * The caller controls the transaction: rows of the executed statements stay inserted if a later one fails.
+     *
+     * @return number of inserted rows reported by the driver
+     */
+    public long insertAll(@NotNull Connection connection, @NotNull Iterable<? extends T> objects) throws SQLException {
+        return insertAll(connection, objects.iterator());
+    }
+
+    /**
+     * Same as {@link #insertAll(Connection, Iterable)}, the stream is consumed but not closed.
+     */
+    public long insertAll(@NotNull Connection connection, @NotNull Stream<? extends T> objects) throws SQLException {
+        return insertAll(connection, objects.iterator());
+    }
+
+    private long insertAll(Connection connection, Iterator<? extends T> iterator) throws SQLException {
+        Object[] chunk = new Object[rowsPerStatement];
+        long insertedCount = 0;
+        PreparedStatement fullStatement = null;
+        try {
+            while (iterator.hasNext()) {
+                int rowCount = 0;
+                while (rowCount < rowsPerStatement && iterator.hasNext()) {
+                    T object = iterator.next();
+                    if (object == null) throw new JDBCBeanException("Can't insert a null object into " + tableName);
+                    chunk[rowCount++] = object;
+                }
+
+                if (rowCount == rowsPerStatement) {
+                    if (fullStatement == null) fullStatement = connection.prepareStatement(fullInsertSql);
+                    insertedCount += executeChunk(fullStatement, chunk, rowCount);
+                }
+                else {
+                    try (PreparedStatement lastStatement = connection.prepareStatement(getInsertSql(rowCount))) {
+                        insertedCount += executeChunk(lastStatement, chunk, rowCount);
+                    }
+                }
+            }
+        }
+        finally {
+            if (fullStatement != null) fullStatement.close();
+        }
+        return insertedCount;
+    }
+
+    private int executeChunk(PreparedStatement statement, Object[] chunk, int rowCount) throws SQLException {
+        for (int i = 0; i < rowCount; i++) {
+            rowPlans[i].bind(statement, chunk[i]);
+        }
+        return statement.executeUpdate();
+    }
+
+    /**
+     * @return the named parameter SQL inserting or updating one row, keyed by the isDistinct field
+     */
+    public String getUpsertNPSql(@NotNull UpsertDialect dialect) {
+        if (keyColumnName == null) {
+            throw new JDBCBeanException("Upserting into " + tableName + " requires a @Mapped(isDistinct = true) field");
+        }
+        List<String> updatedColumns = columnNames.stream().filter(name -> !name.equals(keyColumnName)).toList();
+        String parameters = columnNames.stream().map(name -> ":" + name).collect(Collectors.joining(", "));
+
+        return switch (dialect) {
+            case MERGE, SQL_SERVER_MERGE -> {
+                String sourceColumns = columnNames.stream().map(name -> "s." + name).collect(Collectors.joining(", "));
+                String sql = "MERGE INTO " + tableName + " t USING (VALUES (" + parameters + ")) AS s (" + columnList + ")"
+                    + " ON t." + keyColumnName + " = s." + keyColumnName;
+                if (!updatedColumns.isEmpty()) {
+                    sql += " WHEN MATCHED THEN UPDATE SET "
+                        + updatedColumns.stream().map(name -> "t." + name + " = s." + name).collect(Collectors.joining(", "));
+                }
+                sql += " WHEN NOT MATCHED THEN INSERT (" + columnList + ") VALUES (" + sourceColumns + ")";
+                yield dialect == UpsertDialect.SQL_SERVER_MERGE ? sql + ";" : sql;
+            }
+            case ON_CONFLICT -> {
+                String sql = "INSERT INTO " + tableName + " (" + columnList + ") VALUES (" + parameters + ")"
+                    + " ON CONFLICT (" + keyColumnName + ")";
+                yield updatedColumns.isEmpty() ? sql + " DO NOTHING" : sql + " DO UPDATE SET "
+                    + updatedColumns.stream().map(name -> name + " = EXCLUDED." + name).collect(Collectors.joining(", "));
+            }
+        };
+    }
+
+    /**
+     * Same as {@link #upsertAll(Connection, Collection, UpsertDialect)} with the dialect of the connection's database
+     * (see {@link UpsertDialect#of(Connection)}).
+     */
+    public int[] upsertAll(@NotNull Connection connection, @NotNull Collection<? extends T> objects) throws SQLException {
+        return upsertAll(connection, objects, UpsertDialect.of(connection));
+    }
+
+    /**
+     * Insert the objects whose key isn't in the table and update the others, in batches of {@link #UPSERT_BATCH_SIZE}.
+     * The caller controls the transaction.
+     *
+     * @return update counts of every object, in order
+     */
+    public int[] upsertAll(
+        @NotNull Connection connection,
+        @NotNull Collection<? extends T> objects,
+        @NotNull UpsertDialect dialect
+    ) throws SQLException {
+        String upsertNPSql = getUpsertNPSql(dialect);
+        if (objects.isEmpty()) return new int[0];
+
+        try (NPPreparedStatement statement = new NPPreparedStatement(upsertNPSql, connection)) {
+            return statement.executeBatch(objects, UPSERT_BATCH_SIZE);
+        }
+        catch (SQLException | RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new JDBCBeanException(e);
+        }
+    }
+
+    /**
+     * SQL used to insert or update a row.
+     */
+    public enum UpsertDialect {
+        /**
+         * Standard {@code MERGE INTO ... USING (VALUES ...)}: HSQLDB, H2, DB2
+         */
+        MERGE,
+        /**
+         * {@link #MERGE} terminated by {@code ;}, which SQL Server requires
+         */
+        SQL_SERVER_MERGE,
+        /**
+         * {@code INSERT ... ON CONFLICT (key) DO UPDATE}: PostgreSQL, SQLite
+         */
+        ON_CONFLICT;
+
+        /**
+         * @return the dialect of the connection's database
+         * @throws JDBCBeanException if the database isn't one of the supported ones (MySQL, MariaDB and Oracle
+         *                           support none of the dialects)
+         */
+        public static UpsertDialect of(@NotNull Connection connection) throws SQLException {
+            String productName = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+            if (productName.contains("postgres") || productName.contains("sqlite")) return ON_CONFLICT;
+            if (productName.startsWith("hsql") || productName.equals("h2") || productName.startsWith("db2")) return MERGE;
+            if (productName.equals("microsoft sql server")) return SQL_SERVER_MERGE;
+            throw new JDBCBeanException("Upserting isn't supported on " + productName);
+        }
+    }
+}
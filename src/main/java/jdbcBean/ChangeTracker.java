@@ -0,0 +1,380 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.AccessorUtil.BooleanGetter;
+import jdbcBean.AccessorUtil.DoubleGetter;
+import jdbcBean.AccessorUtil.IntGetter;
+import jdbcBean.AccessorUtil.LongGetter;
+import jdbcBean.ParameterSetters.ParameterSetter;
+import jdbcBean.exception.JDBCBeanException;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import static jdbcBean.BeanUtil.*;
+
+/**
+ * Record the mapped values of loaded Java Beans, then update only the columns changed since.
+ * Example:
+ * <pre>{@code
+ * ChangeTracker<CommentDTO> tracker = new ChangeTracker<>("comment", CommentDTO.class);
+ * List<CommentDTO> comments = statement.execute().getTrackedList(tracker);
+ *
+ * comments.get(0).setComment("edited");
+ * tracker.updateChangedAll(connection, comments); // UPDATE comment SET comment = ? WHERE id = ?
+ * }</pre>
+ * Rows are keyed by the {@link jdbcBean.annotation.Mapped#isDistinct()} field, which must not change.
+ * Objects without changes are skipped, objects changing the same columns are sent in one batch.
+ * <br/>
+ * A snapshot keeps primitive fields of the class in a {@code long[]} and other values in an {@code Object[]}
+ * (arrays and lists are copied). Objects are tracked by identity until {@link #untrack(Object)} or {@link #clear()}:
+ * use a tracker for one unit of work. A tracker isn't thread safe.
+ *
+ * @param <T> Java Bean class
+ */
+public final class ChangeTracker<T> {
+
+    /**
+     * Objects per batch sent by {@link #updateChangedAll(Connection, Collection)}
+     */
+    public static final int BATCH_SIZE = 1000;
+
+    @Getter
+    private final String tableName;
+    @Getter
+    private final Class<T> clazz;
+    @NotNull
+    private final TrackedColumn[] columns;
+    // index of the isDistinct column in columns
+    private final int keyColumn;
+    private final int primitiveCount;
+    private final int objectCount;
+    private final Map<Object, Snapshot> snapshots = new IdentityHashMap<>();
+    // SQL per set of changed columns
+    private final Map<BitSet, String> cachedUpdateSql = new HashMap<>();
+
+    public ChangeTracker(@NotNull String tableName, @NotNull Class<T> clazz) {
+        DeepAnnotationInfo annotationInfo = getAnnotationInfo(clazz);
+        if (annotationInfo.distinctInfo() == null) {
+            throw new JDBCBeanException("Tracking changes of " + clazz.getName() + " requires a @Mapped(isDistinct = true) field");
+        }
+
+        List<TrackedColumn> columnList = new ArrayList<>();
+        addColumns(annotationInfo.shallowInfo(), null, new HashSet<>(), columnList);
+        this.tableName = tableName;
+        this.clazz = clazz;
+        this.columns = columnList.toArray(new TrackedColumn[0]);
+        this.primitiveCount = (int) columnList.stream().filter(column -> column.primitiveReader() != null).count();
+        this.objectCount = columns.length - primitiveCount;
+
+        String keyName = annotationInfo.distinctInfo().mappedInfo().finalizedName();
+        int keyIndex = 0;
+        while (!columns[keyIndex].name().equals(keyName)) keyIndex++;
+        this.keyColumn = keyIndex;
+    }
+
+    /**
+     * @param ownerAccessor accessor of the embedded object from the root object, null for fields of the root object
+     */
+    private void addColumns(
+        ShallowAnnotationInfo annotationInfo,
+        @Nullable Function<Object, Object> ownerAccessor,
+        Set<String> names,
+        List<TrackedColumn> columnList
+    ) {
+        int primitiveSlot = (int) columnList.stream().filter(column -> column.primitiveReader() != null).count();
+        int objectSlot = columnList.size() - primitiveSlot;
+        for (MappedInfo mappedInfo : annotationInfo.mappedInfoList()) {
+            if (!names.add(mappedInfo.finalizedName())) continue;
+
+            ParameterSetter setter = ParameterSetters.getParameterSetter(
+                mappedInfo.field(), mappedInfo.annotation(), ownerAccessor == null ? o -> o : ownerAccessor
+            );
+            // fields of embedded objects are read through their nullable owner, never as primitives
+            @Nullable PrimitiveReader primitiveReader = ownerAccessor == null ? getPrimitiveReader(mappedInfo) : null;
+            Function<Object, Object> getter = mappedInfo.getter();
+            Function<Object, Object> valueAccessor = ownerAccessor == null ? getter : o -> {
+                Object owner = ownerAccessor.apply(o);
+                return owner == null ? null : getter.apply(owner);
+            };
+            columnList.add(new TrackedColumn(
+                mappedInfo.finalizedName(),
+                setter,
+                primitiveReader,
+                valueAccessor,
+                primitiveReader != null ? primitiveSlot++ : objectSlot++
+            ));
+        }
+
+        for (EmbeddedInfo embeddedInfo : annotationInfo.embeddedInfoList()) {
+            Function<Object, Object> getter = embeddedInfo.getter();
+            addColumns(
+                embeddedInfo.annotationInfo(),
+                ownerAccessor == null ? getter : o -> {
+                    Object owner = ownerAccessor.apply(o);
+                    return owner == null ? null : getter.apply(owner);
+                },
+                names,
+                columnList
+            );
+        }
+    }
+
+    private static @Nullable PrimitiveReader getPrimitiveReader(MappedInfo mappedInfo) {
+        Class<?> type = mappedInfo.field().getType();
+        if (type == int.class) {
+            IntGetter getter = AccessorUtil.getIntGetter(mappedInfo.field());
+            return getter::get;
+        }
+        if (type == long.class) {
+            LongGetter getter = AccessorUtil.getLongGetter(mappedInfo.field());
+            return getter::get;
+        }
+        if (type == double.class) {
+            DoubleGetter getter = AccessorUtil.getDoubleGetter(mappedInfo.field());
+            return o -> Double.doubleToRawLongBits(getter.get(o));
+        }
+        if (type == boolean.class) {
+            BooleanGetter getter = AccessorUtil.getBooleanGetter(mappedInfo.field());
+            return o -> getter.get(o) ? 1 : 0;
+        }
+        return null;
+    }
+
+    /**
+     * Record the current values of {@code object}, replacing its previous snapshot.
+     *
+     * @return {@code object}
+     */
+    public T track(@NotNull T object) {
+        snapshots.put(object, takeSnapshot(object));
+        return object;
+    }
+
+    /**
+     * Same as {@link #track(Object)} for every object.
+     *
+     * @return {@code objects}
+     */
+    public <C extends Collection<T>> C trackAll(@NotNull C objects) {
+        for (T object : objects) {
+            track(object);
+        }
+        return objects;
+    }
+
+    public void untrack(@NotNull T object) {
+        snapshots.remove(object);
+    }
+
+    public void clear() {
+        snapshots.clear();
+    }
+
+    /**
+     * @return number of tracked objects
+     */
+    public int size() {
+        return snapshots.size();
+    }
+
+    /**
+     * @return names of the columns changed since {@code object} was tracked or last updated
+     */
+    public List<String> getChangedColumns(@NotNull T object) {
+        BitSet changedColumns = getChangedColumnSet(object);
+        List<String> output = new ArrayList<>(changedColumns.cardinality());
+        for (int i = changedColumns.nextSetBit(0); i >= 0; i = changedColumns.nextSetBit(i + 1)) {
+            output.add(columns[i].name());
+        }
+        return output;
+    }
+
+    /**
+     * Update the changed columns of {@code object}, nothing is sent if it didn't change.
+     *
+     * @return true if the object had changes
+     */
+    public boolean updateChanged(@NotNull Connection connection, @NotNull T object) throws SQLException {
+        return updateChangedAll(connection, List.of(object)) == 1;
+    }
+
+    /**
+     * Update the changed columns of every object, in batches of {@link #BATCH_SIZE} per set of changed columns,
+     * then record their new values. Objects without changes are skipped.
+     * The caller controls the transaction.
+     *
+     * @return number of objects with changes
+     * @throws JDBCBeanException if the row of an object wasn't found (deleted, or its key changed in the database),
+     *                           after sending every batch: the other objects are recorded, those keep their changes
+     */
+    public int updateChangedAll(@NotNull Connection connection, @NotNull Collection<? extends T> objects) throws SQLException {
+        Map<BitSet, List<T>> changedObjects = new LinkedHashMap<>();
+        for (T object : objects) {
+            BitSet changedColumns = getChangedColumnSet(object);
+            if (changedColumns.get(keyColumn)) {
+                throw new JDBCBeanException(String.format(
+                    "Key %s of a tracked %s has changed", columns[keyColumn].name(), clazz.getName()
+                ));
+            }
+            if (!changedColumns.isEmpty()) changedObjects.computeIfAbsent(changedColumns, k -> new ArrayList<>()).add(object);
+        }
+
+        int updatedCount = 0;
+        int missingCount = 0;
+        for (var entry : changedObjects.entrySet()) {
+            BitSet changedColumns = entry.getKey();
+            try (PreparedStatement statement = connection.prepareStatement(getUpdateSql(changedColumns))) {
+                List<T> batch = entry.getValue();
+                for (int start = 0; start < batch.size(); start += BATCH_SIZE) {
+                    List<T> chunk = batch.subList(start, Math.min(start + BATCH_SIZE, batch.size()));
+                    for (T object : chunk) {
+                        int parameterIndex = 1;
+                        for (int i = changedColumns.nextSetBit(0); i >= 0; i = changedColumns.nextSetBit(i + 1)) {
+                            columns[i].setter().set(statement, parameterIndex++, object);
+                        }
+                        columns[keyColumn].setter().set(statement, parameterIndex, object);
+                        statement.addBatch();
+                    }
+                    int[] updateCounts = statement.executeBatch();
+                    for (int i = 0; i < chunk.size(); i++) {
+                        // drivers may not report the count of each statement
+                        boolean found = i >= updateCounts.length || updateCounts[i] != 0;
+                        if (found) track(chunk.get(i));
+                        else missingCount++;
+                    }
+                }
+            }
+            updatedCount += entry.getValue().size();
+        }
+        if (missingCount > 0) {
+            throw new JDBCBeanException(String.format(
+                "%d of %d updated rows of %s weren't found", missingCount, updatedCount, tableName
+            ));
+        }
+        return updatedCount;
+    }
+
+    /**
+     * @return the SQL updating {@code changedColumns}, like {@code UPDATE comment SET comment = ? WHERE id = ?}
+     */
+    private String getUpdateSql(BitSet changedColumns) {
+        String cachedResult = cachedUpdateSql.get(changedColumns);
+        if (cachedResult != null) return cachedResult;
+
+        StringBuilder sql = new StringBuilder("UPDATE ").append(tableName).append(" SET ");
+        for (int i = changedColumns.nextSetBit(0); i >= 0; i = changedColumns.nextSetBit(i + 1)) {
+            if (i != changedColumns.nextSetBit(0)) sql.append(", ");
+            sql.append(columns[i].name()).append(" = ?");
+        }
+        sql.append(" WHERE ").append(columns[keyColumn].name()).append(" = ?");
+
+        String output = sql.toString();
+        cachedUpdateSql.put((BitSet) changedColumns.clone(), output);
+        return output;
+    }
+
+    private BitSet getChangedColumnSet(T object) {
+        Snapshot snapshot = snapshots.get(object);
+        if (snapshot == null) {
+            throw new JDBCBeanException("Object of " + clazz.getName() + " isn't tracked");
+        }
+
+        BitSet changedColumns = new BitSet(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            TrackedColumn column = columns[i];
+            boolean changed = column.primitiveReader() != null ?
+                column.primitiveReader().read(object) != snapshot.primitives()[column.slot()] :
+                !Objects.deepEquals(column.valueAccessor().apply(object), snapshot.objects()[column.slot()]);
+            if (changed) changedColumns.set(i);
+        }
+        return changedColumns;
+    }
+
+    private Snapshot takeSnapshot(T object) {
+        Snapshot snapshot = new Snapshot(new long[primitiveCount], new Object[objectCount]);
+        for (TrackedColumn column : columns) {
+            if (column.primitiveReader() != null) {
+                snapshot.primitives()[column.slot()] = column.primitiveReader().read(object);
+            }
+            else {
+                snapshot.objects()[column.slot()] = copyValue(column.valueAccessor().apply(object));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return a copy of arrays and lists, which can be modified in place
+     */
+    private static @Nullable Object copyValue(@Nullable Object value) {
+        if (value instanceof int[] ints) return ints.clone();
+        if (value instanceof long[] longs) return longs.clone();
+        if (value instanceof byte[] bytes) return bytes.clone();
+        if (value instanceof Object[] objects) return objects.clone();
+        if (value instanceof List<?> list) return new ArrayList<>(list);
+        return value;
+    }
+
+    /**
+     * @param primitiveReader reader of a primitive field of the root object as a long, null for other columns
+     * @param valueAccessor reader of the column value from the root object, null if an embedded owner is null
+     * @param slot index in {@link Snapshot#primitives()} if primitiveReader isn't null, else in {@link Snapshot#objects()}
+     */
+    private record TrackedColumn(
+        @NotNull String name,
+        @NotNull ParameterSetter setter,
+        @Nullable PrimitiveReader primitiveReader,
+        @NotNull Function<Object, Object> valueAccessor,
+        int slot
+    ) {
+    }
+
+    private record Snapshot(long @NotNull [] primitives, @NotNull Object[] objects) {
+    }
+
+    @FunctionalInterface
+    private interface PrimitiveReader {
+        long read(Object o);
+    }
+}
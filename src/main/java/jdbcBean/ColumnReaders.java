@@ -0,0 +1,215 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.AccessorUtil.BooleanSetter;
+import jdbcBean.AccessorUtil.DoubleSetter;
+import jdbcBean.AccessorUtil.IntSetter;
+import jdbcBean.AccessorUtil.LongSetter;
+import jdbcBean.annotation.Mapped;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Type-specialized column readers.
+ * <br/>
+ * The reader of a field is selected by the field's type, or by {@link Mapped#type()}
+ * when the field's type doesn't tell which getter to use (for example: {@link Object}, {@link Number}).
+ * Primitive fields are read with {@code getInt}/{@code getLong}/... and written without boxing.
+ * A SQL NULL leaves a primitive field untouched.
+ */
+class ColumnReaders {
+
+    public static @NotNull ColumnReader getColumnReader(
+        @NotNull Field field,
+        @NotNull Mapped mapped,
+        @NotNull BiConsumer<Object, Object> setter
+    ) {
+        Class<?> type = field.getType();
+
+        if (type == int.class) {
+            @Nullable IntSetter intSetter = AccessorUtil.getIntSetter(field);
+            IntSetter finalSetter = intSetter != null ? intSetter : setter::accept;
+            return (resultSet, columnIndex, target) -> {
+                int val = resultSet.getInt(columnIndex);
+                if (!resultSet.wasNull()) finalSetter.set(target, val);
+            };
+        }
+        if (type == long.class) {
+            @Nullable LongSetter longSetter = AccessorUtil.getLongSetter(field);
+            LongSetter finalSetter = longSetter != null ? longSetter : setter::accept;
+            return (resultSet, columnIndex, target) -> {
+                long val = resultSet.getLong(columnIndex);
+                if (!resultSet.wasNull()) finalSetter.set(target, val);
+            };
+        }
+        if (type == double.class) {
+            @Nullable DoubleSetter doubleSetter = AccessorUtil.getDoubleSetter(field);
+            DoubleSetter finalSetter = doubleSetter != null ? doubleSetter : setter::accept;
+            return (resultSet, columnIndex, target) -> {
+                double val = resultSet.getDouble(columnIndex);
+                if (!resultSet.wasNull()) finalSetter.set(target, val);
+            };
+        }
+        if (type == boolean.class) {
+            @Nullable BooleanSetter booleanSetter = AccessorUtil.getBooleanSetter(field);
+            BooleanSetter finalSetter = booleanSetter != null ? booleanSetter : setter::accept;
+            return (resultSet, columnIndex, target) -> {
+                boolean val = resultSet.getBoolean(columnIndex);
+                if (!resultSet.wasNull()) finalSetter.set(target, val);
+            };
+        }
+        if (type.isPrimitive()) {
+            // float, short, byte, char: read boxed and skip NULL
+            ValueReader valueReader = getValueReader(type, mapped.type());
+            return (resultSet, columnIndex, target) -> {
+                Object val = valueReader.read(resultSet, columnIndex);
+                if (val != null) setter.accept(target, val);
+            };
+        }
+
+        ValueReader valueReader = getValueReader(type, mapped.type());
+        return (resultSet, columnIndex, target) -> setter.accept(target, valueReader.read(resultSet, columnIndex));
+    }
+
+    /**
+     * Reader of a field set through a constructor (see {@link BeanUtil.ConstructorInfo}):
+     * the value is stored at {@code argumentIndex} of the {@code Object[]} target.
+     * A SQL NULL gives 0 / false to a primitive field.
+     */
+    public static @NotNull ColumnReader getArgumentReader(
+        @NotNull Field field,
+        @NotNull Mapped mapped,
+        int argumentIndex
+    ) {
+        ValueReader valueReader = getValueReader(field.getType(), mapped.type());
+        if (field.getType().isPrimitive()) {
+            Object defaultValue = AccessorUtil.defaultValue(field.getType());
+            return (resultSet, columnIndex, target) -> {
+                Object val = valueReader.read(resultSet, columnIndex);
+                ((Object[]) target)[argumentIndex] = val != null ? val : defaultValue;
+            };
+        }
+        return (resultSet, columnIndex, target) ->
+            ((Object[]) target)[argumentIndex] = valueReader.read(resultSet, columnIndex);
+    }
+
+    /**
+     * @return a reader returning the column value (boxed for primitive types), or null for SQL NULL
+     */
+    public static @NotNull ValueReader getValueReader(@NotNull Class<?> type, @NotNull JDBCType jdbcType) {
+        ValueKind valueKind = ValueKind.of(type, jdbcType);
+        if (valueKind == ValueKind.OBJECT && type != Object.class) {
+            return (resultSet, columnIndex) -> type.cast(resultSet.getObject(columnIndex));
+        }
+        return valueKind.valueReader;
+    }
+
+    /**
+     * The {@link ColumnValues} getter used to read a field.
+     */
+    enum ValueKind {
+        INTEGER("getInteger", Integer.class, ColumnValues::getInteger),
+        LONG("getLong", Long.class, ColumnValues::getLong),
+        DOUBLE("getDouble", Double.class, ColumnValues::getDouble),
+        FLOAT("getFloat", Float.class, ColumnValues::getFloat),
+        SHORT("getShort", Short.class, ColumnValues::getShort),
+        BYTE("getByte", Byte.class, ColumnValues::getByte),
+        BOOLEAN("getBoolean", Boolean.class, ColumnValues::getBoolean),
+        CHARACTER("getCharacter", Character.class, ColumnValues::getCharacter),
+        STRING("getString", String.class, ColumnValues::getString),
+        BIG_DECIMAL("getBigDecimal", BigDecimal.class, ColumnValues::getBigDecimal),
+        BYTES("getBytes", byte[].class, ColumnValues::getBytes),
+        INT_ARRAY("getIntArray", int[].class, ColumnValues::getIntArray),
+        LONG_ARRAY("getLongArray", long[].class, ColumnValues::getLongArray),
+        STRING_ARRAY("getStringArray", String[].class, ColumnValues::getStringArray),
+        LIST("getList", List.class, ColumnValues::getList),
+        OBJECT("getObject", Object.class, ColumnValues::getObject);
+
+        final String methodName;
+        final Class<?> valueType;
+        final ValueReader valueReader;
+
+        ValueKind(String methodName, Class<?> valueType, ValueReader valueReader) {
+            this.methodName = methodName;
+            this.valueType = valueType;
+            this.valueReader = valueReader;
+        }
+
+        static ValueKind of(Class<?> type, JDBCType jdbcType) {
+            if (type == int.class || type == Integer.class) return INTEGER;
+            if (type == long.class || type == Long.class) return LONG;
+            if (type == double.class || type == Double.class) return DOUBLE;
+            if (type == boolean.class || type == Boolean.class) return BOOLEAN;
+            if (type == float.class || type == Float.class) return FLOAT;
+            if (type == short.class || type == Short.class) return SHORT;
+            if (type == byte.class || type == Byte.class) return BYTE;
+            if (type == char.class || type == Character.class) return CHARACTER;
+            if (type == String.class) return STRING;
+            if (type == BigDecimal.class) return BIG_DECIMAL;
+            if (type == byte[].class) return BYTES;
+            if (type == int[].class) return INT_ARRAY;
+            if (type == long[].class) return LONG_ARRAY;
+            if (type == String[].class) return STRING_ARRAY;
+            if (type == List.class) return LIST;
+
+            if (type == Object.class || type == Number.class) {
+                return switch (jdbcType) {
+                    case TINYINT, SMALLINT, INTEGER -> INTEGER;
+                    case BIGINT -> LONG;
+                    case FLOAT, DOUBLE -> DOUBLE;
+                    case REAL -> FLOAT;
+                    case BIT, BOOLEAN -> BOOLEAN;
+                    case DECIMAL, NUMERIC -> BIG_DECIMAL;
+                    case CHAR, VARCHAR, LONGVARCHAR, NCHAR, NVARCHAR, LONGNVARCHAR, CLOB, NCLOB -> STRING;
+                    default -> OBJECT;
+                };
+            }
+            return OBJECT;
+        }
+    }
+
+    /**
+     * Read a column and write it to the target object's field.
+     */
+    @FunctionalInterface
+    public interface ColumnReader {
+        void read(ResultSet resultSet, int columnIndex, Object target) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface ValueReader {
+        @Nullable Object read(ResultSet resultSet, int columnIndex) throws SQLException;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read a column of the current row as a nullable value.
+ * <br/>
+ * Used by generated row mappers (see {@link RowMapper}): boxed variants return null for SQL NULL,
+ * primitive variants return {@code defaultValue} for SQL NULL.
+ */
+public final class ColumnValues {
+
+    private ColumnValues() {
+    }
+
+    public static @Nullable Integer getInteger(ResultSet resultSet, int columnIndex) throws SQLException {
+        int val = resultSet.getInt(columnIndex);
+        return resultSet.wasNull() ? null : val;
+    }
+
+    public static @Nullable Long getLong(ResultSet resultSet, int columnIndex) throws SQLException {
+        long val = resultSet.getLong(columnIndex);
+        return resultSet.wasNull() ? null : val;
+    }
+
+    public static @Nullable Double getDouble(ResultSet resultSet, int columnIndex) throws SQLException {
+        double val = resultSet.getDouble(columnIndex);
+        return resultSet.wasNull() ? null : val;
+    }
+
+    public static @Nullable Float getFloat(ResultSet resultSet, int columnIndex) throws SQLException {
+        float val = resultSet.getFloat(columnIndex);
+        return resultSet.wasNull() ? null : val;
+    }
+
+    public static @Nullable Short getShort(ResultSet resultSet, int columnIndex) throws SQLException {
+        short val = resultSet.getShort(columnIndex);
+        return resultSet.wasNull() ? null : val;
+    }
+
+    public static @Nullable Byte getByte(ResultSet resultSet, int columnIndex) throws SQLException {
+        byte val = resultSet.getByte(columnIndex);
+        return resultSet.wasNull() ? null : val;
+    }
+
+    public static @Nullable Boolean getBoolean(ResultSet resultSet, int columnIndex) throws SQLException {
+        boolean val = resultSet.getBoolean(columnIndex);
+        return resultSet.wasNull() ? null : val;
+    }
+
+    public static @Nullable Character getCharacter(ResultSet resultSet, int columnIndex) throws SQLException {
+        String val = resultSet.getString(columnIndex);
+        return val == null || val.isEmpty() ? null : val.charAt(0);
+    }
+
+    public static @Nullable String getString(ResultSet resultSet, int columnIndex) throws SQLException {
+        return resultSet.getString(columnIndex);
+    }
+
+    public static @Nullable BigDecimal getBigDecimal(ResultSet resultSet, int columnIndex) throws SQLException {
+        return resultSet.getBigDecimal(columnIndex);
+    }
+
+    public static byte @Nullable [] getBytes(ResultSet resultSet, int columnIndex) throws SQLException {
+        return resultSet.getBytes(columnIndex);
+    }
+
+    /**
+     * Read an ARRAY column into a primitive array, a NULL element is read as 0.
+     */
+    public static int @Nullable [] getIntArray(ResultSet resultSet, int columnIndex) throws SQLException {
+        Object elements = getArrayElements(resultSet.getArray(columnIndex));
+        return elements == null ? null : toIntArray(elements);
+    }
+
+    /**
+     * Read an ARRAY column into a primitive array, a NULL element is read as 0.
+     */
+    public static long @Nullable [] getLongArray(ResultSet resultSet, int columnIndex) throws SQLException {
+        Object elements = getArrayElements(resultSet.getArray(columnIndex));
+        return elements == null ? null : toLongArray(elements);
+    }
+
+    public static String @Nullable [] getStringArray(ResultSet resultSet, int columnIndex) throws SQLException {
+        Object elements = getArrayElements(resultSet.getArray(columnIndex));
+        return elements == null ? null : toStringArray(elements);
+    }
+
+    /**
+     * Read an ARRAY column into a mutable list of the elements returned by the driver.
+     */
+    public static @Nullable List<Object> getList(ResultSet resultSet, int columnIndex) throws SQLException {
+        Object elements = getArrayElements(resultSet.getArray(columnIndex));
+        return elements == null ? null : toList(elements);
+    }
+
+    /**
+     * @return the elements of {@code array} ({@link Array#getArray()}), null if {@code array} is null
+     */
+    static @Nullable Object getArrayElements(@Nullable Array array) throws SQLException {
+        if (array == null) return null;
+        try {
+            return array.getArray();
+        }
+        finally {
+            array.free();
+        }
+    }
+
+    static int[] toIntArray(Object elements) {
+        if (elements instanceof int[] ints) return ints;
+
+        Object[] objects = (Object[]) elements;
+        int[] output = new int[objects.length];
+        for (int i = 0; i < objects.length; i++) {
+            if (objects[i] != null) output[i] = ((Number) objects[i]).intValue();
+        }
+        return output;
+    }
+
+    static long[] toLongArray(Object elements) {
+        if (elements instanceof long[] longs) return longs;
+
+        Object[] objects = (Object[]) elements;
+        long[] output = new long[objects.length];
+        for (int i = 0; i < objects.length; i++) {
+            if (objects[i] != null) output[i] = ((Number) objects[i]).longValue();
+        }
+        return output;
+    }
+
+    static String[] toStringArray(Object elements) {
+        if (elements instanceof String[] strings) return strings;
+
+        Object[] objects = (Object[]) elements;
+        String[] output = new String[objects.length];
+        for (int i = 0; i < objects.length; i++) {
+            if (objects[i] != null) output[i] = objects[i].toString();
+        }
+        return output;
+    }
+
+    static List<Object> toList(Object elements) {
+        int length = java.lang.reflect.Array.getLength(elements);
+        List<Object> output = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            output.add(java.lang.reflect.Array.get(elements, i));
+        }
+        return output;
+    }
+
+    public static @Nullable Object getObject(ResultSet resultSet, int columnIndex) throws SQLException {
+        return resultSet.getObject(columnIndex);
+    }
+
+    public static int getInt(ResultSet resultSet, int columnIndex, int defaultValue) throws SQLException {
+        int val = resultSet.getInt(columnIndex);
+        return resultSet.wasNull() ? defaultValue : val;
+    }
+
+    public static long getLong(ResultSet resultSet, int columnIndex, long defaultValue) throws SQLException {
+        long val = resultSet.getLong(columnIndex);
+        return resultSet.wasNull() ? defaultValue : val;
+    }
+
+    public static double getDouble(ResultSet resultSet, int columnIndex, double defaultValue) throws SQLException {
+        double val = resultSet.getDouble(columnIndex);
+        return resultSet.wasNull() ? defaultValue : val;
+    }
+
+    public static float getFloat(ResultSet resultSet, int columnIndex, float defaultValue) throws SQLException {
+        float val = resultSet.getFloat(columnIndex);
+        return resultSet.wasNull() ? defaultValue : val;
+    }
+
+    public static short getShort(ResultSet resultSet, int columnIndex, short defaultValue) throws SQLException {
+        short val = resultSet.getShort(columnIndex);
+        return resultSet.wasNull() ? defaultValue : val;
+    }
+
+    public static byte getByte(ResultSet resultSet, int columnIndex, byte defaultValue) throws SQLException {
+        byte val = resultSet.getByte(columnIndex);
+        return resultSet.wasNull() ? defaultValue : val;
+    }
+
+    public static boolean getBoolean(ResultSet resultSet, int columnIndex, boolean defaultValue) throws SQLException {
+        boolean val = resultSet.getBoolean(columnIndex);
+        return resultSet.wasNull() ? defaultValue : val;
+    }
+
+    public static char getChar(ResultSet resultSet, int columnIndex, char defaultValue) throws SQLException {
+        String val = resultSet.getString(columnIndex);
+        return val == null || val.isEmpty() ? defaultValue : val.charAt(0);
+    }
+}
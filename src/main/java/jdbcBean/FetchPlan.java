@@ -0,0 +1,277 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.annotation.ToMany;
+import jdbcBean.exception.JDBCBeanException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+import static jdbcBean.BeanUtil.*;
+import static jdbcBean.RowMappingPlan.*;
+
+/**
+ * Load Java Beans with one or more {@link ToMany} collections without joining them.
+ * <br/>
+ * The root query is executed first. Then, for each collection, one query fetches the children of every
+ * root object at once, using the parameter {@code :parentKeys} inside an {@code IN (...)} list.
+ * Children are added to their parent in memory, by the parent's distinct value.
+ * A parent with several collections transfers (parents + children1 + children2) rows,
+ * instead of (parents x children1 x children2) rows of a {@code LEFT JOIN} chain.
+ * <br/>
+ * Example:
+ * <pre>{@code
+ *
+ * List<Order> orders = new FetchPlan<>(Order.class)
+ *     .toMany("products", """
+ *         SELECT id product_id, name product_name, order_id FROM product WHERE order_id IN (:parentKeys)
+ *         """, "order_id")
+ *     .toMany("payments", """
+ *         SELECT id payment_id, amount, order_id FROM payment WHERE order_id IN (:parentKeys)
+ *         """, "order_id")
+ *     .getList(new NPPreparedStatement("SELECT id order_id, name order_name FROM product_order", connection));
+ * }</pre>
+ *
+ * Every class of the plan must have a distinct field ({@code @Mapped(isDistinct = true)}).
+ * Rows are mapped without {@link ToMany} assembly: collections not in the plan stay empty.
+ *
+ * @param <T> Java Bean class of the root query
+ */
+public class FetchPlan<T> {
+
+    /**
+     * Name of the parameter receiving the distinct values of the parents in a collection query
+     */
+    public static final String PARENT_KEYS = "parentKeys";
+
+    /**
+     * Maximum number of parent keys bound to one collection query, larger sets are split
+     */
+    static final int MAX_KEYS_PER_QUERY = NPPreparedStatement.MAX_LIST_PARAMETER_SIZE;
+
+    @NotNull
+    private final Class<T> clazz;
+    private final List<CollectionPlan> collectionPlans = new ArrayList<>();
+
+    public FetchPlan(@NotNull Class<T> clazz) {
+        this.clazz = clazz;
+    }
+
+    /**
+     * Load a collection with its own query.
+     *
+     * @param fieldName name of the {@link ToMany} field of the class (or of one of its embedded objects)
+     * @param npSql query selecting the children, using {@code :parentKeys} inside {@code IN (...)}
+     * @param parentKeyColumn column holding the distinct value of the parent in the rows of {@code npSql}
+     */
+    public FetchPlan<T> toMany(@NotNull String fieldName, @NotNull String npSql, @NotNull String parentKeyColumn) {
+        return toMany(fieldName, npSql, parentKeyColumn, null);
+    }
+
+    /**
+     * Same as {@link #toMany(String, String, String)}, then load the collections of the children with
+     * {@code childPlan}.
+     */
+    public FetchPlan<T> toMany(
+        @NotNull String fieldName,
+        @NotNull String npSql,
+        @NotNull String parentKeyColumn,
+        @Nullable FetchPlan<?> childPlan
+    ) {
+        if (QueryParser.parseNPSql(npSql).findParamIndexes(PARENT_KEYS).length == 0) {
+            throw new JDBCBeanException(String.format("Can't find parameter :%s in query of %s", PARENT_KEYS, fieldName));
+        }
+
+        ToManyInfo toManyInfo = getAnnotationInfo(clazz).toManyInfoList().stream()
+            .filter(info -> info.field().getName().equals(fieldName))
+            .findFirst()
+            .orElseThrow(() -> new JDBCBeanException(
+                String.format("Can't find field %s annotated with ToMany in %s", fieldName, clazz.getName())
+            ));
+
+        Class<?> elementType = BeanToManyUtil.getCollectionElementType(toManyInfo.field());
+        if (childPlan != null && !childPlan.clazz.equals(elementType)) {
+            throw new JDBCBeanException(String.format(
+                "Plan of %s can't load children of field %s with type %s",
+                childPlan.clazz.getName(), fieldName, elementType.getName()
+            ));
+        }
+
+        collectionPlans.add(new CollectionPlan(toManyInfo, elementType, npSql, parentKeyColumn, childPlan));
+        return this;
+    }
+
+    /**
+     * Execute the root query then the queries of the collections, and close {@code rootStatement}'s
+     * {@link ResultSet}. The collection queries run on the connection of {@code rootStatement}.
+     *
+     * @param rootStatement statement of the root query, with its parameters set
+     */
+    @SuppressWarnings("unchecked") // the roots are mapped from clazz
+    public List<T> getList(@NotNull NPPreparedStatement rootStatement) throws SQLException {
+        rootStatement.execute();
+        Result2Bean result2Bean = rootStatement.getResult2Bean();
+        List<Object> roots = getFlatList(result2Bean.resultSet(), clazz, result2Bean.planCache(), null, null, null);
+
+        loadCollections(roots, rootStatement.getStatement().getConnection());
+        return (List<T>) roots;
+    }
+
+    private void loadCollections(List<Object> parents, Connection connection) throws SQLException {
+        if (collectionPlans.isEmpty() || parents.isEmpty()) return;
+
+        DistinctInfo distinctInfo = getDistinctInfo(clazz);
+        Map<Object, List<Object>> parentsByKey = new HashMap<>();
+        for (Object parent : parents) {
+            Object key = distinctInfo.accessor().exec(parent);
+            if (key == null) continue;
+            List<Object> parentList = parentsByKey.get(key);
+            if (parentList == null) {
+                parentList = new ArrayList<>(1);
+                parentsByKey.put(key, parentList);
+            }
+            parentList.add(parent);
+        }
+        List<Object> keys = new ArrayList<>(parentsByKey.keySet());
+
+        for (CollectionPlan collectionPlan : collectionPlans) {
+            for (Object parent : parents) {
+                initializeCollection(collectionPlan.toManyInfo(), parent);
+            }
+
+            List<Object> children = new ArrayList<>();
+            for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_QUERY) {
+                List<Object> keyChunk = keys.subList(from, Math.min(keys.size(), from + MAX_KEYS_PER_QUERY));
+                fetchChildren(collectionPlan, keyChunk, distinctInfo, parentsByKey, children, connection);
+            }
+
+            if (collectionPlan.childPlan() != null) {
+                collectionPlan.childPlan().loadCollections(children, connection);
+            }
+        }
+    }
+
+    private static void fetchChildren(
+        CollectionPlan collectionPlan,
+        List<Object> keys,
+        DistinctInfo parentDistinctInfo,
+        Map<Object, List<Object>> parentsByKey,
+        List<Object> children,
+        Connection connection
+    ) throws SQLException {
+        try (NPPreparedStatement statement = new NPPreparedStatement(
+            collectionPlan.npSql(), connection, Map.of(PARENT_KEYS, keys))
+        ) {
+            statement.execute();
+
+            Result2Bean result2Bean = statement.getResult2Bean();
+            List<Object> parentKeys = new ArrayList<>();
+            List<Object> fetchedChildren = getFlatList(
+                result2Bean.resultSet(),
+                collectionPlan.elementType(),
+                result2Bean.planCache(),
+                collectionPlan.parentKeyColumn(),
+                // read the parent key like the parent's distinct field, so both have the same type
+                parentDistinctInfo.valueReader(),
+                parentKeys
+            );
+
+            for (int i = 0; i < fetchedChildren.size(); i++) {
+                List<Object> parentList = parentsByKey.get(parentKeys.get(i));
+                if (parentList == null) continue;
+                for (Object parent : parentList) {
+                    // initialized with an ArrayList by initializeCollection
+                    @SuppressWarnings("unchecked")
+                    List<Object> collection = (List<Object>) collectionPlan.toManyInfo().accessor().exec(parent);
+                    collection.add(fetchedChildren.get(i));
+                }
+                children.add(fetchedChildren.get(i));
+            }
+        }
+        catch (SQLException | RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new JDBCBeanException(e);
+        }
+    }
+
+    /**
+     * Map every row to an object, without to-many assembly, and close the {@link ResultSet}.
+     *
+     * @param keyColumn if not null, the value of this column is read by {@code keyReader} into {@code keys},
+     *                  for every row
+     */
+    private static List<Object> getFlatList(
+        ResultSet resultSet,
+        Class<?> clazz,
+        @Nullable PlanCache planCache,
+        @Nullable String keyColumn,
+        @Nullable ColumnReaders.ValueReader keyReader,
+        @Nullable List<Object> keys
+    ) throws SQLException {
+        List<Object> outputList = new ArrayList<>();
+        try (resultSet) {
+            if (!resultSet.next()) return outputList;
+
+            ObjectPlan objectPlan = getPlan(resultSet, clazz, false, planCache).root().objectPlan();
+            int keyColumnIndex = keyColumn == null ? 0 : resultSet.findColumn(keyColumn);
+            do {
+                outputList.add(BeanIterator.flatRowToObject(resultSet, objectPlan));
+                if (keyColumn != null) keys.add(keyReader.read(resultSet, keyColumnIndex));
+            } while (resultSet.next());
+        }
+        return outputList;
+    }
+
+    private static void initializeCollection(ToManyInfo toManyInfo, Object parent) {
+        if (toManyInfo.accessor().exec(parent) == null) {
+            toManyInfo.deepSetter().exec(parent, new ArrayList<>());
+        }
+    }
+
+    private static DistinctInfo getDistinctInfo(Class<?> clazz) {
+        DistinctInfo distinctInfo = getAnnotationInfo(clazz).distinctInfo();
+        if (distinctInfo == null) {
+            throw new JDBCBeanException(String.format("Class %s doesn't have distinct field", clazz.getName()));
+        }
+        return distinctInfo;
+    }
+
+    private record CollectionPlan(
+        @NotNull ToManyInfo toManyInfo,
+        @NotNull Class<?> elementType,
+        @NotNull String npSql,
+        @NotNull String parentKeyColumn,
+        @Nullable FetchPlan<?> childPlan
+    ) {
+    }
+}
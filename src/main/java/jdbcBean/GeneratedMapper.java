@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+/**
+ * Implemented by the classes generated by the JDBCBean annotation processor (module {@code JDBCBean-processor}).
+ * <br/>
+ * A generated mapper describes its Java Bean completely, so {@link Result2Bean} and {@link NPPreparedStatement}
+ * don't need reflection for classes without {@link jdbcBean.annotation.ToMany}.
+ * Generated mappers are found by {@link MapperRegistry}.
+ *
+ * @param <T> Java Bean class
+ */
+public interface GeneratedMapper<T> extends RowMapper<T>, ParameterBinder<T> {
+
+    /**
+     * @return column / parameter name of every {@link jdbcBean.annotation.Mapped} field,
+     * in the same order as {@link RowMapper#mapRow}'s column indexes
+     */
+    String[] mappedNames();
+
+    /**
+     * @return true if the Java Bean or one of its embedded objects has a {@link jdbcBean.annotation.ToMany} field
+     */
+    boolean hasToMany();
+}
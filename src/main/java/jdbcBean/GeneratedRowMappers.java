@@ -0,0 +1,473 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.exception.JDBCBeanException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static jdbcBean.BeanUtil.*;
+import static jdbcBean.ColumnReaders.ValueKind;
+
+/**
+ * Optional engine generating one {@link RowMapper} hidden class per Java Bean class.
+ * <br/>
+ * The generated {@code mapRow} is straight-line code: {@code new Bean()}, one {@link ColumnValues} getter and one
+ * setter call per {@link jdbcBean.annotation.Mapped} field, and inlined construction of
+ * {@link jdbcBean.annotation.Embedded} objects. Each mapper is monomorphic, so the JIT can inline it completely.
+ * <br/>
+ * Classes that can't be compiled this way (non-public setters or constructors, primitive fields without a public
+ * getter,...) use the default mapping, {@link #getFallbackReason(Class)} tells why.
+ * <br/>
+ * Disabled by default. Enable it with {@link #setEnabled(boolean)} or the system property
+ * {@code jdbcBean.generatedRowMappers=true}. The setting is read when the column indexes of a query are resolved,
+ * so it should be set at startup.
+ */
+public final class GeneratedRowMappers {
+
+    private static volatile boolean enabled = Boolean.getBoolean("jdbcBean.generatedRowMappers");
+
+    private static final Map<Class<?>, Optional<RowMapper<Object>>> cachedRowMappers = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Throwable> fallbackReasons = new ConcurrentHashMap<>();
+
+    private static final String MAPPER_CLASS_SUFFIX = "$$JDBCBeanRowMapper";
+    private static final String RESULT_SET = "java/sql/ResultSet";
+    private static final String COLUMN_VALUES = internalName(ColumnValues.class);
+
+    private GeneratedRowMappers() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        GeneratedRowMappers.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return why rows of {@code clazz} are mapped by the default mapping although the engine is enabled,
+     *      null if a mapper was generated or none was requested yet
+     */
+    public static @Nullable Throwable getFallbackReason(@NotNull Class<?> clazz) {
+        return fallbackReasons.get(clazz);
+    }
+
+    /**
+     * @return null if the engine is disabled or the class can't be compiled
+     */
+    static @Nullable RowMapper<Object> getRowMapper(@NotNull ShallowAnnotationInfo annotationInfo) {
+        if (!enabled) return null;
+
+        Optional<RowMapper<Object>> cachedResult = cachedRowMappers.get(annotationInfo.clazz());
+        if (cachedResult != null) return cachedResult.orElse(null);
+
+        Optional<RowMapper<Object>> rowMapper = Optional.ofNullable(generate(annotationInfo));
+        cachedRowMappers.put(annotationInfo.clazz(), rowMapper);
+        return rowMapper.orElse(null);
+    }
+
+    private static @Nullable RowMapper<Object> generate(ShallowAnnotationInfo annotationInfo) {
+        Class<?> clazz = annotationInfo.clazz();
+        if (!isCompilable(clazz, annotationInfo)) {
+            fallbackReasons.put(clazz, new JDBCBeanException(String.format(
+                "%s or one of its embedded classes has a constructor, setter or getter not accessible from its package",
+                clazz.getName()
+            )));
+            return null;
+        }
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+            byte[] classBytes = new MapperClassWriter(internalName(clazz) + MAPPER_CLASS_SUFFIX)
+                .write(annotationInfo);
+
+            MethodHandles.Lookup mapperLookup = lookup.defineHiddenClass(
+                classBytes, true, MethodHandles.Lookup.ClassOption.NESTMATE
+            );
+            @SuppressWarnings("unchecked") // the generated class implements RowMapper of clazz
+            RowMapper<Object> rowMapper = (RowMapper<Object>) mapperLookup.lookupClass().getConstructor().newInstance();
+            return rowMapper;
+        }
+        // a class the JVM rejects is a bug of the generator, kept to be reported by getFallbackReason
+        catch (LinkageError | ReflectiveOperationException | IOException e) {
+            fallbackReasons.put(clazz, e);
+            return null;
+        }
+    }
+
+    /**
+     * Check that every class, constructor and method used by the generated code is accessible
+     * from the package of {@code root}.
+     */
+    private static boolean isCompilable(Class<?> root, ShallowAnnotationInfo annotationInfo) {
+        Class<?> clazz = annotationInfo.clazz();
+        try {
+            Constructor<?> constructor = clazz.getConstructor();
+            if (!isAccessible(constructor.getDeclaringClass(), root)) return false;
+        }
+        catch (NoSuchMethodException e) {
+            return false;
+        }
+
+        for (MappedInfo mappedInfo : annotationInfo.mappedInfoList()) {
+            Field field = mappedInfo.field();
+            @Nullable Method setter = AccessorUtil.findSetterMethod(field);
+            if (setter == null || !isAccessible(setter.getDeclaringClass(), root)) return false;
+
+            if (field.getType().isPrimitive()) {
+                @Nullable Method getter = AccessorUtil.findGetterMethod(field);
+                if (getter == null || !isAccessible(getter.getDeclaringClass(), root)) return false;
+            }
+            else if (!isAccessible(field.getType(), root)) {
+                return false;
+            }
+        }
+
+        for (EmbeddedInfo embeddedInfo : annotationInfo.embeddedInfoList()) {
+            @Nullable Method setter = AccessorUtil.findSetterMethod(embeddedInfo.field());
+            if (setter == null || !isAccessible(setter.getDeclaringClass(), root)) return false;
+            if (!isCompilable(root, embeddedInfo.annotationInfo())) return false;
+        }
+        return true;
+    }
+
+    private static boolean isAccessible(Class<?> clazz, Class<?> from) {
+        while (clazz.isArray()) clazz = clazz.getComponentType();
+        if (clazz.isPrimitive()) return true;
+        if (clazz.isHidden()) return false;
+        if (clazz.getClassLoader() == from.getClassLoader() && clazz.getPackageName().equals(from.getPackageName())) {
+            return true;
+        }
+        for (Class<?> cur = clazz; cur != null; cur = cur.getDeclaringClass()) {
+            if (!Modifier.isPublic(cur.getModifiers())) return false;
+        }
+        return true;
+    }
+
+    private static String internalName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class<?> clazz) {
+        if (clazz == void.class) return "V";
+        if (clazz == int.class) return "I";
+        if (clazz == long.class) return "J";
+        if (clazz == double.class) return "D";
+        if (clazz == float.class) return "F";
+        if (clazz == boolean.class) return "Z";
+        if (clazz == short.class) return "S";
+        if (clazz == byte.class) return "B";
+        if (clazz == char.class) return "C";
+        if (clazz.isArray()) return internalName(clazz);
+        return "L" + internalName(clazz) + ";";
+    }
+
+    private static String descriptor(Method method) {
+        StringBuilder output = new StringBuilder("(");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            output.append(descriptor(parameterType));
+        }
+        return output.append(')').append(descriptor(method.getReturnType())).toString();
+    }
+
+    /**
+     * Write a class file (Java 17) implementing {@link RowMapper}. The code doesn't branch, so no stack map frame
+     * is needed.
+     */
+    private static final class MapperClassWriter {
+        private static final int ACC_PUBLIC = 0x0001;
+        private static final int ACC_FINAL = 0x0010;
+        private static final int ACC_SUPER = 0x0020;
+
+        private final String className;
+        private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+        private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+        private final Map<String, Integer> constantIndexes = new HashMap<>();
+        private int constantCount = 1;
+
+        private final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        private final DataOutputStream code = new DataOutputStream(codeBytes);
+        private int nextLocal = 3; // 0: this, 1: resultSet, 2: columnIndexes
+        private int nextColumn = 0;
+
+        MapperClassWriter(String className) {
+            this.className = className;
+        }
+
+        byte[] write(ShallowAnnotationInfo annotationInfo) throws IOException {
+            // mapRow(ResultSet, int[]): Object
+            int rootLocal = writeObject(annotationInfo);
+            aload(rootLocal);
+            code.writeByte(0xb0); // areturn
+            byte[] mapRowCode = codeBytes.toByteArray();
+
+            int thisClass = classRef(className);
+            int superClass = classRef("java/lang/Object");
+            int rowMapperInterface = classRef(internalName(RowMapper.class));
+            int objectInit = methodRef("java/lang/Object", "<init>", "()V");
+            int codeName = utf8("Code");
+            int initName = utf8("<init>");
+            int initDescriptor = utf8("()V");
+            int mapRowName = utf8("mapRow");
+            int mapRowDescriptor = utf8("(L" + RESULT_SET + ";[I)Ljava/lang/Object;");
+
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(classBytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(61);
+            out.writeShort(constantCount);
+            constantPool.flush();
+            out.write(constantPoolBytes.toByteArray());
+
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(rowMapperInterface);
+            out.writeShort(0); // fields
+            out.writeShort(2); // methods
+
+            // public <init>() { super(); }
+            ByteArrayOutputStream initCode = new ByteArrayOutputStream();
+            initCode.write(0x2a); // aload_0
+            initCode.write(0xb7); // invokespecial
+            initCode.write(objectInit >> 8);
+            initCode.write(objectInit);
+            initCode.write(0xb1); // return
+            writeMethod(out, initName, initDescriptor, codeName, 1, 1, initCode.toByteArray());
+
+            writeMethod(out, mapRowName, mapRowDescriptor, codeName, 6, nextLocal, mapRowCode);
+
+            out.writeShort(0); // attributes
+            out.flush();
+            return classBytes.toByteArray();
+        }
+
+        private static void writeMethod(
+            DataOutputStream out,
+            int name,
+            int descriptor,
+            int codeName,
+            int maxStack,
+            int maxLocals,
+            byte[] code
+        ) throws IOException {
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(2 + 2 + 4 + code.length + 2 + 2);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+        }
+
+        /**
+         * Write code creating and filling an object.
+         * @return the local variable holding the object
+         */
+        private int writeObject(ShallowAnnotationInfo annotationInfo) throws IOException {
+            String owner = internalName(annotationInfo.clazz());
+            int local = nextLocal++;
+
+            code.writeByte(0xbb); // new
+            code.writeShort(classRef(owner));
+            code.writeByte(0x59); // dup
+            invoke(0xb7, owner, "<init>", "()V");
+            astore(local);
+
+            for (MappedInfo mappedInfo : annotationInfo.mappedInfoList()) {
+                Field field = mappedInfo.field();
+                Class<?> type = field.getType();
+                Method setter = AccessorUtil.findSetterMethod(field);
+
+                aload(local);
+                aload(1);
+                aload(2);
+                pushInt(nextColumn++);
+                code.writeByte(0x2e); // iaload
+
+                if (type.isPrimitive()) {
+                    // a SQL NULL keeps the value set by the constructor
+                    Method getter = AccessorUtil.findGetterMethod(field);
+                    aload(local);
+                    invoke(0xb6, internalName(getter.getDeclaringClass()), getter.getName(), descriptor(getter));
+                    invoke(
+                        0xb8,
+                        COLUMN_VALUES,
+                        primitiveGetterName(type),
+                        "(L" + RESULT_SET + ";I" + descriptor(type) + ")" + descriptor(type)
+                    );
+                }
+                else {
+                    ValueKind valueKind = ValueKind.of(type, mappedInfo.annotation().type());
+                    invoke(
+                        0xb8,
+                        COLUMN_VALUES,
+                        valueKind.methodName,
+                        "(L" + RESULT_SET + ";I)" + descriptor(valueKind.valueType)
+                    );
+                    if (!type.isAssignableFrom(valueKind.valueType)) {
+                        code.writeByte(0xc0); // checkcast
+                        code.writeShort(classRef(internalName(type)));
+                    }
+                }
+                invokeSetter(setter);
+            }
+
+            for (EmbeddedInfo embeddedInfo : annotationInfo.embeddedInfoList()) {
+                int embeddedLocal = writeObject(embeddedInfo.annotationInfo());
+                aload(local);
+                aload(embeddedLocal);
+                invokeSetter(AccessorUtil.findSetterMethod(embeddedInfo.field()));
+            }
+            return local;
+        }
+
+        private void invokeSetter(Method setter) throws IOException {
+            invoke(0xb6, internalName(setter.getDeclaringClass()), setter.getName(), descriptor(setter));
+            Class<?> returnType = setter.getReturnType();
+            if (returnType == long.class || returnType == double.class) {
+                code.writeByte(0x58); // pop2
+            }
+            else if (returnType != void.class) {
+                code.writeByte(0x57); // pop
+            }
+        }
+
+        private static String primitiveGetterName(Class<?> type) {
+            String name = type.getName();
+            return "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+
+        private void invoke(int opcode, String owner, String name, String descriptor) throws IOException {
+            code.writeByte(opcode);
+            code.writeShort(methodRef(owner, name, descriptor));
+        }
+
+        private void aload(int local) throws IOException {
+            if (local <= 3) {
+                code.writeByte(0x2a + local);
+            }
+            else {
+                code.writeByte(0x19);
+                code.writeByte(local);
+            }
+        }
+
+        private void astore(int local) throws IOException {
+            if (local <= 3) {
+                code.writeByte(0x4b + local);
+            }
+            else {
+                code.writeByte(0x3a);
+                code.writeByte(local);
+            }
+        }
+
+        private void pushInt(int value) throws IOException {
+            if (value <= 5) {
+                code.writeByte(0x03 + value); // iconst_<n>
+            }
+            else if (value <= Byte.MAX_VALUE) {
+                code.writeByte(0x10); // bipush
+                code.writeByte(value);
+            }
+            else {
+                code.writeByte(0x11); // sipush
+                code.writeShort(value);
+            }
+        }
+
+        private int utf8(String value) throws IOException {
+            Integer index = constantIndexes.get("U" + value);
+            if (index != null) return index;
+            constantPool.writeByte(1);
+            constantPool.writeUTF(value);
+            return addConstant("U" + value);
+        }
+
+        private int classRef(String internalName) throws IOException {
+            Integer index = constantIndexes.get("C" + internalName);
+            if (index != null) return index;
+            int name = utf8(internalName);
+            constantPool.writeByte(7);
+            constantPool.writeShort(name);
+            return addConstant("C" + internalName);
+        }
+
+        private int methodRef(String owner, String name, String descriptor) throws IOException {
+            String key = "M" + owner + "." + name + descriptor;
+            Integer index = constantIndexes.get(key);
+            if (index != null) return index;
+
+            int ownerIndex = classRef(owner);
+            int nameAndType = nameAndType(name, descriptor);
+            constantPool.writeByte(10); // Methodref
+            constantPool.writeShort(ownerIndex);
+            constantPool.writeShort(nameAndType);
+            return addConstant(key);
+        }
+
+        private int nameAndType(String name, String descriptor) throws IOException {
+            String key = "N" + name + descriptor;
+            Integer index = constantIndexes.get(key);
+            if (index != null) return index;
+
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            constantPool.writeByte(12);
+            constantPool.writeShort(nameIndex);
+            constantPool.writeShort(descriptorIndex);
+            return addConstant(key);
+        }
+
+        private int addConstant(String key) {
+            int index = constantCount++;
+            constantIndexes.put(key, index);
+            return index;
+        }
+    }
+}
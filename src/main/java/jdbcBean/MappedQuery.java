@@ -31,23 +31,171 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 @RequiredArgsConstructor
 class MappedQuery {
+    private static final int[] NO_INDEXES = new int[0];
+
     @NonNull
     @Getter
     private final String translatedQuery;
+    /**
+     * Parameter indexes of every name, in ascending order. A name used several times has several indexes.
+     */
+    @NonNull
+    private final Map<String, int[]> paramMap;
+    /**
+     * Offset of every '?' in translatedQuery, the offset of parameter index i is at i - 1
+     */
     @NonNull
-    private final Map<String, Integer> paramMap;
+    private final int[] placeholderOffsets;
+
+    private final Map<Class<?>, ParameterBindingPlan> cachedBindingPlans = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, OutParameterPlan> cachedOutParameterPlans = new ConcurrentHashMap<>();
+
+    private final Map<Integer, RowMappingPlan.PlanCache> cachedRowPlans = new ConcurrentHashMap<>();
+    private final Map<String, MappedQuery> cachedExpansions = new ConcurrentHashMap<>();
+
+    /**
+     * @return the smallest power of two greater than or equal to {@code size}, at least 1
+     */
+    static int getListBucketSize(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * Replace each placeholder of the list parameters by as many placeholders as the size of the list.
+     * The indexes of a list parameter are those of its first occurrence, then those of the next ones.
+     *
+     * @param listSizes number of values of each list parameter, it should be a bucket size
+     *      (see {@link #getListBucketSize(int)}) so a query has few expansions
+     * @return the expanded query, cached in this query
+     */
+    public @NotNull MappedQuery expandListParameters(@NonNull Map<String, Integer> listSizes) {
+        String cacheKey = new TreeMap<>(listSizes).toString();
+        MappedQuery cachedResult = cachedExpansions.get(cacheKey);
+        if (cachedResult != null) return cachedResult;
+
+        int[] placeholderSizes = new int[placeholderOffsets.length];
+        Arrays.fill(placeholderSizes, 1);
+        for (var entry : listSizes.entrySet()) {
+            if (entry.getValue() < 1) {
+                throw new JDBCBeanException(String.format("Invalid size %s of list parameter \"%s\"", entry.getValue(), entry.getKey()));
+            }
+            for (int paramIndex : getParamIndexes(entry.getKey())) {
+                placeholderSizes[paramIndex - 1] = entry.getValue();
+            }
+        }
+
+        StringBuilder expandedQuery = new StringBuilder(translatedQuery.length());
+        int[] firstExpandedIndexes = new int[placeholderOffsets.length];
+        int expandedPlaceholderCount = 0;
+        for (int size : placeholderSizes) expandedPlaceholderCount += size;
+        int[] expandedOffsets = new int[expandedPlaceholderCount];
+
+        int expandedIndex = 1;
+        int copyStart = 0;
+        for (int i = 0; i < placeholderOffsets.length; i++) {
+            expandedQuery.append(translatedQuery, copyStart, placeholderOffsets[i]);
+            firstExpandedIndexes[i] = expandedIndex;
+            for (int j = 0; j < placeholderSizes[i]; j++) {
+                if (j > 0) expandedQuery.append(", ");
+                expandedOffsets[expandedIndex - 1] = expandedQuery.length();
+                expandedQuery.append('?');
+                expandedIndex++;
+            }
+            copyStart = placeholderOffsets[i] + 1;
+        }
+        expandedQuery.append(translatedQuery, copyStart, translatedQuery.length());
+
+        Map<String, int[]> expandedParamMap = new HashMap<>();
+        for (var entry : paramMap.entrySet()) {
+            int[] indexes = entry.getValue();
+            int[] expandedIndexes = new int[0];
+            for (int paramIndex : indexes) {
+                int size = placeholderSizes[paramIndex - 1];
+                int start = expandedIndexes.length;
+                expandedIndexes = Arrays.copyOf(expandedIndexes, start + size);
+                for (int j = 0; j < size; j++) {
+                    expandedIndexes[start + j] = firstExpandedIndexes[paramIndex - 1] + j;
+                }
+            }
+            expandedParamMap.put(entry.getKey(), expandedIndexes);
+        }
 
-    public @NotNull Integer getParamIndex(@NonNull String paramName) {
-        Integer index = paramMap.get(paramName);
-        if (index == null) {
+        MappedQuery expandedMappedQuery = new MappedQuery(expandedQuery.toString(), expandedParamMap, expandedOffsets);
+        cachedExpansions.put(cacheKey, expandedMappedQuery);
+        return expandedMappedQuery;
+    }
+
+    /**
+     * @return the first index of the parameter
+     */
+    public int getParamIndex(@NonNull String paramName) {
+        return getParamIndexes(paramName)[0];
+    }
+
+    /**
+     * @return every index of the parameter, the array must not be modified
+     */
+    public int @NotNull [] getParamIndexes(@NonNull String paramName) {
+        int[] indexes = paramMap.get(paramName);
+        if (indexes == null) {
             throw new JDBCBeanException(String.format("Can't find parameter with the name \"%s\"", paramName));
         }
-        return index;
+        return indexes;
+    }
+
+    /**
+     * @return every index of the parameter, empty if the query doesn't have a parameter with this name.
+     *      The array must not be modified
+     */
+    public int @NotNull [] findParamIndexes(@NonNull String paramName) {
+        int[] indexes = paramMap.get(paramName);
+        return indexes == null ? NO_INDEXES : indexes;
     }
-}
 
+    /**
+     * @return the plan binding parameters of this query from Java Beans of {@code clazz}, built on first use
+     */
+    public @NotNull ParameterBindingPlan getBindingPlan(@NonNull Class<?> clazz) {
+        ParameterBindingPlan cachedResult = cachedBindingPlans.get(clazz);
+        if (cachedResult != null) return cachedResult;
 
+        ParameterBindingPlan bindingPlan = ParameterBindingPlan.create(this, clazz);
+        cachedBindingPlans.put(clazz, bindingPlan);
+        return bindingPlan;
+    }
+
+    /**
+     * @return the plan registering and reading OUT parameters of this call into Java Beans of {@code clazz},
+     *      built on first use
+     */
+    @NotNull OutParameterPlan getOutParameterPlan(@NonNull Class<?> clazz) {
+        OutParameterPlan cachedResult = cachedOutParameterPlans.get(clazz);
+        if (cachedResult != null) return cachedResult;
+
+        OutParameterPlan outParameterPlan = OutParameterPlan.create(this, clazz);
+        cachedOutParameterPlans.put(clazz, outParameterPlan);
+        return outParameterPlan;
+    }
+
+    /**
+     * @param resultIndex index of the result among those returned by one execution, 0 for the first one
+     * @return row mapping plans of that result (see {@link RowMappingPlan}), created on first use
+     */
+    @NotNull RowMappingPlan.PlanCache getRowPlanCache(int resultIndex) {
+        RowMappingPlan.PlanCache cachedResult = cachedRowPlans.get(resultIndex);
+        if (cachedResult != null) return cachedResult;
+
+        RowMappingPlan.PlanCache planCache = new RowMappingPlan.PlanCache();
+        RowMappingPlan.PlanCache previous = cachedRowPlans.putIfAbsent(resultIndex, planCache);
+        return previous != null ? previous : planCache;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link RowMapper} and {@link ParameterBinder} used instead of reflection.
+ * <br/>
+ * A mapper is either registered explicitly, or generated by the JDBCBean annotation processor.
+ * A generated mapper of class {@code com.example.Outer.Inner} is named {@code com.example.Outer_Inner_Mapper}
+ * and is loaded by the class loader of the Java Bean.
+ * Classes without mapper fall back to reflection.
+ * <br/>
+ * Register mappers at startup: column indexes and mappers are cached once a query has been executed.
+ */
+public final class MapperRegistry {
+
+    static final String GENERATED_MAPPER_SUFFIX = "_Mapper";
+
+    private static final Map<Class<?>, RowMapper<?>> registeredRowMappers = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ParameterBinder<?>> registeredParameterBinders = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Optional<GeneratedMapper<Object>>> cachedGeneratedMappers = new ConcurrentHashMap<>();
+
+    private MapperRegistry() {
+    }
+
+    public static <T> void registerRowMapper(@NotNull Class<T> clazz, @NotNull RowMapper<T> rowMapper) {
+        registeredRowMappers.put(clazz, rowMapper);
+    }
+
+    public static <T> void registerParameterBinder(@NotNull Class<T> clazz, @NotNull ParameterBinder<T> parameterBinder) {
+        registeredParameterBinders.put(clazz, parameterBinder);
+    }
+
+    /**
+     * Remove the mappers registered for {@code clazz}, its generated mapper (if any) is used again.
+     * Queries already executed keep the mapper they resolved.
+     */
+    public static void unregister(@NotNull Class<?> clazz) {
+        registeredRowMappers.remove(clazz);
+        registeredParameterBinders.remove(clazz);
+    }
+
+    @SuppressWarnings("unchecked") // mappers are registered with their class
+    static @Nullable RowMapper<Object> getRowMapper(@NotNull Class<?> clazz) {
+        RowMapper<?> rowMapper = registeredRowMappers.get(clazz);
+        if (rowMapper != null) return (RowMapper<Object>) rowMapper;
+        return getGeneratedMapper(clazz);
+    }
+
+    @SuppressWarnings("unchecked") // binders are registered with their class
+    static @Nullable ParameterBinder<Object> getParameterBinder(@NotNull Class<?> clazz) {
+        ParameterBinder<?> parameterBinder = registeredParameterBinders.get(clazz);
+        if (parameterBinder != null) return (ParameterBinder<Object>) parameterBinder;
+        return getGeneratedMapper(clazz);
+    }
+
+    /**
+     * @return the mapper generated by the annotation processor, null if there is none
+     */
+    static @Nullable GeneratedMapper<Object> getGeneratedMapper(@NotNull Class<?> clazz) {
+        Optional<GeneratedMapper<Object>> cachedResult = cachedGeneratedMappers.get(clazz);
+        if (cachedResult != null) return cachedResult.orElse(null);
+
+        Optional<GeneratedMapper<Object>> generatedMapper = Optional.ofNullable(loadGeneratedMapper(clazz));
+        cachedGeneratedMappers.put(clazz, generatedMapper);
+        return generatedMapper.orElse(null);
+    }
+
+    @SuppressWarnings("unchecked") // found by the name of clazz, so it maps clazz
+    private static @Nullable GeneratedMapper<Object> loadGeneratedMapper(Class<?> clazz) {
+        if (clazz.isArray() || clazz.isPrimitive() || clazz.isHidden()) return null;
+
+        String packagePrefix = clazz.getPackageName().isEmpty() ? "" : clazz.getPackageName() + ".";
+        String flatName = clazz.getName().substring(packagePrefix.length()).replace('$', '_');
+        try {
+            Class<?> mapperClass = Class.forName(
+                packagePrefix + flatName + GENERATED_MAPPER_SUFFIX,
+                true,
+                clazz.getClassLoader()
+            );
+            if (!GeneratedMapper.class.isAssignableFrom(mapperClass)) return null;
+            return (GeneratedMapper<Object>) mapperClass.getConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.exception.JDBCBeanException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Run several queries in one round trip and map each of their results to its own Java Bean class.
+ * Example:
+ * <pre>{@code
+ * MultiQuery.Results results = new MultiQuery()
+ *     .add("SELECT * FROM account WHERE id = :account_id", AccountDTO.class)
+ *     .add("SELECT * FROM invoice WHERE account_id = :account_id ORDER BY created_at DESC", InvoiceDTO.class)
+ *     .execute(connection, pageParameters);
+ *
+ * List<InvoiceDTO> invoices = results.getList(1, InvoiceDTO.class);
+ * }</pre>
+ * The queries are joined with {@code ;} into one statement, which the driver must accept
+ * (SQL Server, PostgreSQL, MySQL with {@code allowMultiQueries=true}...). A parameter used by several queries
+ * is bound once. For other databases, {@link #call(String, Class[])} reads the result sets of a stored procedure.
+ * <br/>
+ * Update counts between the result sets are skipped.
+ */
+public class MultiQuery {
+
+    private final List<String> npSqlFragments = new ArrayList<>();
+    private final List<Class<?>> resultClasses = new ArrayList<>();
+    @Nullable
+    private final String npCallString;
+
+    public MultiQuery() {
+        this.npCallString = null;
+    }
+
+    private MultiQuery(@NotNull String npCallString, Class<?>[] resultClasses) {
+        this.npCallString = npCallString;
+        this.resultClasses.addAll(List.of(resultClasses));
+    }
+
+    /**
+     * @param npCallString call of a stored procedure returning result sets, like {@code {call dashboard(:user_id)}}
+     * @param resultClasses Java Bean class of every result set, in order
+     */
+    public static MultiQuery call(@NotNull String npCallString, Class<?>... resultClasses) {
+        return new MultiQuery(npCallString, resultClasses);
+    }
+
+    /**
+     * @param npSqlFragment a query returning one result set, without trailing {@code ;}
+     * @param resultClass Java Bean class of its rows
+     */
+    public MultiQuery add(@NotNull String npSqlFragment, @NotNull Class<?> resultClass) {
+        if (npCallString != null) {
+            throw new JDBCBeanException("Can't add a query to a stored procedure call");
+        }
+        npSqlFragments.add(npSqlFragment);
+        resultClasses.add(resultClass);
+        return this;
+    }
+
+    /**
+     * @return the named parameter SQL executed
+     */
+    public String getNPSql() {
+        return npCallString != null ? npCallString : String.join(";\n", npSqlFragments);
+    }
+
+    /**
+     * Bind the parameters of every query from {@code parameters} (see {@link NPPreparedStatement#setParameters(Object)}),
+     * execute them and map their results.
+     *
+     * @param parameters Java Bean holding the parameters, nullable
+     */
+    public Results execute(@NotNull Connection connection, @Nullable Object parameters) throws SQLException {
+        if (npCallString != null) {
+            try (NPCallableStatement statement = new NPCallableStatement(npCallString, connection)) {
+                if (parameters != null) statement.setParameters(parameters);
+                return readResults(statement.getStatement(), statement.getStatement().execute(), statement.getMappedQuery());
+            }
+            catch (SQLException | RuntimeException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                throw new JDBCBeanException(e);
+            }
+        }
+
+        try (NPPreparedStatement statement = new NPPreparedStatement(getNPSql(), connection)) {
+            if (parameters != null) statement.setParameters(parameters);
+            return readResults(statement.getStatement(), statement.getStatement().execute(), statement.getMappedQuery());
+        }
+        catch (SQLException | RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new JDBCBeanException(e);
+        }
+    }
+
+    /**
+     * Same as {@link #execute(Connection, Object)}, binding the parameters from a dictionary
+     * (see {@link NPPreparedStatement#setParametersFroMap(Map)}).
+     */
+    public Results executeFromMap(@NotNull Connection connection, @NotNull Map<String, SqlValue> parameters)
+        throws SQLException {
+        MappedQuery mappedQuery = QueryParser.parseNPSql(getNPSql());
+        try (Statement statement = npCallString != null ?
+            connection.prepareCall(mappedQuery.getTranslatedQuery()) :
+            connection.prepareStatement(mappedQuery.getTranslatedQuery())
+        ) {
+            PreparedStatement preparedStatement = (PreparedStatement) statement;
+            for (var entry : parameters.entrySet()) {
+                for (int paramIndex : mappedQuery.getParamIndexes(entry.getKey())) {
+                    preparedStatement.setObject(paramIndex, entry.getValue().value(), entry.getValue().sqlType());
+                }
+            }
+            return readResults(statement, preparedStatement.execute(), mappedQuery);
+        }
+    }
+
+    private Results readResults(Statement statement, boolean isResultSet, MappedQuery mappedQuery) throws SQLException {
+        List<List<?>> resultLists = new ArrayList<>(resultClasses.size());
+        while (resultLists.size() < resultClasses.size()) {
+            if (isResultSet) {
+                ResultSet resultSet = statement.getResultSet();
+                // each result has its own columns, its plans are cached under its index
+                resultLists.add(
+                    new Result2Bean(resultSet, mappedQuery, resultLists.size()).getList(resultClasses.get(resultLists.size()))
+                );
+                if (resultLists.size() == resultClasses.size()) break;
+            }
+            else if (statement.getUpdateCount() == -1) {
+                throw new JDBCBeanException(String.format(
+                    "Expected %s result sets, got %s", resultClasses.size(), resultLists.size()
+                ));
+            }
+            isResultSet = statement.getMoreResults();
+        }
+        return new Results(resultLists, List.copyOf(resultClasses));
+    }
+
+    /**
+     * Mapped results of a {@link MultiQuery}, in the order of the queries.
+     */
+    public record Results(@NotNull List<List<?>> resultLists, @NotNull List<Class<?>> resultClasses) {
+
+        @SuppressWarnings("unchecked") // the element class is checked against resultClasses
+        public <T> List<T> getList(int index, @NotNull Class<T> clazz) {
+            if (!resultClasses.get(index).equals(clazz)) {
+                throw new JDBCBeanException(String.format(
+                    "Result %s is a list of %s, not %s", index, resultClasses.get(index).getName(), clazz.getName()
+                ));
+            }
+            return (List<T>) resultLists.get(index);
+        }
+
+        public <T> @Nullable T getFirst(int index, @NotNull Class<T> clazz) {
+            List<T> list = getList(index, clazz);
+            return list.isEmpty() ? null : list.get(0);
+        }
+    }
+}
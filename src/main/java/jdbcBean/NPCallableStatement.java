@@ -32,9 +32,7 @@ import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
-
-import static jdbcBean.BeanUtil.*;
-
+import java.util.stream.Stream;
 
 /**
  * Call database's stored procedures or functions using named parameters.
@@ -75,18 +73,7 @@ public class NPCallableStatement implements AutoCloseable {
 
 
     public NPCallableStatement registerOutParameters(Class<?> clazz) throws SQLException {
-        DeepAnnotationInfo deepAnnotationInfo = getAnnotationInfo(clazz);
-
-        for (MappedInfo mappedInfo : deepAnnotationInfo.shallowInfo().mappedInfoList()) {
-            statement.registerOutParameter(
-                mappedQuery.getParamIndex(mappedInfo.finalizedName()),
-                mappedInfo.annotation().type()
-            );
-        }
-
-        for (EmbeddedInfo embeddedInfo : deepAnnotationInfo.shallowInfo().embeddedInfoList()) {
-            registerOutParameters(embeddedInfo.field().getType());
-        }
+        mappedQuery.getOutParameterPlan(clazz).register(statement);
         return this;
     }
 
@@ -95,22 +82,7 @@ public class NPCallableStatement implements AutoCloseable {
     }
 
     public <T> T getReturnedOutParameters(Class<T> clazz) throws SQLException {
-        DeepAnnotationInfo deepAnnotationInfo = getAnnotationInfo(clazz);
-        try {
-            T out = (T) deepAnnotationInfo.shallowInfo().noArgsConstructor().newInstance();
-
-            for (MappedInfo mappedInfo : deepAnnotationInfo.shallowInfo().mappedInfoList()) {
-                mappedInfo.setter().invoke(out, statement.getObject(mappedInfo.finalizedName()));
-            }
-
-            for (EmbeddedInfo embeddedInfo : deepAnnotationInfo.shallowInfo().embeddedInfoList()) {
-                embeddedInfo.setter().invoke(out, getReturnedOutParameters(embeddedInfo.field().getType()));
-            }
-            return out;
-        }
-        catch (ReflectiveOperationException e) {
-            throw new RuntimeException(e);
-        }
+        return clazz.cast(mappedQuery.getOutParameterPlan(clazz).read(statement));
     }
 
     public <T> NPCallableStatement setParameters(T object) throws SQLException {
@@ -124,15 +96,36 @@ public class NPCallableStatement implements AutoCloseable {
     }
 
     public <T> List<T> getList(Class<T> clazz) throws SQLException {
-        return new Result2Bean(statement.getResultSet()).getList(clazz);
+        return new Result2Bean(statement.getResultSet(), mappedQuery).getList(clazz);
+    }
+
+    /**
+     * See {@link Result2Bean#getGroupedList(Class)}
+     */
+    public <T> List<T> getGroupedList(Class<T> clazz) throws SQLException {
+        return new Result2Bean(statement.getResultSet(), mappedQuery).getGroupedList(clazz);
+    }
+
+    /**
+     * See {@link Result2Bean#iterator(Class)}
+     */
+    public <T> CloseableIterator<T> iterator(Class<T> clazz) throws SQLException {
+        return new Result2Bean(statement.getResultSet(), mappedQuery).iterator(clazz);
+    }
+
+    /**
+     * See {@link Result2Bean#stream(Class)}
+     */
+    public <T> Stream<T> stream(Class<T> clazz) throws SQLException {
+        return new Result2Bean(statement.getResultSet(), mappedQuery).stream(clazz);
     }
 
     public <T> T getFirst(Class<T> clazz) throws SQLException {
-        return new Result2Bean(statement.getResultSet()).getFirst(clazz);
+        return new Result2Bean(statement.getResultSet(), mappedQuery).getFirst(clazz);
     }
 
     public <T> T getScalar() throws SQLException {
-        return new Result2Bean(statement.getResultSet()).getScalar();
+        return new Result2Bean(statement.getResultSet(), mappedQuery).getScalar();
     }
 
 
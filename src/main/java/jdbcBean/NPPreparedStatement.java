@@ -25,13 +25,15 @@
 
 package jdbcBean;
 
+import jdbcBean.exception.JDBCBeanException;
 import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
 
 import java.sql.*;
-import java.util.List;
-import java.util.Map;
-
-import static jdbcBean.BeanUtil.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
 
 /**
  * Allow you to assign SQL parameter by name and Java Bean DTO. Example:
@@ -50,39 +52,190 @@ import static jdbcBean.BeanUtil.*;
  */
 public class NPPreparedStatement implements AutoCloseable {
 
+    /**
+     * Maximum number of values bound to a list parameter by one statement
+     */
+    public static final int MAX_LIST_PARAMETER_SIZE = 512;
+
     @Getter
     private final PreparedStatement statement;
 
     @Getter
     protected final MappedQuery mappedQuery;
 
+    // kept because drivers may fail to return the connection of a statement once it's closed
+    private final Connection connection;
+
+    // set when this statement was handed out by a StatementCache or a TxContext, close() gives it back
+    @Nullable
+    private final StatementOwner owner;
+    private boolean closed = false;
+
+    private boolean restoreAutoCommit = false;
+
+    // number of parameter sets added since the last flush, 0 to never flush automatically
+    private int batchSize = 0;
+    private int pendingBatchCount = 0;
+    private int[] batchUpdateCounts = new int[0];
+    private int batchUpdateCountSize = 0;
+
     public NPPreparedStatement(String npSqlString, Connection connection) throws SQLException {
 
         mappedQuery = QueryParser.parseNPSql(npSqlString);
         statement = connection.prepareStatement(mappedQuery.getTranslatedQuery());
+        this.connection = connection;
+        owner = null;
     }
 
     public NPPreparedStatement(String npSqlString, Connection connection, boolean cacheSqlParsing) throws SQLException {
 
         mappedQuery = QueryParser.parseNPSql(npSqlString, cacheSqlParsing);
         statement = connection.prepareStatement(mappedQuery.getTranslatedQuery());
+        this.connection = connection;
+        owner = null;
     }
 
+    /**
+     * Bind collections to parameters used as lists of values, like {@code WHERE id IN (:ids)}.
+     * <br/>
+     * Each occurrence of a list parameter is expanded to N placeholders, N being the size of its collection rounded
+     * up to a power of two. The extra placeholders repeat the last value, so the database sees few distinct
+     * queries whatever the sizes of the collections. An empty collection is bound as one {@code NULL}.
+     * Other parameters are set as usual.
+     *
+     * The statement runs one query, so the values aren't split: use {@link #getListInChunks} to query larger
+     * collections, or an {@link java.sql.JDBCType#ARRAY} parameter.
+     *
+     * @param listParameters values of every list parameter, at most {@link #MAX_LIST_PARAMETER_SIZE} each
+     * @throws JDBCBeanException if a collection has more than {@link #MAX_LIST_PARAMETER_SIZE} values
+     */
+    public NPPreparedStatement(
+        String npSqlString,
+        Connection connection,
+        Map<String, ? extends Collection<?>> listParameters
+    ) throws SQLException {
+        Map<String, Integer> listSizes = new HashMap<>();
+        for (var entry : listParameters.entrySet()) {
+            if (entry.getValue().size() > MAX_LIST_PARAMETER_SIZE) {
+                throw new JDBCBeanException(String.format(
+                    "List parameter \"%s\" has %s values, more than %s", entry.getKey(), entry.getValue().size(), MAX_LIST_PARAMETER_SIZE
+                ));
+            }
+            listSizes.put(entry.getKey(), MappedQuery.getListBucketSize(entry.getValue().size()));
+        }
+
+        mappedQuery = QueryParser.parseNPSql(npSqlString).expandListParameters(listSizes);
+        statement = connection.prepareStatement(mappedQuery.getTranslatedQuery());
+        this.connection = connection;
+        owner = null;
+        try {
+            for (var entry : listParameters.entrySet()) {
+                setList(entry.getKey(), entry.getValue(), listSizes.get(entry.getKey()));
+            }
+        }
+        catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    NPPreparedStatement(
+        MappedQuery mappedQuery,
+        PreparedStatement statement,
+        Connection connection,
+        @Nullable StatementOwner owner
+    ) {
+        this.mappedQuery = mappedQuery;
+        this.statement = statement;
+        this.connection = connection;
+        this.owner = owner;
+    }
+
+    /**
+     * Set every occurrence of the parameter {@code paramName}.
+     *
+     * @throws JDBCBeanException if {@code object} is a collection, see {@link #NPPreparedStatement(String, Connection, Map)}
+     */
     public NPPreparedStatement setObject(String paramName, Object object) throws SQLException {
-        statement.setObject(mappedQuery.getParamIndex(paramName), object);
+        checkNotCollection(paramName, object);
+        for (int paramIndex : mappedQuery.getParamIndexes(paramName)) {
+            statement.setObject(paramIndex, object);
+        }
         return this;
     }
 
+    /**
+     * Set every occurrence of the parameter {@code paramName}.
+     *
+     * @throws JDBCBeanException if {@code object} is a collection, see {@link #NPPreparedStatement(String, Connection, Map)}
+     */
     public NPPreparedStatement setObject(String paramName, Object object, SQLType sqlType) throws SQLException {
-        statement.setObject(mappedQuery.getParamIndex(paramName), object, sqlType);
+        checkNotCollection(paramName, object);
+        for (int paramIndex : mappedQuery.getParamIndexes(paramName)) {
+            statement.setObject(paramIndex, object, sqlType);
+        }
         return this;
     }
 
+    // a collection would be bound as a single value, which drivers reject or compare as a whole
+    private static void checkNotCollection(String paramName, Object object) {
+        if (object instanceof Collection<?>) {
+            throw new JDBCBeanException(String.format(
+                "Collection bound to parameter \"%s\", list parameters are passed to the constructor", paramName
+            ));
+        }
+    }
+
+    private void setList(String paramName, Collection<?> values, int bucketSize) throws SQLException {
+        Object[] valueArray = values.toArray();
+        int[] paramIndexes = mappedQuery.getParamIndexes(paramName);
+        // indexes of an occurrence are consecutive, bucketSize per occurrence
+        for (int i = 0; i < paramIndexes.length; i++) {
+            int valueIndex = Math.min(i % bucketSize, valueArray.length - 1);
+            statement.setObject(paramIndexes[i], valueIndex < 0 ? null : valueArray[valueIndex]);
+        }
+    }
+
+    /**
+     * Execute a query with a list parameter (see {@link #NPPreparedStatement(String, Connection, Map)}) once per
+     * {@link #MAX_LIST_PARAMETER_SIZE} values and concatenate the results.
+     * The query is not executed if {@code values} is empty.
+     *
+     * @param listParamName name of the list parameter, like {@code ids} in {@code WHERE id IN (:ids)}
+     * @param parameters Java Bean holding the other parameters (see {@link #setParameters(Object)}), nullable
+     * @throws SQLException thrown by JDBC
+     */
+    public static <T> List<T> getListInChunks(
+        String npSqlString,
+        Connection connection,
+        String listParamName,
+        Collection<?> values,
+        @Nullable Object parameters,
+        Class<T> clazz
+    ) throws SQLException {
+        List<?> valueList = values instanceof List<?> list ? list : new ArrayList<>(values);
+        List<T> outputList = new ArrayList<>();
+        for (int from = 0; from < valueList.size(); from += MAX_LIST_PARAMETER_SIZE) {
+            List<?> chunk = valueList.subList(from, Math.min(valueList.size(), from + MAX_LIST_PARAMETER_SIZE));
+            try (NPPreparedStatement statement = new NPPreparedStatement(npSqlString, connection, Map.of(listParamName, chunk))) {
+                if (parameters != null) statement.setParameters(parameters);
+                outputList.addAll(statement.execute().getList(clazz));
+            }
+            catch (SQLException | RuntimeException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                throw new JDBCBeanException(e);
+            }
+        }
+        return outputList;
+    }
+
     /**
      * A method to wrap this statement's {@link ResultSet} in {@link Result2Bean}
      */
     public Result2Bean getResult2Bean() throws SQLException {
-        return new Result2Bean(statement.getResultSet());
+        return new Result2Bean(statement.getResultSet(), mappedQuery);
     }
 
     public <T> NPPreparedStatement setParameters(T object) throws SQLException {
@@ -103,25 +256,104 @@ public class NPPreparedStatement implements AutoCloseable {
         return this;
     }
 
-    static <T> void setStatementParameters(PreparedStatement statement, MappedQuery mappedQuery ,T object)
-        throws SQLException {
-        try {
-            DeepAnnotationInfo annotationInfo = getAnnotationInfo(object.getClass());
-            for (MappedInfo mappedInfo : annotationInfo.shallowInfo().mappedInfoList()) {
-                statement.setObject(
-                    mappedQuery.getParamIndex(mappedInfo.finalizedName()),
-                    mappedInfo.getter().invoke(object),
-                    mappedInfo.annotation().type().getVendorTypeNumber()
-                );
-            }
+    /**
+     * Flush the batch automatically every {@code batchSize} calls to {@link #addBatch(Object)}
+     * or {@link #addBatchFromMap(Map)}. The update counts are kept until {@link #executeBatch()}.
+     *
+     * @param batchSize number of parameter sets sent per round trip, 0 to disable automatic flushes
+     */
+    public NPPreparedStatement setBatchSize(int batchSize) {
+        if (batchSize < 0) {
+            throw new JDBCBeanException(String.format("Invalid batch size %s", batchSize));
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Bind the parameters of {@code object} (see {@link #setParameters(Object)}) and add them to the batch.
+     */
+    public <T> NPPreparedStatement addBatch(T object) throws SQLException {
+        setStatementParameters(statement, mappedQuery, object);
+        return addBatch();
+    }
+
+    /**
+     * Bind {@code parameters} (see {@link #setParametersFroMap(Map)}) and add them to the batch.
+     */
+    public NPPreparedStatement addBatchFromMap(Map<String, SqlValue> parameters) throws SQLException {
+        setParametersFroMap(parameters);
+        return addBatch();
+    }
+
+    /**
+     * Add the parameters currently bound to the batch.
+     */
+    public NPPreparedStatement addBatch() throws SQLException {
+        statement.addBatch();
+        pendingBatchCount++;
+        if (batchSize > 0 && pendingBatchCount >= batchSize) {
+            flushBatch();
+        }
+        return this;
+    }
+
+    /**
+     * Send the pending batch.
+     *
+     * @return update counts of every parameter set added since the last call of this method,
+     * including those of automatic flushes
+     * @throws SQLException thrown by JDBC
+     */
+    public int[] executeBatch() throws SQLException {
+        flushBatch();
+        int[] output = Arrays.copyOf(batchUpdateCounts, batchUpdateCountSize);
+        batchUpdateCounts = new int[0];
+        batchUpdateCountSize = 0;
+        return output;
+    }
 
-            for (EmbeddedInfo embeddedField : annotationInfo.shallowInfo().embeddedInfoList()) {
-                setStatementParameters(statement, mappedQuery, embeddedField.getter().invoke(object));
+    /**
+     * Add every object to the batch, sending it every {@code chunkSize} objects.
+     *
+     * @return update counts of every object, in order
+     * @throws SQLException thrown by JDBC
+     */
+    public <T> int[] executeBatch(Iterable<T> objects, int chunkSize) throws SQLException {
+        if (chunkSize <= 0) {
+            throw new JDBCBeanException(String.format("Invalid chunk size %s", chunkSize));
+        }
+        int previousBatchSize = batchSize;
+        batchSize = chunkSize;
+        try {
+            for (T object : objects) {
+                addBatch(object);
             }
+            return executeBatch();
         }
-        catch (ReflectiveOperationException e) {
-            throw new RuntimeException(e);
+        finally {
+            batchSize = previousBatchSize;
+        }
+    }
+
+    private void flushBatch() throws SQLException {
+        if (pendingBatchCount == 0) return;
+        pendingBatchCount = 0;
+
+        int[] updateCounts = statement.executeBatch();
+        if (batchUpdateCountSize + updateCounts.length > batchUpdateCounts.length) {
+            batchUpdateCounts = Arrays.copyOf(
+                batchUpdateCounts,
+                Math.max(batchUpdateCountSize + updateCounts.length, batchUpdateCounts.length * 2)
+            );
         }
+        System.arraycopy(updateCounts, 0, batchUpdateCounts, batchUpdateCountSize, updateCounts.length);
+        batchUpdateCountSize += updateCounts.length;
+    }
+
+    static <T> void setStatementParameters(PreparedStatement statement, MappedQuery mappedQuery ,T object)
+        throws SQLException {
+        mappedQuery.getBindingPlan(object.getClass()).bind(statement, object);
     }
 
     public NPPreparedStatement execute() throws SQLException {
@@ -129,23 +361,137 @@ public class NPPreparedStatement implements AutoCloseable {
         return this;
     }
 
+    /**
+     * {@link #execute()} on {@link QueryExecutor#getDefault()}.
+     */
+    public CompletableFuture<NPPreparedStatement> executeAsync() {
+        return executeAsync(QueryExecutor.getDefault());
+    }
+
+    /**
+     * {@link #execute()} on {@code queryExecutor}. Cancelling the future cancels the statement.
+     * The statement must not be used until the future completes.
+     */
+    public CompletableFuture<NPPreparedStatement> executeAsync(QueryExecutor queryExecutor) {
+        return queryExecutor.submit(statement, this::execute);
+    }
+
+    /**
+     * {@link #getListAsync(Class, QueryExecutor)} on {@link QueryExecutor#getDefault()}.
+     */
+    public <T> CompletableFuture<List<T>> getListAsync(Class<T> clazz) {
+        return getListAsync(clazz, QueryExecutor.getDefault());
+    }
+
+    /**
+     * Execute this statement and map its result with {@link #getList(Class)} on {@code queryExecutor}.
+     * Cancelling the future cancels the statement.
+     * The statement must not be used until the future completes.
+     */
+    public <T> CompletableFuture<List<T>> getListAsync(Class<T> clazz, QueryExecutor queryExecutor) {
+        return queryExecutor.submit(statement, () -> execute().getList(clazz));
+    }
+
+    /**
+     * Configure this statement to stream a large result with {@link #stream(Class)} or {@link #iterator(Class)}
+     * instead of loading every row in memory. Must be called before {@link #execute()}.
+     * <br/>
+     * Set the fetch size of the statement. Because some drivers (for example PostgreSQL) only use a server-side
+     * cursor inside a transaction, auto-commit of the connection is disabled until this statement is closed.
+     *
+     * @param fetchSize number of rows fetched from the database per round trip
+     * @throws SQLException thrown by JDBC
+     */
+    public NPPreparedStatement setStreaming(int fetchSize) throws SQLException {
+        statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+        statement.setFetchSize(fetchSize);
+
+        if (connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+            restoreAutoCommit = true;
+        }
+        return this;
+    }
+
 
 
     public <T> List<T> getList(Class<T> clazz) throws SQLException {
-        return new Result2Bean(statement.getResultSet()).getList(clazz);
+        return new Result2Bean(statement.getResultSet(), mappedQuery).getList(clazz);
+    }
+
+    /**
+     * See {@link Result2Bean#getTrackedList(ChangeTracker)}
+     */
+    public <T> List<T> getTrackedList(ChangeTracker<T> tracker) throws SQLException {
+        return new Result2Bean(statement.getResultSet(), mappedQuery).getTrackedList(tracker);
+    }
+
+    /**
+     * See {@link Result2Bean#getGroupedList(Class)}
+     */
+    public <T> List<T> getGroupedList(Class<T> clazz) throws SQLException {
+        return new Result2Bean(statement.getResultSet(), mappedQuery).getGroupedList(clazz);
+    }
+
+    /**
+     * See {@link Result2Bean#iterator(Class)}
+     */
+    public <T> CloseableIterator<T> iterator(Class<T> clazz) throws SQLException {
+        return new Result2Bean(statement.getResultSet(), mappedQuery).iterator(clazz);
+    }
+
+    /**
+     * See {@link Result2Bean#stream(Class)}
+     */
+    public <T> Stream<T> stream(Class<T> clazz) throws SQLException {
+        return new Result2Bean(statement.getResultSet(), mappedQuery).stream(clazz);
+    }
+
+    /**
+     * See {@link Result2Bean#publish(Class)}
+     */
+    public <T> Flow.Publisher<T> publish(Class<T> clazz) throws SQLException {
+        return new Result2Bean(statement.getResultSet(), mappedQuery).publish(clazz);
     }
 
     public <T> T getFirst(Class<T> clazz) throws SQLException {
-        return new Result2Bean(statement.getResultSet()).getFirst(clazz);
+        return new Result2Bean(statement.getResultSet(), mappedQuery).getFirst(clazz);
     }
 
     public <T> T getScalar() throws SQLException {
-        return new Result2Bean(statement.getResultSet()).getScalar();
+        return new Result2Bean(statement.getResultSet(), mappedQuery).getScalar();
     }
 
     @Override
     public void close() throws Exception {
-        statement.close();
+        if (closed) return;
+        closed = true;
+
+        // the connection may be closed already, its statements are closed with it
+        try {
+            if (owner != null && !connection.isClosed()) {
+                if (restoreAutoCommit) statement.setFetchSize(0);
+                owner.release(this);
+            }
+            else {
+                statement.close();
+            }
+        }
+        finally {
+            if (restoreAutoCommit && !connection.isClosed()) {
+                connection.setAutoCommit(true);
+            }
+        }
     }
 
+    /**
+     * Keeps the {@link PreparedStatement} of the statements it hands out open to reuse them.
+     */
+    interface StatementOwner {
+
+        /**
+         * Called when a statement handed out by this owner is closed, instead of closing its {@link PreparedStatement}.
+         */
+        void release(NPPreparedStatement statement) throws SQLException;
+    }
 }
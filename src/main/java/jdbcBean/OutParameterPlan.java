@@ -0,0 +1,254 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.ColumnReaders.ValueKind;
+import jdbcBean.annotation.Mapped;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.CallableStatement;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static jdbcBean.BeanUtil.*;
+
+/**
+ * OUT parameters of a stored procedure call read into a Java Bean class, resolved once.
+ * <br/>
+ * Cached in the {@link MappedQuery} per Java Bean class (see {@link MappedQuery#getOutParameterPlan(Class)}).
+ * Parameters are registered in one pass and read by index with typed getters ({@code getInt}, {@code getString}...).
+ * The objects of the class and of its embedded fields are flattened in an array, children after their parent,
+ * and constructed from the last one to the first, so reading doesn't recurse.
+ */
+class OutParameterPlan {
+
+    private final int @NotNull [] registeredIndexes;
+    @NotNull
+    private final SQLType[] registeredTypes;
+    @NotNull
+    private final ObjectPlan[] objectPlans;
+
+    private OutParameterPlan(int @NotNull [] registeredIndexes, @NotNull SQLType[] registeredTypes, @NotNull ObjectPlan[] objectPlans) {
+        this.registeredIndexes = registeredIndexes;
+        this.registeredTypes = registeredTypes;
+        this.objectPlans = objectPlans;
+    }
+
+    static OutParameterPlan create(@NotNull MappedQuery mappedQuery, @NotNull Class<?> clazz) {
+        List<Integer> registeredIndexes = new ArrayList<>();
+        List<SQLType> registeredTypes = new ArrayList<>();
+        List<ObjectPlan> objectPlans = new ArrayList<>();
+        addObjectPlan(mappedQuery, getAnnotationInfo(clazz).shallowInfo(), registeredIndexes, registeredTypes, objectPlans);
+
+        return new OutParameterPlan(
+            registeredIndexes.stream().mapToInt(Integer::intValue).toArray(),
+            registeredTypes.toArray(new SQLType[0]),
+            objectPlans.toArray(new ObjectPlan[0])
+        );
+    }
+
+    /**
+     * @return index of the added plan in {@code objectPlans}
+     */
+    private static int addObjectPlan(
+        MappedQuery mappedQuery,
+        ShallowAnnotationInfo annotationInfo,
+        List<Integer> registeredIndexes,
+        List<SQLType> registeredTypes,
+        List<ObjectPlan> objectPlans
+    ) {
+        @Nullable ConstructorInfo constructorInfo = annotationInfo.constructorInfo();
+        List<MappedInfo> mappedInfoList = annotationInfo.mappedInfoList();
+        OutField[] fields = new OutField[mappedInfoList.size()];
+        for (int i = 0; i < fields.length; i++) {
+            MappedInfo mappedInfo = mappedInfoList.get(i);
+            int[] paramIndexes = mappedQuery.getParamIndexes(mappedInfo.finalizedName());
+            for (int paramIndex : paramIndexes) {
+                registeredIndexes.add(paramIndex);
+                registeredTypes.add(mappedInfo.annotation().type());
+            }
+            Class<?> type = mappedInfo.field().getType();
+            fields[i] = new OutField(
+                paramIndexes[0],
+                getOutValueReader(type, mappedInfo.annotation()),
+                mappedInfo.setter(),
+                constructorInfo == null ? -1 : constructorInfo.mappedArgumentIndexes()[i],
+                type.isPrimitive() ? AccessorUtil.defaultValue(type) : null
+            );
+        }
+
+        ObjectPlan objectPlan = new ObjectPlan(
+            annotationInfo.noArgsConstructor(),
+            constructorInfo,
+            fields,
+            new int[annotationInfo.embeddedInfoList().size()],
+            new ArrayList<>()
+        );
+        objectPlans.add(objectPlan);
+        int planIndex = objectPlans.size() - 1;
+
+        List<EmbeddedInfo> embeddedInfoList = annotationInfo.embeddedInfoList();
+        for (int i = 0; i < embeddedInfoList.size(); i++) {
+            objectPlan.embeddedPlanIndexes()[i] = addObjectPlan(
+                mappedQuery, embeddedInfoList.get(i).annotationInfo(), registeredIndexes, registeredTypes, objectPlans
+            );
+            objectPlan.embeddedSetters().add(embeddedInfoList.get(i).setter());
+        }
+        return planIndex;
+    }
+
+    void register(@NotNull CallableStatement statement) throws SQLException {
+        for (int i = 0; i < registeredIndexes.length; i++) {
+            statement.registerOutParameter(registeredIndexes[i], registeredTypes[i]);
+        }
+    }
+
+    Object read(@NotNull CallableStatement statement) throws SQLException {
+        Object[] objects = new Object[objectPlans.length];
+        // embedded objects come after their owner, build them first
+        for (int i = objectPlans.length - 1; i >= 0; i--) {
+            objects[i] = objectPlans[i].read(statement, objects);
+        }
+        return objects[0];
+    }
+
+    private static OutValueReader getOutValueReader(Class<?> type, Mapped mapped) {
+        ValueKind valueKind = ValueKind.of(type, mapped.type());
+        return switch (valueKind) {
+            case INTEGER -> (statement, index) -> {
+                int val = statement.getInt(index);
+                return statement.wasNull() ? null : val;
+            };
+            case LONG -> (statement, index) -> {
+                long val = statement.getLong(index);
+                return statement.wasNull() ? null : val;
+            };
+            case DOUBLE -> (statement, index) -> {
+                double val = statement.getDouble(index);
+                return statement.wasNull() ? null : val;
+            };
+            case FLOAT -> (statement, index) -> {
+                float val = statement.getFloat(index);
+                return statement.wasNull() ? null : val;
+            };
+            case SHORT -> (statement, index) -> {
+                short val = statement.getShort(index);
+                return statement.wasNull() ? null : val;
+            };
+            case BYTE -> (statement, index) -> {
+                byte val = statement.getByte(index);
+                return statement.wasNull() ? null : val;
+            };
+            case BOOLEAN -> (statement, index) -> {
+                boolean val = statement.getBoolean(index);
+                return statement.wasNull() ? null : val;
+            };
+            case CHARACTER -> (statement, index) -> {
+                String val = statement.getString(index);
+                return val == null || val.isEmpty() ? null : val.charAt(0);
+            };
+            case STRING -> CallableStatement::getString;
+            case BIG_DECIMAL -> CallableStatement::getBigDecimal;
+            case BYTES -> CallableStatement::getBytes;
+            case INT_ARRAY -> (statement, index) -> {
+                Object elements = ColumnValues.getArrayElements(statement.getArray(index));
+                return elements == null ? null : ColumnValues.toIntArray(elements);
+            };
+            case LONG_ARRAY -> (statement, index) -> {
+                Object elements = ColumnValues.getArrayElements(statement.getArray(index));
+                return elements == null ? null : ColumnValues.toLongArray(elements);
+            };
+            case STRING_ARRAY -> (statement, index) -> {
+                Object elements = ColumnValues.getArrayElements(statement.getArray(index));
+                return elements == null ? null : ColumnValues.toStringArray(elements);
+            };
+            case LIST -> (statement, index) -> {
+                Object elements = ColumnValues.getArrayElements(statement.getArray(index));
+                return elements == null ? null : ColumnValues.toList(elements);
+            };
+            case OBJECT -> type == Object.class ?
+                CallableStatement::getObject :
+                (statement, index) -> type.cast(statement.getObject(index));
+        };
+    }
+
+    /**
+     * @param argumentIndex index in the constructor arguments, -1 if the object has a no args constructor
+     * @param primitiveDefault value of a primitive field when the parameter is NULL, null for other fields
+     */
+    private record OutField(
+        int paramIndex,
+        @NotNull OutValueReader reader,
+        @Nullable BiConsumer<Object, Object> setter,
+        int argumentIndex,
+        @Nullable Object primitiveDefault
+    ) {
+    }
+
+    private record ObjectPlan(
+        @Nullable Supplier<Object> noArgsConstructor,
+        @Nullable ConstructorInfo constructorInfo,
+        @NotNull OutField[] fields,
+        int @NotNull [] embeddedPlanIndexes,
+        @NotNull List<BiConsumer<Object, Object>> embeddedSetters
+    ) {
+
+        Object read(CallableStatement statement, Object[] objects) throws SQLException {
+            if (constructorInfo != null) {
+                Object[] arguments = constructorInfo.defaultArguments().clone();
+                for (OutField field : fields) {
+                    Object val = field.reader().read(statement, field.paramIndex());
+                    arguments[field.argumentIndex()] = val != null ? val : field.primitiveDefault();
+                }
+                for (int i = 0; i < embeddedPlanIndexes.length; i++) {
+                    arguments[constructorInfo.embeddedArgumentIndexes()[i]] = objects[embeddedPlanIndexes[i]];
+                }
+                return constructorInfo.newInstance(arguments);
+            }
+
+            Object output = noArgsConstructor.get();
+            for (OutField field : fields) {
+                Object val = field.reader().read(statement, field.paramIndex());
+                // a NULL leaves a primitive field untouched
+                if (val != null || field.primitiveDefault() == null) field.setter().accept(output, val);
+            }
+            for (int i = 0; i < embeddedPlanIndexes.length; i++) {
+                embeddedSetters.get(i).accept(output, objects[embeddedPlanIndexes[i]]);
+            }
+            return output;
+        }
+    }
+
+    @FunctionalInterface
+    private interface OutValueReader {
+        @Nullable Object read(CallableStatement statement, int parameterIndex) throws SQLException;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Bind the {@link jdbcBean.annotation.Mapped} fields of a Java Bean to the parameters of a {@link PreparedStatement}.
+ *
+ * @param <T> Java Bean class
+ */
+@FunctionalInterface
+public interface ParameterBinder<T> {
+
+    /**
+     * @param statement the statement to bind parameters to
+     * @param parameterIndexes
+     *      parameter index of every {@link jdbcBean.annotation.Mapped} field,
+     *      in the same order as {@link RowMapper#mapRow}'s column indexes.
+     *      0 if the query doesn't use the field: the field must be skipped.
+     *      When the query uses a parameter several times, the binder is called once per occurrence
+     * @param object the Java Bean holding parameter values
+     * @throws SQLException thrown by JDBC
+     */
+    void bind(PreparedStatement statement, int[] parameterIndexes, T object) throws SQLException;
+}
@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.ParameterSetters.ParameterSetter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static jdbcBean.BeanUtil.*;
+
+/**
+ * Parameters of a named parameter query bound from a Java Bean class, resolved once.
+ * <br/>
+ * Parameter indexes and setters are computed on first use and cached in the {@link MappedQuery}
+ * per Java Bean class (see {@link MappedQuery#getBindingPlan(Class)}), so binding doesn't look up annotations,
+ * parameter names or accessors again.
+ * Fields whose name isn't a parameter of the query are skipped, fields used several times are bound at every position.
+ */
+class ParameterBindingPlan {
+
+    private final int @NotNull [] parameterIndexes;
+    @NotNull
+    private final ParameterSetter[] parameterSetters;
+    @Nullable
+    private final ParameterBinder<Object> parameterBinder;
+    // parameterBinder is called once per array: the n-th array holds the n-th index of every field, 0 if it has fewer
+    private final int @NotNull [] @NotNull [] binderParameterIndexes;
+
+    private ParameterBindingPlan(
+        int @NotNull [] parameterIndexes,
+        @NotNull ParameterSetter[] parameterSetters,
+        @Nullable ParameterBinder<Object> parameterBinder,
+        int @NotNull [] @NotNull [] binderParameterIndexes
+    ) {
+        this.parameterIndexes = parameterIndexes;
+        this.parameterSetters = parameterSetters;
+        this.parameterBinder = parameterBinder;
+        this.binderParameterIndexes = binderParameterIndexes;
+    }
+
+    static ParameterBindingPlan create(@NotNull MappedQuery mappedQuery, @NotNull Class<?> clazz) {
+        @Nullable ParameterBinder<Object> parameterBinder = MapperRegistry.getParameterBinder(clazz);
+        if (parameterBinder != null) {
+            String[] mappedNames = parameterBinder instanceof GeneratedMapper<Object> generatedMapper ?
+                generatedMapper.mappedNames() :
+                getFlatMappedInfoList(getAnnotationInfo(clazz).shallowInfo())
+                    .stream().map(MappedInfo::finalizedName).toArray(String[]::new);
+
+            int[][] fieldParameterIndexes = new int[mappedNames.length][];
+            int occurrenceCount = 1;
+            for (int i = 0; i < mappedNames.length; i++) {
+                fieldParameterIndexes[i] = mappedQuery.findParamIndexes(mappedNames[i]);
+                occurrenceCount = Math.max(occurrenceCount, fieldParameterIndexes[i].length);
+            }
+
+            int[][] binderParameterIndexes = new int[occurrenceCount][mappedNames.length];
+            for (int i = 0; i < mappedNames.length; i++) {
+                for (int occurrence = 0; occurrence < fieldParameterIndexes[i].length; occurrence++) {
+                    binderParameterIndexes[occurrence][i] = fieldParameterIndexes[i][occurrence];
+                }
+            }
+            return new ParameterBindingPlan(new int[0], new ParameterSetter[0], parameterBinder, binderParameterIndexes);
+        }
+
+        List<Integer> parameterIndexes = new ArrayList<>();
+        List<ParameterSetter> parameterSetters = new ArrayList<>();
+        addParameters(mappedQuery, getAnnotationInfo(clazz).shallowInfo(), o -> o, parameterIndexes, parameterSetters);
+
+        return new ParameterBindingPlan(
+            parameterIndexes.stream().mapToInt(Integer::intValue).toArray(),
+            parameterSetters.toArray(new ParameterSetter[0]),
+            null,
+            new int[0][]
+        );
+    }
+
+    private static void addParameters(
+        MappedQuery mappedQuery,
+        ShallowAnnotationInfo annotationInfo,
+        Function<Object, Object> ownerAccessor,
+        List<Integer> parameterIndexes,
+        List<ParameterSetter> parameterSetters
+    ) {
+        for (MappedInfo mappedInfo : annotationInfo.mappedInfoList()) {
+            int[] fieldParameterIndexes = mappedQuery.findParamIndexes(mappedInfo.finalizedName());
+            if (fieldParameterIndexes.length == 0) continue;
+
+            ParameterSetter parameterSetter = ParameterSetters.getParameterSetter(
+                mappedInfo.field(), mappedInfo.annotation(), ownerAccessor
+            );
+            for (int parameterIndex : fieldParameterIndexes) {
+                parameterIndexes.add(parameterIndex);
+                parameterSetters.add(parameterSetter);
+            }
+        }
+
+        for (EmbeddedInfo embeddedInfo : annotationInfo.embeddedInfoList()) {
+            Function<Object, Object> getter = embeddedInfo.getter();
+            addParameters(
+                mappedQuery,
+                embeddedInfo.annotationInfo(),
+                o -> {
+                    Object owner = ownerAccessor.apply(o);
+                    return owner == null ? null : getter.apply(owner);
+                },
+                parameterIndexes,
+                parameterSetters
+            );
+        }
+    }
+
+    /**
+     * @return a plan binding the same fields {@code parameterOffset} positions further,
+     *      used to bind several rows of a multi-row statement
+     */
+    @NotNull ParameterBindingPlan withParameterOffset(int parameterOffset) {
+        int[] shiftedIndexes = parameterIndexes.clone();
+        for (int i = 0; i < shiftedIndexes.length; i++) {
+            shiftedIndexes[i] += parameterOffset;
+        }
+        int[][] shiftedBinderIndexes = new int[binderParameterIndexes.length][];
+        for (int occurrence = 0; occurrence < binderParameterIndexes.length; occurrence++) {
+            shiftedBinderIndexes[occurrence] = binderParameterIndexes[occurrence].clone();
+            for (int i = 0; i < shiftedBinderIndexes[occurrence].length; i++) {
+                // 0 means the field is skipped
+                if (shiftedBinderIndexes[occurrence][i] != 0) shiftedBinderIndexes[occurrence][i] += parameterOffset;
+            }
+        }
+        return new ParameterBindingPlan(shiftedIndexes, parameterSetters, parameterBinder, shiftedBinderIndexes);
+    }
+
+    public void bind(@NotNull PreparedStatement statement, @NotNull Object object) throws SQLException {
+        if (parameterBinder != null) {
+            for (int[] indexes : binderParameterIndexes) {
+                parameterBinder.bind(statement, indexes, object);
+            }
+            return;
+        }
+
+        for (int i = 0; i < parameterSetters.length; i++) {
+            parameterSetters[i].set(statement, parameterIndexes[i], object);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.AccessorUtil.BooleanGetter;
+import jdbcBean.AccessorUtil.DoubleGetter;
+import jdbcBean.AccessorUtil.IntGetter;
+import jdbcBean.AccessorUtil.LongGetter;
+import jdbcBean.annotation.Mapped;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Type-specialized parameter setters, the counterpart of {@link ColumnReaders}.
+ * <br/>
+ * A field is bound with {@code setInt}/{@code setLong}/{@code setDouble}/{@code setBoolean}/{@code setString}/
+ * {@code setBigDecimal} when its type and {@link Mapped#type()} agree (for example: {@code int} and
+ * {@link JDBCType#INTEGER}), with {@code setObject(value, type)} otherwise.
+ * Primitive fields are read without boxing. A null value is bound with {@code setNull(type)}.
+ * {@code int[]}, {@code long[]}, {@code String[]} and {@link List} fields of a supported element class are bound as SQL ARRAYs.
+ */
+class ParameterSetters {
+
+    /**
+     * @param ownerAccessor
+     *      returns the object declaring the field (the Java Bean itself, or one of its embedded objects),
+     *      null when an embedded object is null: the parameter is then bound to NULL
+     */
+    public static @NotNull ParameterSetter getParameterSetter(
+        @NotNull Field field,
+        @NotNull Mapped mapped,
+        @NotNull Function<Object, Object> ownerAccessor
+    ) {
+        Class<?> type = field.getType();
+        JDBCType jdbcType = mapped.type();
+        int sqlType = jdbcType.getVendorTypeNumber();
+
+        if (type == int.class && isIntType(jdbcType)) {
+            IntGetter getter = AccessorUtil.getIntGetter(field);
+            return (statement, parameterIndex, object) -> {
+                Object owner = ownerAccessor.apply(object);
+                if (owner == null) statement.setNull(parameterIndex, sqlType);
+                else statement.setInt(parameterIndex, getter.get(owner));
+            };
+        }
+        if (type == long.class && jdbcType == JDBCType.BIGINT) {
+            LongGetter getter = AccessorUtil.getLongGetter(field);
+            return (statement, parameterIndex, object) -> {
+                Object owner = ownerAccessor.apply(object);
+                if (owner == null) statement.setNull(parameterIndex, sqlType);
+                else statement.setLong(parameterIndex, getter.get(owner));
+            };
+        }
+        if (type == double.class && isDoubleType(jdbcType)) {
+            DoubleGetter getter = AccessorUtil.getDoubleGetter(field);
+            return (statement, parameterIndex, object) -> {
+                Object owner = ownerAccessor.apply(object);
+                if (owner == null) statement.setNull(parameterIndex, sqlType);
+                else statement.setDouble(parameterIndex, getter.get(owner));
+            };
+        }
+        if (type == boolean.class && isBooleanType(jdbcType)) {
+            BooleanGetter getter = AccessorUtil.getBooleanGetter(field);
+            return (statement, parameterIndex, object) -> {
+                Object owner = ownerAccessor.apply(object);
+                if (owner == null) statement.setNull(parameterIndex, sqlType);
+                else statement.setBoolean(parameterIndex, getter.get(owner));
+            };
+        }
+
+        Function<Object, Object> getter = AccessorUtil.getGetter(field);
+        @Nullable String elementTypeName = getArrayElementTypeName(field);
+        if (elementTypeName != null) {
+            return (statement, parameterIndex, object) -> {
+                Object owner = ownerAccessor.apply(object);
+                ParameterValues.setArray(statement, parameterIndex, elementTypeName, owner == null ? null : getter.apply(owner));
+            };
+        }
+
+        ValueSetter valueSetter = getValueSetter(type, jdbcType);
+        return (statement, parameterIndex, object) -> {
+            Object owner = ownerAccessor.apply(object);
+            Object val = owner == null ? null : getter.apply(owner);
+            if (val == null) statement.setNull(parameterIndex, sqlType);
+            else valueSetter.set(statement, parameterIndex, val, sqlType);
+        };
+    }
+
+    private static ValueSetter getValueSetter(Class<?> type, JDBCType jdbcType) {
+        if ((type == int.class || type == Integer.class) && isIntType(jdbcType)) {
+            return (statement, parameterIndex, val, sqlType) -> statement.setInt(parameterIndex, (Integer) val);
+        }
+        if ((type == long.class || type == Long.class) && jdbcType == JDBCType.BIGINT) {
+            return (statement, parameterIndex, val, sqlType) -> statement.setLong(parameterIndex, (Long) val);
+        }
+        if ((type == double.class || type == Double.class) && isDoubleType(jdbcType)) {
+            return (statement, parameterIndex, val, sqlType) -> statement.setDouble(parameterIndex, (Double) val);
+        }
+        if ((type == boolean.class || type == Boolean.class) && isBooleanType(jdbcType)) {
+            return (statement, parameterIndex, val, sqlType) -> statement.setBoolean(parameterIndex, (Boolean) val);
+        }
+        if (type == String.class && isStringType(jdbcType)) {
+            return (statement, parameterIndex, val, sqlType) -> statement.setString(parameterIndex, (String) val);
+        }
+        if (type == BigDecimal.class && (jdbcType == JDBCType.DECIMAL || jdbcType == JDBCType.NUMERIC)) {
+            return (statement, parameterIndex, val, sqlType) -> statement.setBigDecimal(parameterIndex, (BigDecimal) val);
+        }
+        return PreparedStatement::setObject;
+    }
+
+    /**
+     * @return true for the types read by {@link ColumnValues}' array getters
+     */
+    /**
+     * @return SQL type name of the elements of an array field bound with {@code createArrayOf}, null otherwise.
+     * A {@code List} field without a supported element class (raw, {@code List<?>}, {@code List<List<X>>}...)
+     * is bound with {@code setObject}
+     */
+    private static @Nullable String getArrayElementTypeName(Field field) {
+        Class<?> type = field.getType();
+        if (type == int[].class || type == long[].class || type == String[].class) {
+            return ParameterValues.getArrayElementTypeName(type.getComponentType());
+        }
+        if (type != List.class) return null;
+
+        @Nullable Class<?> elementType = BeanToManyUtil.findCollectionElementType(field);
+        return elementType == null ? null : ParameterValues.findArrayElementTypeName(elementType);
+    }
+
+    private static boolean isIntType(JDBCType jdbcType) {
+        return jdbcType == JDBCType.INTEGER || jdbcType == JDBCType.SMALLINT || jdbcType == JDBCType.TINYINT;
+    }
+
+    private static boolean isDoubleType(JDBCType jdbcType) {
+        return jdbcType == JDBCType.DOUBLE || jdbcType == JDBCType.FLOAT;
+    }
+
+    private static boolean isBooleanType(JDBCType jdbcType) {
+        return jdbcType == JDBCType.BOOLEAN || jdbcType == JDBCType.BIT;
+    }
+
+    private static boolean isStringType(JDBCType jdbcType) {
+        return jdbcType == JDBCType.VARCHAR || jdbcType == JDBCType.CHAR || jdbcType == JDBCType.LONGVARCHAR;
+    }
+
+    @FunctionalInterface
+    public interface ParameterSetter {
+        void set(PreparedStatement statement, int parameterIndex, Object object) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface ValueSetter {
+        void set(PreparedStatement statement, int parameterIndex, Object val, int sqlType) throws SQLException;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.exception.JDBCBeanException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Bind parameter values needing a conversion, the counterpart of {@link ColumnValues}.
+ * <br/>
+ * Used by generated parameter binders (see {@link ParameterBinder}) and {@link ParameterSetters}.
+ */
+public final class ParameterValues {
+
+    private ParameterValues() {
+    }
+
+    /**
+     * Bind an {@code int[]}, {@code long[]}, {@code Object[]} or {@link Collection} as an SQL ARRAY
+     * created by {@link java.sql.Connection#createArrayOf}, or NULL.
+     *
+     * @param elementTypeName SQL type name of the elements, see {@link #getArrayElementTypeName(Class)}
+     */
+    public static void setArray(
+        PreparedStatement statement,
+        int parameterIndex,
+        String elementTypeName,
+        @Nullable Object value
+    ) throws SQLException {
+        if (value == null) {
+            statement.setNull(parameterIndex, JDBCType.ARRAY.getVendorTypeNumber());
+            return;
+        }
+        Array array = statement.getConnection().createArrayOf(elementTypeName, toObjectArray(value));
+        statement.setArray(parameterIndex, array);
+    }
+
+    private static Object[] toObjectArray(Object value) {
+        if (value instanceof Object[] objects) return objects;
+        if (value instanceof Collection<?> collection) return collection.toArray();
+        if (value instanceof int[] ints) {
+            Object[] output = new Object[ints.length];
+            for (int i = 0; i < ints.length; i++) output[i] = ints[i];
+            return output;
+        }
+        if (value instanceof long[] longs) {
+            Object[] output = new Object[longs.length];
+            for (int i = 0; i < longs.length; i++) output[i] = longs[i];
+            return output;
+        }
+        throw new JDBCBeanException(String.format("Can't bind %s as an SQL ARRAY", value.getClass().getName()));
+    }
+
+    /**
+     * @return SQL type name of the elements of an ARRAY holding {@code elementType} values
+     */
+    public static @NotNull String getArrayElementTypeName(@NotNull Class<?> elementType) {
+        String output = findArrayElementTypeName(elementType);
+        if (output == null) {
+            throw new JDBCBeanException(String.format("Unsupported ARRAY element type %s", elementType.getName()));
+        }
+        return output;
+    }
+
+    /**
+     * @return SQL type name of the elements of an ARRAY holding {@code elementType} values, null if unsupported
+     */
+    static @Nullable String findArrayElementTypeName(@NotNull Class<?> elementType) {
+        if (elementType == int.class || elementType == Integer.class) return JDBCType.INTEGER.getName();
+        if (elementType == long.class || elementType == Long.class) return JDBCType.BIGINT.getName();
+        if (elementType == short.class || elementType == Short.class) return JDBCType.SMALLINT.getName();
+        if (elementType == double.class || elementType == Double.class) return JDBCType.DOUBLE.getName();
+        if (elementType == boolean.class || elementType == Boolean.class) return JDBCType.BOOLEAN.getName();
+        if (elementType == String.class) return JDBCType.VARCHAR.getName();
+        if (elementType == BigDecimal.class) return JDBCType.NUMERIC.getName();
+        return null;
+    }
+}
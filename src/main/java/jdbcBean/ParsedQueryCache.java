@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+/**
+ * Cache of parsed named parameter queries, shared by every {@link NPPreparedStatement} and
+ * {@link NPCallableStatement} created with SQL parsing cache enabled (the default).
+ * <br/>
+ * The cache is bounded: when it's full, the least recently used queries are evicted first.
+ * Queries built dynamically (for example with values concatenated into the SQL) should be created with
+ * SQL parsing cache disabled, so they don't evict the frequently used ones.
+ */
+public final class ParsedQueryCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private ParsedQueryCache() {
+    }
+
+    /**
+     * @param maxSize maximum number of parsed queries kept, 0 to disable caching
+     */
+    public static void setMaxSize(int maxSize) {
+        QueryParser.cachedParamMap.setMaxSize(maxSize);
+    }
+
+    public static int getMaxSize() {
+        return QueryParser.cachedParamMap.getMaxSize();
+    }
+
+    public static CacheStats getStats() {
+        return QueryParser.cachedParamMap.getStats();
+    }
+
+    public static void clear() {
+        QueryParser.cachedParamMap.clear();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.exception.JDBCBeanException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Run statements off the calling thread, see {@link NPPreparedStatement#executeAsync(QueryExecutor)}.
+ * <br/>
+ * Statements run on virtual threads when the JVM supports them (Java 21+), on a fixed pool of
+ * {@code maxConcurrentQueries} daemon threads otherwise. At most {@code maxConcurrentQueries} statements run at once,
+ * which should be the size of the connection pool: the other ones wait for a permit.
+ * <br/>
+ * Cancelling a returned future calls {@link Statement#cancel()}, so the database stops working on an abandoned query.
+ */
+public class QueryExecutor implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_CONCURRENT_QUERIES = 10;
+
+    private static volatile QueryExecutor defaultExecutor;
+
+    private final ExecutorService executorService;
+    private final Semaphore permits;
+
+    public QueryExecutor(int maxConcurrentQueries) {
+        if (maxConcurrentQueries <= 0) {
+            throw new JDBCBeanException(String.format("Invalid maximum number of concurrent queries %s", maxConcurrentQueries));
+        }
+        this.permits = new Semaphore(maxConcurrentQueries, true);
+        ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+        this.executorService = virtualThreadExecutor != null ?
+            virtualThreadExecutor :
+            Executors.newFixedThreadPool(maxConcurrentQueries, runnable -> {
+                Thread thread = new Thread(runnable, "jdbcBean-query");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * @return the executor used by the async methods without executor parameter,
+     *      created with {@link #DEFAULT_MAX_CONCURRENT_QUERIES} on first use
+     */
+    public static QueryExecutor getDefault() {
+        QueryExecutor executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (QueryExecutor.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    executor = new QueryExecutor(DEFAULT_MAX_CONCURRENT_QUERIES);
+                    defaultExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Replace the default executor, the previous one isn't closed.
+     */
+    public static void setDefault(@NotNull QueryExecutor executor) {
+        defaultExecutor = executor;
+    }
+
+    /**
+     * Run {@code task} once a permit is available.
+     *
+     * @param statement the statement used by {@code task}, cancelled when the returned future is cancelled
+     * @param task any non {@link SQLException} exception thrown is wrapped in {@link JDBCBeanException}
+     */
+    public <T> CompletableFuture<T> submit(@NotNull Statement statement, @NotNull StatementTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((result, throwable) -> {
+            if (throwable instanceof CancellationException) {
+                try {
+                    statement.cancel();
+                }
+                catch (SQLException ignored) {
+                    // the statement may be closed or already done
+                }
+            }
+        });
+
+        executorService.execute(() -> {
+            try {
+                permits.acquire();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+                return;
+            }
+            try {
+                // don't start a query cancelled while waiting for a permit
+                if (future.isDone()) return;
+                future.complete(task.exec());
+            }
+            catch (SQLException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            catch (Exception e) {
+                future.completeExceptionally(new JDBCBeanException(e));
+            }
+            finally {
+                permits.release();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * @return number of statements that may start now
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Stop accepting statements, the submitted ones still run.
+     */
+    @Override
+    public void close() {
+        executorService.shutdown();
+    }
+
+    /**
+     * @return {@code Executors.newVirtualThreadPerTaskExecutor()} on Java 21+, null before
+     */
+    private static @Nullable ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }
+        catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    public interface StatementTask<T> {
+        T exec() throws Exception;
+    }
+}
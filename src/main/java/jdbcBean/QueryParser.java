@@ -27,61 +27,161 @@ package jdbcBean;
 
 
 import jdbcBean.exception.JDBCBeanException;
-import lombok.val;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.Map;
 
+/**
+ * Translate named parameter queries to JDBC queries.
+ * <br/>
+ * {@code :name} is replaced by {@code ?} everywhere except inside string literals, quoted identifiers,
+ * {@code --} and {@code /* *}{@code /} comments and Postgres dollar-quoted blocks ({@code $$...$$}, {@code $tag$...$tag$}),
+ * which are copied unchanged. Postgres casts ({@code ::}) aren't parameters either.
+ * A name may appear several times, every position is bound with the same value.
+ */
 class QueryParser {
     private static final char paramCharacter = ':';
-    private static final Map<String, MappedQuery> cachedParamMap = new Hashtable<>();
+    static final BoundedCache<String, MappedQuery> cachedParamMap =
+        new BoundedCache<>(ParsedQueryCache.DEFAULT_MAX_SIZE, null);
 
     public static MappedQuery parseNPSql(String rawSqlText) {
         return parseNPSql(rawSqlText, true);
     }
 
     public static MappedQuery parseNPSql(String rawSqlText, boolean useCache) {
-        if (useCache && cachedParamMap.containsKey(rawSqlText)) {
-            return cachedParamMap.get(rawSqlText);
+        if (useCache) {
+            MappedQuery cachedResult = cachedParamMap.get(rawSqlText);
+            if (cachedResult != null) return cachedResult;
         }
-        
-        val translatedQuery = new StringBuilder();
+
+        char[] sql = rawSqlText.toCharArray();
+        StringBuilder translatedQuery = new StringBuilder(sql.length);
+        Map<String, int[]> paramsMap = new HashMap<>();
+        int[] placeholderOffsets = new int[8];
         int paramIndex = 1;
-        val paramsMap = new HashMap<String, Integer>();
 
+        // start of the text not copied to translatedQuery yet
+        int copyStart = 0;
         int i = 0;
 
-        while (i < rawSqlText.length()) {
-            if (rawSqlText.charAt(i) == '?') {
+        while (i < sql.length) {
+            char c = sql[i];
+            if (c == '\'' || c == '"') {
+                i = skipQuoted(sql, i, c);
+            } else if (c == '-' && i + 1 < sql.length && sql[i + 1] == '-') {
+                i = skipLineComment(sql, i);
+            } else if (c == '/' && i + 1 < sql.length && sql[i + 1] == '*') {
+                i = skipBlockComment(sql, i);
+            } else if (c == '$' && (i == 0 || !Character.isJavaIdentifierPart(sql[i - 1]))) {
+                i = skipDollarQuoted(sql, i);
+            } else if (c == '?') {
                 throw new JDBCBeanException("Don't use JDBC's parameter character '?' inside a named parameter query");
-            } else if (rawSqlText.charAt(i) == paramCharacter) {
-                if (i + 1 < rawSqlText.length() && Character.isJavaIdentifierStart(rawSqlText.charAt(i + 1))) {
-                    i++;
-
-                    StringBuilder paramName = new StringBuilder();
-                    paramName.append(rawSqlText.charAt(i));
-
+            } else if (c == paramCharacter) {
+                if (i + 1 < sql.length && sql[i + 1] == paramCharacter) {
+                    // Postgres cast
+                    i += 2;
+                } else if (i + 1 < sql.length && Character.isJavaIdentifierStart(sql[i + 1])) {
+                    int nameStart = i + 1;
+                    int nameEnd = nameStart + 1;
                     //  loop until there is no next char or next char is not a java identifier char
-                    while (i + 1 < rawSqlText.length() && Character.isJavaIdentifierPart(rawSqlText.charAt(i + 1))) {
-                        i++;
-                        paramName.append(rawSqlText.charAt(i));
+                    while (nameEnd < sql.length && Character.isJavaIdentifierPart(sql[nameEnd])) {
+                        nameEnd++;
                     }
-                    paramsMap.put(paramName.toString(), paramIndex);
-                    paramIndex++;
-                    i++;
+
+                    translatedQuery.append(sql, copyStart, i - copyStart);
+                    if (paramIndex > placeholderOffsets.length) {
+                        placeholderOffsets = Arrays.copyOf(placeholderOffsets, placeholderOffsets.length * 2);
+                    }
+                    placeholderOffsets[paramIndex - 1] = translatedQuery.length();
                     translatedQuery.append('?');
+                    addParamIndex(paramsMap, new String(sql, nameStart, nameEnd - nameStart), paramIndex);
+                    paramIndex++;
+                    i = nameEnd;
+                    copyStart = nameEnd;
                 } else throw new JDBCBeanException("Dangling param starter");
             } else {
-                translatedQuery.append(rawSqlText.charAt(i));
                 i++;
             }
         }
+        translatedQuery.append(sql, copyStart, sql.length - copyStart);
 
-        MappedQuery mappedQuery = new MappedQuery(translatedQuery.toString(), paramsMap);
+        MappedQuery mappedQuery = new MappedQuery(
+            translatedQuery.toString(), paramsMap, Arrays.copyOf(placeholderOffsets, paramIndex - 1)
+        );
         if (useCache) {
             cachedParamMap.put(rawSqlText, mappedQuery);
         }
         return mappedQuery;
     }
+
+    private static void addParamIndex(Map<String, int[]> paramsMap, String paramName, int paramIndex) {
+        int[] indexes = paramsMap.get(paramName);
+        if (indexes == null) {
+            paramsMap.put(paramName, new int[]{paramIndex});
+        } else {
+            indexes = Arrays.copyOf(indexes, indexes.length + 1);
+            indexes[indexes.length - 1] = paramIndex;
+            paramsMap.put(paramName, indexes);
+        }
+    }
+
+    /**
+     * Skip a string literal or a quoted identifier, the quote character is escaped by doubling it.
+     *
+     * @return index after the closing quote
+     */
+    private static int skipQuoted(char[] sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length) {
+            if (sql[i] == quote) {
+                if (i + 1 < sql.length && sql[i + 1] == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        throw new JDBCBeanException(String.format("Unterminated %s starting at %d", quote == '"' ? "quoted identifier" : "string literal", start));
+    }
+
+    private static int skipLineComment(char[] sql, int start) {
+        int i = start + 2;
+        while (i < sql.length && sql[i] != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipBlockComment(char[] sql, int start) {
+        for (int i = start + 2; i + 1 < sql.length; i++) {
+            if (sql[i] == '*' && sql[i + 1] == '/') return i + 2;
+        }
+        throw new JDBCBeanException(String.format("Unterminated comment starting at %d", start));
+    }
+
+    /**
+     * Skip a Postgres dollar-quoted block. A '$' that doesn't start a tag (like {@code $1}) is skipped alone.
+     *
+     * @return index after the closing tag
+     */
+    private static int skipDollarQuoted(char[] sql, int start) {
+        int tagEnd = start + 1;
+        if (tagEnd < sql.length && Character.isJavaIdentifierStart(sql[tagEnd]) && sql[tagEnd] != '$') {
+            tagEnd++;
+            while (tagEnd < sql.length && Character.isJavaIdentifierPart(sql[tagEnd]) && sql[tagEnd] != '$') {
+                tagEnd++;
+            }
+        }
+        if (tagEnd >= sql.length || sql[tagEnd] != '$') return start + 1;
+
+        int tagLength = tagEnd - start + 1;
+        for (int i = tagEnd + 1; i + tagLength <= sql.length; i++) {
+            if (sql[i] == '$' && Arrays.equals(sql, i, i + tagLength, sql, start, tagEnd + 1)) {
+                return i + tagLength;
+            }
+        }
+        throw new JDBCBeanException(String.format("Unterminated dollar-quoted block starting at %d", start));
+    }
 }
@@ -29,13 +29,38 @@ import jdbcBean.exception.JDBCBeanException;
 import org.jetbrains.annotations.Nullable;
 
 import static jdbcBean.BeanUtil.*;
-import static jdbcBean.BeanToManyUtil.*;
+import static jdbcBean.RowMappingPlan.*;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 import jdbcBean.annotation.*;
 
-public record Result2Bean(ResultSet resultSet) implements AutoCloseable {
+/**
+ * Convert {@link ResultSet} to Java Beans.
+ *
+ * @param resultSet the wrapped {@link ResultSet}
+ * @param mappedQuery
+ *      query that produced {@code resultSet}. If not null, column indexes resolved for a Java Bean class
+ *      are cached in it and reused by later result sets of the same query.
+ * @param resultIndex index of {@code resultSet} among the results of the query, when it returns several
+ */
+public record Result2Bean(ResultSet resultSet, @Nullable MappedQuery mappedQuery, int resultIndex) implements AutoCloseable {
+
+    public Result2Bean(ResultSet resultSet) {
+        this(resultSet, null, 0);
+    }
+
+    public Result2Bean(ResultSet resultSet, @Nullable MappedQuery mappedQuery) {
+        this(resultSet, mappedQuery, 0);
+    }
+
+    @Nullable PlanCache planCache() {
+        return mappedQuery == null ? null : mappedQuery.getRowPlanCache(resultIndex);
+    }
 
     @Override
     public void close() throws Exception {
@@ -67,82 +92,83 @@ public record Result2Bean(ResultSet resultSet) implements AutoCloseable {
      * @throws SQLException thrown by JDBC
      */
     public <T> List<T> getList(Class<T> clazz) throws SQLException {
-
-        List<DeepAnnotationInfo> annotationInfoList = getDeepToManyInfo(clazz);
         List<T> outputList = new ArrayList<>();
-
-        if (annotationInfoList.size() == 1) {
-            try (resultSet) {
-                DeepAnnotationInfo annotationInfo = annotationInfoList.get(0);
-
-                while (resultSet.next()) {
-                    outputList.add(flatRowToObject(resultSet, annotationInfo.shallowInfo()));
-                }
-                return outputList;
-            }
-        }
-
-        try (resultSet) {
-            Object[] curFrontObjects = new Object[annotationInfoList.size()];
-            boolean[] equalStatuses = new boolean[annotationInfoList.size()];
-
-            while (resultSet.next()) {
-                // replace element of curRowObjects with elements from this row
-                // update equal statuses
-                for (int i = 0; i < curFrontObjects.length; i++) {
-
-                    DeepAnnotationInfo curInfo = annotationInfoList.get(i);
-                    Object newDistinctVal = resultSet.getObject(curInfo.distinctInfo().mappedInfo().finalizedName());
-
-                    equalStatuses[i] = Objects.equals(
-                        // the distinct field of new object
-                        newDistinctVal,
-                        // the distinct field of old object
-                        curFrontObjects[i] == null ? null : curInfo.distinctInfo().accessor().exec(curFrontObjects[i])
-                    );
-
-                    if (!equalStatuses[i]) {
-                        curFrontObjects[i] = newDistinctVal != null ?
-                            flatRowToObject(resultSet, curInfo.shallowInfo()) : null;
-                    }
-                }
-
-                for (int i = curFrontObjects.length - 1; i >= 1; i--) {
-                    if ((!equalStatuses[i] || !equalStatuses[i - 1])) {
-                        addToNestedCollection(annotationInfoList.get(i - 1), curFrontObjects[i - 1], curFrontObjects[i]);
-                    }
-                }
-                if (!equalStatuses[0]) {
-                    outputList.add((T) curFrontObjects[0]);
-                }
+        try (BeanIterator<T> iterator = new BeanIterator<>(resultSet, clazz, planCache())) {
+            while (iterator.advance()) {
+                outputList.add(iterator.take());
             }
-            return outputList;
         }
-        catch (ReflectiveOperationException e) {
-            throw new RuntimeException(e);
-        }
-
+        return outputList;
     }
 
+    /**
+     * Same as {@link #getList(Class)}, recording the values of every object in {@code tracker}
+     * to update only their changed columns later (see {@link ChangeTracker}).
+     *
+     * @param tracker tracker of the List element type
+     * @return A list of Java Bean
+     * @throws SQLException thrown by JDBC
+     */
+    public <T> List<T> getTrackedList(ChangeTracker<T> tracker) throws SQLException {
+        return tracker.trackAll(getList(tracker.getClazz()));
+    }
 
-    private void addToNestedCollection(DeepAnnotationInfo parentObjectInfo, Object parentObject, @Nullable Object objectToAdd)
-        throws ReflectiveOperationException {
-
-        ToManyInfo toManyInfo = parentObjectInfo.toManyInfo();
-        Object collection = toManyInfo.accessor().exec(parentObject);
-
-        if (collection == null) {
-            toManyInfo.deepSetter().exec(
-                parentObject,
-                toManyInfo.field().getType().cast(new ArrayList<>())
-            );
-        }
+    /**
+     * Same as {@link #getList(Class)}, but for {@link ToMany} the rows don't have to be ordered
+     * by the distinct columns (the query doesn't need {@code ORDER BY}).
+     * <br/>
+     * Objects are grouped by distinct value at each level: rows referring to the same distinct value share
+     * one instance, even under different parents. Top-level objects are returned in order of first appearance.
+     * The whole result is held in memory until the {@link ResultSet} is read.
+     *
+     * @param clazz List element type
+     * @return A list of Java Bean
+     * @throws SQLException thrown by JDBC
+     */
+    public <T> List<T> getGroupedList(Class<T> clazz) throws SQLException {
+        return BeanGroupingUtil.getGroupedList(resultSet, clazz, planCache());
+    }
 
-        if (objectToAdd != null) {
-            ((List<Object>) toManyInfo.accessor().exec(parentObject)).add(objectToAdd);
-        }
+    /**
+     * Get data from {@link ResultSet} as a lazy iterator of Java Bean. Rows are mapped on demand,
+     * so memory usage doesn't depend on the size of the result.
+     * <br/>
+     * For classes using {@link ToMany}, an object is returned as soon as the distinct value of the top-level
+     * object changes (the {@link ResultSet} must be ordered by the distinct columns, like {@link #getList(Class)}).
+     * <br/>
+     * The {@link ResultSet} is closed when the iterator reaches its end or is closed.
+     * {@link java.sql.SQLException} thrown during the iteration is wrapped in {@link JDBCBeanException}.
+     *
+     * @param clazz element type
+     */
+    public <T> CloseableIterator<T> iterator(Class<T> clazz) {
+        return new BeanIterator<>(resultSet, clazz, planCache());
+    }
 
+    /**
+     * Same as {@link #iterator(Class)} but as a sequential {@link Stream}.
+     * Close the stream (try-with-resources) to close the {@link ResultSet} when it isn't fully consumed.
+     *
+     * @param clazz element type
+     */
+    public <T> Stream<T> stream(Class<T> clazz) {
+        CloseableIterator<T> iterator = iterator(clazz);
+        return StreamSupport
+            .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+            .onClose(iterator::close);
+    }
 
+    /**
+     * Same as {@link #iterator(Class)} but as a {@link Flow.Publisher} accepting one subscriber.
+     * Rows are mapped only when the subscriber requests them, on the thread calling
+     * {@link Flow.Subscription#request(long)}: rows not requested yet stay in the driver's fetch buffer
+     * (see {@link NPPreparedStatement#setStreaming(int)}).
+     * The {@link ResultSet} is closed on completion, on error and on cancel.
+     *
+     * @param clazz element type
+     */
+    public <T> Flow.Publisher<T> publish(Class<T> clazz) {
+        return new BeanPublisher<>(() -> iterator(clazz), resultSet);
     }
 
     /**
@@ -154,36 +180,12 @@ public record Result2Bean(ResultSet resultSet) implements AutoCloseable {
     public <T> @Nullable T getFirst(Class<T> clazz) throws SQLException {
         try (resultSet) {
             if (resultSet.next()) {
-                return flatRowToObject(resultSet, getAnnotationInfo(clazz).shallowInfo());
-            }
-            else return null;
-        }
-    }
-
-    private static <T> T flatRowToObject(ResultSet resultSet, ShallowAnnotationInfo annotationInfo) throws SQLException {
-        try {
-            T output = (T) annotationInfo.noArgsConstructor().newInstance();
-
-            for (MappedInfo mappedInfo : annotationInfo.mappedInfoList()) {
-                mappedInfo.setter().invoke(
-                    output,
-                    mappedInfo.field().getType().cast(
-                        resultSet.getObject(mappedInfo.finalizedName())
-                    )
+                return BeanIterator.flatRowToObject(
+                    resultSet,
+                    getPlan(resultSet, clazz, false, planCache()).root().objectPlan()
                 );
-
-            }
-
-            for (EmbeddedInfo embeddedField : annotationInfo.embeddedInfoList()) {
-                Object embeddedObject = flatRowToObject(resultSet, embeddedField.annotationInfo());
-                embeddedField.setter().invoke(output, embeddedObject);
             }
-
-            return output;
-        }
-        catch (ReflectiveOperationException e) {
-            throw new RuntimeException(e);
+            else return null;
         }
-
     }
 }
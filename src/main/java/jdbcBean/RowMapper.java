@@ -0,0 +1,50 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Map the current row of a {@link ResultSet} to a flat Java Bean
+ * (its {@link jdbcBean.annotation.Mapped} and {@link jdbcBean.annotation.Embedded} fields).
+ * {@link jdbcBean.annotation.ToMany} collections are assembled by {@link Result2Bean}.
+ *
+ * @param <T> Java Bean class
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * @param resultSet positioned on the row to map
+     * @param columnIndexes
+     *      column index of every {@link jdbcBean.annotation.Mapped} field, depth-first:
+     *      the mapped fields of the class (declared fields first, then superclasses' fields),
+     *      followed by the fields of each {@link jdbcBean.annotation.Embedded} object in the same order.
+     * @throws SQLException thrown by JDBC
+     */
+    T mapRow(ResultSet resultSet, int[] columnIndexes) throws SQLException;
+}
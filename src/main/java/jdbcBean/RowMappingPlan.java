@@ -0,0 +1,256 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static jdbcBean.BeanUtil.*;
+
+/**
+ * Column labels of a {@link ResultSet} resolved to column indexes for a Java Bean class.
+ * <br/>
+ * A plan is built from {@link ResultSetMetaData} when the first row is read.
+ * When the query of the {@link ResultSet} is known (the {@link ResultSet} comes from {@link NPPreparedStatement}
+ * or {@link NPCallableStatement}), the plan is cached in its {@link MappedQuery} per (result index, Java Bean class),
+ * so later executions of the same query skip the metadata step. Plans are released with the {@link MappedQuery}:
+ * when it's evicted from the parsed SQL cache, or with its statement when SQL parsing isn't cached.
+ */
+class RowMappingPlan {
+
+    @NotNull
+    private final List<LevelPlan> levels;
+
+    private RowMappingPlan(@NotNull List<LevelPlan> levels) {
+        this.levels = levels;
+    }
+
+    public @NotNull List<LevelPlan> levels() {
+        return levels;
+    }
+
+    public @NotNull LevelPlan root() {
+        return levels.get(0);
+    }
+
+    /**
+     * @param toMany
+     *      true to plan every to-many level (see {@link BeanToManyUtil#getDeepToManyInfo(Class)}),
+     *      false to plan only the flat object
+     * @param planCache plans of the query result that produced {@code resultSet}, null to not cache the plan
+     */
+    public static RowMappingPlan getPlan(
+        @NotNull ResultSet resultSet,
+        @NotNull Class<?> clazz,
+        boolean toMany,
+        @Nullable PlanCache planCache
+    ) throws SQLException {
+
+        @Nullable Map<Class<?>, RowMappingPlan> cachedPlans = null;
+        if (planCache != null) {
+            cachedPlans = toMany ? planCache.toManyPlans : planCache.flatPlans;
+            RowMappingPlan cachedResult = cachedPlans.get(clazz);
+            if (cachedResult != null) return cachedResult;
+        }
+
+        RowMappingPlan plan;
+        @Nullable RowMapper<Object> registeredMapper = MapperRegistry.getRowMapper(clazz);
+        if (registeredMapper instanceof GeneratedMapper<Object> generatedMapper
+            && !(toMany && generatedMapper.hasToMany())
+        ) {
+            plan = createGeneratedPlan(resultSet, generatedMapper);
+        }
+        else {
+            plan = createPlan(
+                resultSet,
+                toMany ? BeanToManyUtil.getDeepToManyInfo(clazz) : List.of(getAnnotationInfo(clazz))
+            );
+        }
+        if (cachedPlans == null) return plan;
+        cachedPlans.put(clazz, plan);
+        return plan;
+    }
+
+    private static RowMappingPlan createPlan(
+        ResultSet resultSet,
+        List<DeepAnnotationInfo> annotationInfoList
+    ) throws SQLException {
+
+        ColumnResolver columnResolver = new ColumnResolver(resultSet);
+        List<LevelPlan> levels = new ArrayList<>(annotationInfoList.size());
+
+        for (DeepAnnotationInfo annotationInfo : annotationInfoList) {
+            levels.add(new LevelPlan(
+                annotationInfo,
+                createObjectPlan(columnResolver, annotationInfo.shallowInfo(), true),
+                annotationInfo.distinctInfo() == null ?
+                    0 : columnResolver.resolve(annotationInfo.distinctInfo().mappedInfo().finalizedName())
+            ));
+        }
+        return new RowMappingPlan(Collections.unmodifiableList(levels));
+    }
+
+    /**
+     * Plan for a flat class with a mapper generated by the annotation processor: no reflection is needed.
+     */
+    private static RowMappingPlan createGeneratedPlan(
+        ResultSet resultSet,
+        GeneratedMapper<Object> generatedMapper
+    ) throws SQLException {
+
+        ColumnResolver columnResolver = new ColumnResolver(resultSet);
+        String[] mappedNames = generatedMapper.mappedNames();
+        int[] flatColumnIndexes = new int[mappedNames.length];
+        for (int i = 0; i < mappedNames.length; i++) {
+            flatColumnIndexes[i] = columnResolver.resolve(mappedNames[i]);
+        }
+
+        ObjectPlan objectPlan = new ObjectPlan(
+            null,
+            new MappedInfo[0],
+            new int[0],
+            new EmbeddedInfo[0],
+            new ObjectPlan[0],
+            flatColumnIndexes,
+            generatedMapper
+        );
+        return new RowMappingPlan(List.of(new LevelPlan(null, objectPlan, 0)));
+    }
+
+    private static ObjectPlan createObjectPlan(
+        ColumnResolver columnResolver,
+        ShallowAnnotationInfo annotationInfo,
+        boolean isRoot
+    ) throws SQLException {
+
+        MappedInfo[] mappedInfos = annotationInfo.mappedInfoList().toArray(new MappedInfo[0]);
+        int[] columnIndexes = new int[mappedInfos.length];
+        for (int i = 0; i < mappedInfos.length; i++) {
+            columnIndexes[i] = columnResolver.resolve(mappedInfos[i].finalizedName());
+        }
+
+        EmbeddedInfo[] embeddedInfos = annotationInfo.embeddedInfoList().toArray(new EmbeddedInfo[0]);
+        ObjectPlan[] embeddedPlans = new ObjectPlan[embeddedInfos.length];
+        for (int i = 0; i < embeddedInfos.length; i++) {
+            embeddedPlans[i] = createObjectPlan(columnResolver, embeddedInfos[i].annotationInfo(), false);
+        }
+
+        int[] flatColumnIndexes = columnIndexes;
+        for (ObjectPlan embeddedPlan : embeddedPlans) {
+            int[] newFlatColumnIndexes = Arrays.copyOf(
+                flatColumnIndexes, flatColumnIndexes.length + embeddedPlan.flatColumnIndexes().length
+            );
+            System.arraycopy(
+                embeddedPlan.flatColumnIndexes(), 0,
+                newFlatColumnIndexes, flatColumnIndexes.length,
+                embeddedPlan.flatColumnIndexes().length
+            );
+            flatColumnIndexes = newFlatColumnIndexes;
+        }
+
+        return new ObjectPlan(
+            annotationInfo,
+            mappedInfos,
+            columnIndexes,
+            embeddedInfos,
+            embeddedPlans,
+            flatColumnIndexes,
+            isRoot ? getRootRowMapper(annotationInfo) : null
+        );
+    }
+
+    private static @Nullable RowMapper<Object> getRootRowMapper(ShallowAnnotationInfo annotationInfo) {
+        @Nullable RowMapper<Object> registeredMapper = MapperRegistry.getRowMapper(annotationInfo.clazz());
+        return registeredMapper != null ? registeredMapper : GeneratedRowMappers.getRowMapper(annotationInfo);
+    }
+
+    /**
+     * @param annotationInfo null if the plan uses a mapper generated by the annotation processor
+     * @param distinctColumnIndex 0 if the level doesn't have a distinct field
+     */
+    public record LevelPlan(
+        @Nullable DeepAnnotationInfo annotationInfo,
+        @NotNull ObjectPlan objectPlan,
+        int distinctColumnIndex
+    ) {
+    }
+
+    /**
+     * {@code columnIndexes[i]} is the column index of {@code mappedInfos[i]}.
+     * {@code flatColumnIndexes} is the column indexes of this object followed by those of the embedded objects,
+     * as expected by {@link RowMapper#mapRow}.
+     *
+     * @param annotationInfo null if the plan uses a mapper generated by the annotation processor
+     * @param rowMapper registered or generated mapper of a top-level object, null to use the default mapping
+     */
+    public record ObjectPlan(
+        @Nullable ShallowAnnotationInfo annotationInfo,
+        @NotNull MappedInfo[] mappedInfos,
+        int @NotNull [] columnIndexes,
+        @NotNull EmbeddedInfo[] embeddedInfos,
+        @NotNull ObjectPlan[] embeddedPlans,
+        int @NotNull [] flatColumnIndexes,
+        @Nullable RowMapper<Object> rowMapper
+    ) {
+    }
+
+    /**
+     * Plans of one result of a query, see {@link MappedQuery#getRowPlanCache(int)}
+     */
+    static final class PlanCache {
+        private final Map<Class<?>, RowMappingPlan> flatPlans = new ConcurrentHashMap<>();
+        private final Map<Class<?>, RowMappingPlan> toManyPlans = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Resolve column labels case-insensitively like {@link ResultSet#findColumn(String)},
+     * but scan {@link ResultSetMetaData} only once.
+     */
+    private static class ColumnResolver {
+        private final ResultSet resultSet;
+        private final Map<String, Integer> columnIndexes = new HashMap<>();
+
+        ColumnResolver(ResultSet resultSet) throws SQLException {
+            this.resultSet = resultSet;
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columnIndexes.putIfAbsent(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        int resolve(String columnLabel) throws SQLException {
+            Integer index = columnIndexes.get(columnLabel.toLowerCase(Locale.ROOT));
+            // let the driver report the missing column
+            return index != null ? index : resultSet.findColumn(columnLabel);
+        }
+    }
+}
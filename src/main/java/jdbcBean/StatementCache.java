@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keep prepared statements open to reuse them, for drivers or pools without their own statement cache.
+ * Example:
+ * <pre>{@code
+ * StatementCache statementCache = new StatementCache(100);
+ *
+ * try (NPPreparedStatement statement = statementCache.prepare("SELECT * FROM comment WHERE id = :id", connection)) {
+ *      Comment comment = statement.setObject("id", 1).execute().getFirst(Comment.class);
+ * }
+ * }</pre>
+ * Statements are cached per connection and translated SQL. Closing an {@link NPPreparedStatement}
+ * handed out by {@link #prepare(String, Connection)} clears its parameters and batch and returns it to the cache
+ * instead of closing it. When a connection holds more than {@code maxStatementsPerConnection} idle statements,
+ * the least recently used ones are closed.
+ * <br/>
+ * Statements of a connection are closed by {@link #evict(Connection)}, which should be called before closing
+ * the connection. Entries of connections closed without it are removed on the next cache miss.
+ */
+public class StatementCache {
+
+    private final int maxStatementsPerConnection;
+    private final Map<Connection, BoundedCache<String, PreparedStatement>> connectionCaches = new ConcurrentHashMap<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param maxStatementsPerConnection maximum number of idle statements kept open per connection
+     */
+    public StatementCache(int maxStatementsPerConnection) {
+        if (maxStatementsPerConnection < 0) {
+            throw new IllegalArgumentException("Invalid maximum number of statements " + maxStatementsPerConnection);
+        }
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    /**
+     * Same as {@link NPPreparedStatement#NPPreparedStatement(String, Connection)},
+     * reusing an idle statement of the connection when there is one.
+     */
+    public NPPreparedStatement prepare(@NotNull String npSqlString, @NotNull Connection connection)
+        throws SQLException {
+        MappedQuery mappedQuery = QueryParser.parseNPSql(npSqlString);
+
+        BoundedCache<String, PreparedStatement> connectionCache = connectionCaches.get(connection);
+        PreparedStatement statement = connectionCache == null ?
+            null : connectionCache.remove(mappedQuery.getTranslatedQuery());
+        if (statement != null) {
+            hitCount.increment();
+        }
+        else {
+            missCount.increment();
+            evictClosedConnections();
+            statement = connection.prepareStatement(mappedQuery.getTranslatedQuery());
+        }
+        return new NPPreparedStatement(mappedQuery, statement, connection, this::release);
+    }
+
+    /**
+     * Reset the parameters and the batch of the statement and keep it for the next {@link #prepare(String, Connection)}.
+     */
+    private void release(@NotNull NPPreparedStatement handle) throws SQLException {
+        PreparedStatement statement = handle.getStatement();
+        String translatedQuery = handle.getMappedQuery().getTranslatedQuery();
+        statement.clearParameters();
+        statement.clearBatch();
+
+        Connection connection = statement.getConnection();
+        if (connection.isClosed()) {
+            evict(connection);
+            return;
+        }
+
+        BoundedCache<String, PreparedStatement> connectionCache = connectionCaches.get(connection);
+        if (connectionCache == null) {
+            connectionCache = new BoundedCache<>(maxStatementsPerConnection, (sql, evictedStatement) -> {
+                evictionCount.increment();
+                closeQuietly(evictedStatement);
+            });
+            BoundedCache<String, PreparedStatement> previous = connectionCaches.putIfAbsent(connection, connectionCache);
+            if (previous != null) connectionCache = previous;
+        }
+
+        // several handles of the same query were used at once, only one statement is kept
+        PreparedStatement previousStatement = connectionCache.remove(translatedQuery);
+        if (previousStatement != null) closeQuietly(previousStatement);
+        connectionCache.put(translatedQuery, statement);
+    }
+
+    /**
+     * Close every idle statement of {@code connection}.
+     */
+    public void evict(@NotNull Connection connection) {
+        BoundedCache<String, PreparedStatement> connectionCache = connectionCaches.remove(connection);
+        if (connectionCache != null) closeAll(connectionCache);
+    }
+
+    /**
+     * Close every idle statement.
+     */
+    public void clear() {
+        for (Connection connection : connectionCaches.keySet()) {
+            evict(connection);
+        }
+    }
+
+    /**
+     * @return hits and misses of {@link #prepare(String, Connection)}, statements closed to respect
+     *      the per-connection limit and number of idle statements
+     */
+    public CacheStats getStats() {
+        int size = 0;
+        for (BoundedCache<String, PreparedStatement> connectionCache : connectionCaches.values()) {
+            size += connectionCache.size();
+        }
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), size);
+    }
+
+    private void evictClosedConnections() {
+        for (Connection connection : connectionCaches.keySet()) {
+            try {
+                if (connection.isClosed()) evict(connection);
+            }
+            catch (SQLException e) {
+                evict(connection);
+            }
+        }
+    }
+
+    private static void closeAll(BoundedCache<String, PreparedStatement> connectionCache) {
+        connectionCache.forEachValue(StatementCache::closeQuietly);
+        connectionCache.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        }
+        catch (SQLException ignored) {
+            // the statement can't be reused anyway
+        }
+    }
+}
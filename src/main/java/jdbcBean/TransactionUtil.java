@@ -25,13 +25,26 @@
 
 package jdbcBean;
 
+import jdbcBean.exception.JDBCBeanException;
+import org.jetbrains.annotations.NotNull;
+
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class TransactionUtil {
 
+    // rollback (40000), serialization failure (40001) and deadlock (40P01), unlike 40002 (integrity constraint
+    // violation, fails again) and 40003 (statement completion unknown, may be committed already)
+    private static final Set<String> RETRYABLE_SQL_STATES = Set.of("40000", "40001", "40P01");
+
     /**
      *  A convenient method to wrap a transaction inside a lambda.
+     *  The transaction is rolled back if the lambda throws, and the auto-commit setting and the isolation level
+     *  of the connection are restored in any case.
      * @param isolationLevel
      *      one of the isolation level declared in {@link Connection} (example: {@link Connection#TRANSACTION_READ_COMMITTED})
      * @param connection The database connection
@@ -51,22 +64,190 @@ public class TransactionUtil {
 
         connection.setTransactionIsolation(isolationLevel);
         connection.setAutoCommit(false);
+        try {
+            runAndCommit(connection, runnableTransaction);
+        }
+        finally {
+            connection.setAutoCommit(oldAutoCommitSetting);
+            connection.setTransactionIsolation(oldIsolationLevel);
+        }
+    }
+
+    /**
+     * Same as {@link #runTransaction(int, Connection, RunnableTransaction)}, but a transaction failing with a
+     * retryable error (see {@link #isRetryable(Throwable)}) is rolled back and run again after a random delay,
+     * up to {@link RetryPolicy#maxRetries()} times. The lambda must be safe to run several times.
+     *
+     * @return number of retries and time spent, to monitor contention
+     * @throws SQLException the last error when retries are exhausted, or the first non retryable one
+     */
+    public static TransactionStats runTransaction(
+        int isolationLevel,
+        Connection connection,
+        @NotNull RetryPolicy retryPolicy,
+        RunnableTransaction runnableTransaction
+    ) throws SQLException {
+        long startTime = System.nanoTime();
+        long backoffNanos = 0;
+        int retryCount = 0;
+
+        int oldIsolationLevel = connection.getTransactionIsolation();
+        boolean oldAutoCommitSetting = connection.getAutoCommit();
+
+        connection.setTransactionIsolation(isolationLevel);
+        connection.setAutoCommit(false);
+        try {
+            while (true) {
+                try {
+                    runAndCommit(connection, runnableTransaction);
+                    return new TransactionStats(retryCount, backoffNanos, System.nanoTime() - startTime);
+                }
+                catch (SQLException | RuntimeException e) {
+                    if (retryCount >= retryPolicy.maxRetries() || !isRetryable(e)) throw e;
+
+                    long delayNanos = retryPolicy.getBackoffNanos(retryCount);
+                    retryCount++;
+                    try {
+                        Thread.sleep(delayNanos / 1_000_000, (int) (delayNanos % 1_000_000));
+                    }
+                    catch (InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                    backoffNanos += delayNanos;
+                }
+            }
+        }
+        finally {
+            connection.setAutoCommit(oldAutoCommitSetting);
+            connection.setTransactionIsolation(oldIsolationLevel);
+        }
+    }
+
+    /**
+     * Same as {@link #runTransaction(int, Connection, RunnableTransaction)}, the lambda receiving a {@link TxContext}
+     * which reuses statements during the transaction and sends its pending batches before the commit.
+     */
+    public static void runTransactionWithContext(
+        int isolationLevel,
+        Connection connection,
+        ContextTransaction contextTransaction
+    ) throws SQLException {
+        runTransaction(isolationLevel, connection, withContext(contextTransaction));
+    }
+
+    /**
+     * Same as {@link #runTransaction(int, Connection, RetryPolicy, RunnableTransaction)}, the lambda receiving
+     * a new {@link TxContext} for every attempt.
+     */
+    public static TransactionStats runTransactionWithContext(
+        int isolationLevel,
+        Connection connection,
+        @NotNull RetryPolicy retryPolicy,
+        ContextTransaction contextTransaction
+    ) throws SQLException {
+        return runTransaction(isolationLevel, connection, retryPolicy, withContext(contextTransaction));
+    }
+
+    private static RunnableTransaction withContext(ContextTransaction contextTransaction) {
+        return connection -> {
+            try (TxContext context = new TxContext(connection)) {
+                contextTransaction.exec(context);
+                context.flushBatches();
+            }
+        };
+    }
+
+    /**
+     * @return true if {@code throwable} or one of its causes is a transaction rollback error after which the
+     *      transaction can be run again: SQLState 40000 (rollback), 40001 (serialization failure), 40P01 (deadlock),
+     *      or a {@link SQLTransactionRollbackException} without SQLState
+     */
+    public static boolean isRetryable(Throwable throwable) {
+        for (Throwable current = throwable; current != null; current = current.getCause()) {
+            if (current instanceof SQLException sqlException) {
+                for (SQLException next = sqlException; next != null; next = next.getNextException()) {
+                    String sqlState = next.getSQLState();
+                    if (sqlState != null ?
+                        RETRYABLE_SQL_STATES.contains(sqlState) :
+                        next instanceof SQLTransactionRollbackException
+                    ) return true;
+                }
+            }
+            if (current.getCause() == current) break;
+        }
+        return false;
+    }
+
+    private static void runAndCommit(Connection connection, RunnableTransaction runnableTransaction) throws SQLException {
         try {
             runnableTransaction.exec(connection);
+            connection.commit();
         }
-        catch (SQLException e) {
+        catch (SQLException | RuntimeException e) {
+            rollback(connection, e);
             throw e;
         }
         catch (Exception e) {
+            rollback(connection, e);
             throw new RuntimeException(e);
         }
-        connection.commit();
+    }
 
-        connection.setAutoCommit(oldAutoCommitSetting);
-        connection.setTransactionIsolation(oldIsolationLevel);
+    private static void rollback(Connection connection, Exception cause) {
+        try {
+            connection.rollback();
+        }
+        catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
     }
 
     public interface RunnableTransaction {
         void exec(Connection connection) throws Exception;
     }
+
+    public interface ContextTransaction {
+        void exec(TxContext context) throws Exception;
+    }
+
+    /**
+     * Retries of {@link #runTransaction(int, Connection, RetryPolicy, RunnableTransaction)}.
+     * The n-th retry (from 0) waits a random delay between 0 and min(maxBackoff, initialBackoff * 2^n).
+     */
+    public record RetryPolicy(int maxRetries, @NotNull Duration initialBackoff, @NotNull Duration maxBackoff) {
+
+        public RetryPolicy {
+            if (maxRetries < 0 || initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+                throw new JDBCBeanException(String.format(
+                    "Invalid retry policy: %s retries, backoff from %s to %s", maxRetries, initialBackoff, maxBackoff
+                ));
+            }
+        }
+
+        /**
+         * @return 5 retries, backoff from 10ms to 1s
+         */
+        public static RetryPolicy defaultPolicy() {
+            return new RetryPolicy(5, Duration.ofMillis(10), Duration.ofSeconds(1));
+        }
+
+        long getBackoffNanos(int retryIndex) {
+            long maxNanos = maxBackoff.toNanos();
+            long initialNanos = initialBackoff.toNanos();
+            // initialNanos << retryIndex without overflow
+            long backoffNanos = retryIndex >= 62 || initialNanos > maxNanos >> retryIndex ?
+                maxNanos :
+                initialNanos << retryIndex;
+            return backoffNanos == 0 ? 0 : ThreadLocalRandom.current().nextLong(backoffNanos + 1);
+        }
+    }
+
+    /**
+     * @param retryCount number of times the transaction was run again
+     * @param backoffNanos time spent waiting between attempts
+     * @param elapsedNanos total time, including failed attempts and waits
+     */
+    public record TransactionStats(int retryCount, long backoffNanos, long elapsedNanos) {
+    }
 }
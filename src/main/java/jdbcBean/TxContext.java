@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statements of a transaction run by {@link TransactionUtil#runTransactionWithContext}.
+ * <br/>
+ * {@link #prepare(String)} and {@link #batch(String)} return the same statement every time they are called
+ * with the same query, so a loop prepares each query once. The pending batches are sent before the commit,
+ * and every statement is closed when the transaction ends. Closing a statement returned by this context
+ * does nothing.
+ */
+public final class TxContext implements AutoCloseable {
+
+    @NotNull
+    private final Connection connection;
+    private final Map<String, NPPreparedStatement> statements = new HashMap<>();
+    // in creation order, to flush batches in the order their first row was added
+    private final Map<String, NPPreparedStatement> batches = new LinkedHashMap<>();
+
+    TxContext(@NotNull Connection connection) {
+        this.connection = connection;
+    }
+
+    public @NotNull Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * @return the statement of {@code npSqlString} in this transaction, prepared on the first call.
+     *      Its parameters keep their values from the previous use until they are set again
+     */
+    public NPPreparedStatement prepare(@NotNull String npSqlString) throws SQLException {
+        return getStatement(statements, npSqlString);
+    }
+
+    /**
+     * @return the statement used to batch writes of {@code npSqlString} in this transaction, prepared on the first call.
+     *      Add parameter sets with {@link NPPreparedStatement#addBatch(Object)}: they are sent by
+     *      {@link #flushBatches()}, at the latest before the commit.
+     *      Rows not sent yet aren't visible to the queries of {@link #prepare(String)}
+     */
+    public NPPreparedStatement batch(@NotNull String npSqlString) throws SQLException {
+        return getStatement(batches, npSqlString);
+    }
+
+    /**
+     * Send every pending batch, in the order the batch statements were created.
+     */
+    public void flushBatches() throws SQLException {
+        for (NPPreparedStatement batch : batches.values()) {
+            batch.executeBatch();
+        }
+    }
+
+    /**
+     * Close every statement of this context, pending batches are discarded.
+     */
+    @Override
+    public void close() throws SQLException {
+        SQLException exception = null;
+        for (Map<String, NPPreparedStatement> statementMap : List.of(statements, batches)) {
+            for (NPPreparedStatement statement : statementMap.values()) {
+                try {
+                    statement.getStatement().close();
+                }
+                catch (SQLException e) {
+                    if (exception == null) exception = e;
+                    else exception.addSuppressed(e);
+                }
+            }
+            statementMap.clear();
+        }
+        if (exception != null) throw exception;
+    }
+
+    private NPPreparedStatement getStatement(Map<String, NPPreparedStatement> statementMap, String npSqlString)
+        throws SQLException {
+        NPPreparedStatement cachedResult = statementMap.get(npSqlString);
+        if (cachedResult != null) return cachedResult;
+
+        MappedQuery mappedQuery = QueryParser.parseNPSql(npSqlString);
+        PreparedStatement statement = connection.prepareStatement(mappedQuery.getTranslatedQuery());
+        // the statement stays open until the context is closed
+        NPPreparedStatement npStatement = new NPPreparedStatement(mappedQuery, statement, connection, released -> {});
+        statementMap.put(npSqlString, npStatement);
+        return npStatement;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.annotation.Embedded;
+import jdbcBean.annotation.Mapped;
+import jdbcBean.exception.JDBCBeanException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkWriterTest extends SharedDbContext {
+
+    public BulkWriterTest() throws Exception {
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BulkRow {
+        @Mapped(type = JDBCType.INTEGER, isDistinct = true)
+        private int id;
+        @Mapped(type = JDBCType.VARCHAR)
+        private String name;
+        @Mapped(type = JDBCType.BIGINT)
+        private Long score;
+    }
+
+    public record BulkName(
+        @Mapped(type = JDBCType.VARCHAR) String name
+    ) {
+    }
+
+    public record BulkRecord(
+        @Mapped(type = JDBCType.INTEGER) int id,
+        @Embedded BulkName name
+    ) {
+    }
+
+    @BeforeAll
+    void createTable() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("CREATE TABLE bulk_row (id INTEGER PRIMARY KEY, name VARCHAR(50), score BIGINT)");
+        }
+    }
+
+    @AfterAll
+    void dropTable() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("DROP TABLE bulk_row");
+        }
+    }
+
+    @BeforeEach
+    void clearTable() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("DELETE FROM bulk_row");
+        }
+    }
+
+    private List<BulkRow> getRows() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            ResultSet resultSet = statement.executeQuery("SELECT * FROM bulk_row ORDER BY id");
+            return new Result2Bean(resultSet).getList(BulkRow.class);
+        }
+    }
+
+    @Test
+    void testInsertAll() throws Exception {
+        BulkWriter<BulkRow> writer = new BulkWriter<>("bulk_row", BulkRow.class, 7);
+        assertEquals(List.of("id", "name", "score"), writer.getColumnNames());
+        assertEquals(2, writer.getRowsPerStatement());
+        assertEquals("INSERT INTO bulk_row (id, name, score) VALUES (?, ?, ?), (?, ?, ?)", writer.getInsertSql(2));
+
+        List<BulkRow> rows = IntStream.rangeClosed(1, 5)
+            .mapToObj(i -> new BulkRow(i, "row " + i, i % 2 == 0 ? null : (long) i * 10))
+            .toList();
+        assertEquals(5, writer.insertAll(commentsDb.getConnection(), rows.stream()));
+        assertEquals(rows, getRows());
+
+        assertEquals(0, writer.insertAll(commentsDb.getConnection(), List.of()));
+        assertThrows(
+            JDBCBeanException.class,
+            () -> writer.insertAll(commentsDb.getConnection(), Arrays.asList(new BulkRow(6, "row 6", null), null))
+        );
+    }
+
+    @Test
+    void testInsertEmbedded() throws Exception {
+        BulkWriter<BulkRecord> writer = new BulkWriter<>("bulk_row", BulkRecord.class);
+        assertEquals(List.of("id", "name"), writer.getColumnNames());
+        assertEquals(BulkWriter.DEFAULT_MAX_PARAMETERS / 2, writer.getRowsPerStatement());
+
+        List<BulkRecord> records = new ArrayList<>();
+        for (int i = 1; i <= writer.getRowsPerStatement() * 2 + 1; i++) {
+            records.add(new BulkRecord(i, new BulkName(i % 3 == 0 ? null : "record " + i)));
+        }
+        assertEquals(records.size(), writer.insertAll(commentsDb.getConnection(), records));
+
+        List<BulkRow> rows = getRows();
+        assertEquals(records.size(), rows.size());
+        assertEquals("record 1", rows.get(0).getName());
+        assertNull(rows.get(2).getName());
+        assertNull(rows.get(records.size() - 1).getScore());
+    }
+
+    @Test
+    void testUpsertAll() throws Exception {
+        BulkWriter<BulkRow> writer = new BulkWriter<>("bulk_row", BulkRow.class);
+        writer.insertAll(commentsDb.getConnection(), List.of(new BulkRow(1, "row 1", 10L), new BulkRow(2, "row 2", 20L)));
+
+        List<BulkRow> rows = List.of(new BulkRow(2, "updated 2", null), new BulkRow(3, "row 3", 30L));
+        assertEquals(BulkWriter.UpsertDialect.MERGE, BulkWriter.UpsertDialect.of(commentsDb.getConnection()));
+        assertEquals(2, writer.upsertAll(commentsDb.getConnection(), rows).length);
+        assertEquals(List.of(new BulkRow(1, "row 1", 10L), rows.get(0), rows.get(1)), getRows());
+
+        assertEquals(
+            "INSERT INTO bulk_row (id, name, score) VALUES (:id, :name, :score)"
+                + " ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, score = EXCLUDED.score",
+            writer.getUpsertNPSql(BulkWriter.UpsertDialect.ON_CONFLICT)
+        );
+        assertThrows(
+            JDBCBeanException.class,
+            () -> new BulkWriter<>("bulk_row", BulkRecord.class).upsertAll(commentsDb.getConnection(), List.of())
+        );
+    }
+
+    private static Connection productConnection(String productName) {
+        DatabaseMetaData metaData = (DatabaseMetaData) Proxy.newProxyInstance(
+            DatabaseMetaData.class.getClassLoader(), new Class<?>[]{DatabaseMetaData.class},
+            (proxy, method, args) -> productName
+        );
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> metaData
+        );
+    }
+
+    @Test
+    void testUpsertDialects() throws Exception {
+        assertEquals(BulkWriter.UpsertDialect.MERGE, BulkWriter.UpsertDialect.of(productConnection("H2")));
+        assertEquals(BulkWriter.UpsertDialect.MERGE, BulkWriter.UpsertDialect.of(productConnection("DB2/LINUXX8664")));
+        assertEquals(BulkWriter.UpsertDialect.ON_CONFLICT, BulkWriter.UpsertDialect.of(productConnection("PostgreSQL")));
+        assertEquals(BulkWriter.UpsertDialect.ON_CONFLICT, BulkWriter.UpsertDialect.of(productConnection("SQLite")));
+        assertEquals(
+            BulkWriter.UpsertDialect.SQL_SERVER_MERGE, BulkWriter.UpsertDialect.of(productConnection("Microsoft SQL Server"))
+        );
+        for (String productName : List.of("MySQL", "MariaDB", "Oracle")) {
+            assertThrows(JDBCBeanException.class, () -> BulkWriter.UpsertDialect.of(productConnection(productName)));
+        }
+
+        BulkWriter<BulkRow> writer = new BulkWriter<>("bulk_row", BulkRow.class);
+        assertEquals(
+            writer.getUpsertNPSql(BulkWriter.UpsertDialect.MERGE) + ";",
+            writer.getUpsertNPSql(BulkWriter.UpsertDialect.SQL_SERVER_MERGE)
+        );
+    }
+
+    @Test
+    void testTooManyColumns() {
+        assertThrows(JDBCBeanException.class, () -> new BulkWriter<>("bulk_row", BulkRow.class, 2));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.annotation.Embedded;
+import jdbcBean.annotation.Mapped;
+import jdbcBean.exception.JDBCBeanException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeTrackerTest extends SharedDbContext {
+
+    public ChangeTrackerTest() throws Exception {
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class TrackedDetails {
+        @Mapped(type = JDBCType.VARCHAR)
+        private String note;
+    }
+
+    @Data
+    public static class TrackedRow {
+        @Mapped(type = JDBCType.INTEGER, isDistinct = true)
+        private int id;
+        @Mapped(type = JDBCType.VARCHAR)
+        private String name;
+        @Mapped(type = JDBCType.BIGINT)
+        private long score;
+        @Mapped(type = JDBCType.BOOLEAN)
+        private boolean active;
+        @Embedded
+        private TrackedDetails details;
+    }
+
+    @BeforeAll
+    void createTable() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("""
+                CREATE TABLE tracked_row (
+                    id INTEGER PRIMARY KEY, name VARCHAR(50), score BIGINT, active BOOLEAN, note VARCHAR(50)
+                )""");
+            statement.execute("""
+                INSERT INTO tracked_row VALUES
+                (1, 'one', 10, TRUE, 'first'), (2, 'two', 20, FALSE, NULL), (3, 'three', 30, TRUE, 'third')""");
+        }
+    }
+
+    @AfterAll
+    void dropTable() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("DROP TABLE tracked_row");
+        }
+    }
+
+    private List<TrackedRow> getRows(ChangeTracker<TrackedRow> tracker) throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            ResultSet resultSet = statement.executeQuery("SELECT * FROM tracked_row ORDER BY id");
+            return new Result2Bean(resultSet).getTrackedList(tracker);
+        }
+    }
+
+    @Test
+    void testUpdateChanged() throws Exception {
+        ChangeTracker<TrackedRow> tracker = new ChangeTracker<>("tracked_row", TrackedRow.class);
+        List<TrackedRow> rows = getRows(tracker);
+        assertEquals(3, tracker.size());
+        assertEquals(0, tracker.updateChangedAll(commentsDb.getConnection(), rows));
+
+        rows.get(0).setScore(11);
+        rows.get(1).setDetails(new TrackedDetails("second"));
+        rows.get(2).setName("THREE");
+        rows.get(2).setActive(false);
+        assertEquals(List.of("score"), tracker.getChangedColumns(rows.get(0)));
+        assertEquals(List.of("note"), tracker.getChangedColumns(rows.get(1)));
+        assertEquals(List.of("name", "active"), tracker.getChangedColumns(rows.get(2)));
+
+        // only changed columns are sent: the name written meanwhile stays
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("UPDATE tracked_row SET name = 'ONE' WHERE id = 1");
+        }
+        assertEquals(3, tracker.updateChangedAll(commentsDb.getConnection(), rows));
+        assertTrue(tracker.getChangedColumns(rows.get(2)).isEmpty());
+        assertFalse(tracker.updateChanged(commentsDb.getConnection(), rows.get(2)));
+
+        List<TrackedRow> updatedRows = getRows(new ChangeTracker<>("tracked_row", TrackedRow.class));
+        assertEquals("ONE", updatedRows.get(0).getName());
+        assertEquals(11, updatedRows.get(0).getScore());
+        assertEquals("second", updatedRows.get(1).getDetails().getNote());
+        assertEquals("THREE", updatedRows.get(2).getName());
+        assertFalse(updatedRows.get(2).isActive());
+        assertEquals("third", updatedRows.get(2).getDetails().getNote());
+    }
+
+    @Test
+    void testMissingRow() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("INSERT INTO tracked_row VALUES (4, 'four', 40, TRUE, NULL), (5, 'five', 50, TRUE, NULL)");
+        }
+        ChangeTracker<TrackedRow> tracker = new ChangeTracker<>("tracked_row", TrackedRow.class);
+        List<TrackedRow> rows = getRows(tracker).stream().filter(row -> row.getId() > 3).toList();
+        rows.forEach(row -> row.setScore(row.getScore() + 1));
+
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("DELETE FROM tracked_row WHERE id = 5");
+        }
+        // the lost write stays visible
+        assertThrows(JDBCBeanException.class, () -> tracker.updateChangedAll(commentsDb.getConnection(), rows));
+        assertTrue(tracker.getChangedColumns(rows.get(0)).isEmpty());
+        assertEquals(List.of("score"), tracker.getChangedColumns(rows.get(1)));
+        assertThrows(JDBCBeanException.class, () -> tracker.updateChanged(commentsDb.getConnection(), rows.get(1)));
+
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("DELETE FROM tracked_row WHERE id = 4");
+        }
+    }
+
+    @Test
+    void testInvalidUpdates() throws Exception {
+        ChangeTracker<TrackedRow> tracker = new ChangeTracker<>("tracked_row", TrackedRow.class);
+        TrackedRow row = getRows(tracker).get(0);
+
+        row.setId(100);
+        assertThrows(JDBCBeanException.class, () -> tracker.updateChanged(commentsDb.getConnection(), row));
+
+        tracker.untrack(row);
+        assertThrows(JDBCBeanException.class, () -> tracker.getChangedColumns(row));
+        assertThrows(JDBCBeanException.class, () -> new ChangeTracker<>("comment", TrackedDetails.class));
+    }
+}
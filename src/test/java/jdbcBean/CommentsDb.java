@@ -88,6 +88,13 @@ public class CommentsDb {
         return instance;
     }
 
+    /**
+     * @return a new connection to the database, closed by the caller
+     */
+    public static Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(CONNECTION_STRING, USERNAME, PASSWORD);
+    }
+
     private CommentsDb() throws SQLException {
         connection = DriverManager.getConnection(CONNECTION_STRING, USERNAME, PASSWORD);
         try (Statement statement = connection.createStatement()) {
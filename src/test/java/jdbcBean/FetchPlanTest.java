@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.annotation.Mapped;
+import jdbcBean.annotation.ToMany;
+import jdbcBean.exception.JDBCBeanException;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+
+import java.sql.JDBCType;
+import java.sql.Statement;
+import java.util.List;
+
+import static jdbcBean.CommentsDb.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FetchPlanTest extends SharedDbContext {
+
+    public FetchPlanTest() throws Exception {
+    }
+
+    @Data
+    public static class OrderWithPayments {
+        @Mapped(type = JDBCType.INTEGER, isDistinct = true)
+        private Integer orderId;
+        @Mapped(type = JDBCType.VARCHAR)
+        private String orderName;
+        @ToMany
+        private List<ProductDb.Product> products;
+        @ToMany
+        private List<Payment> payments;
+    }
+
+    @Data
+    public static class Payment {
+        @Mapped(type = JDBCType.INTEGER, isDistinct = true)
+        private Integer paymentId;
+        @Mapped(type = JDBCType.INTEGER)
+        private Integer amount;
+    }
+
+    @Test
+    void testSiblingCollections() throws Exception {
+        ProductDb productDb = ProductDb.getInstance();
+
+        try (NPPreparedStatement rootStatement = new NPPreparedStatement(
+            "SELECT id order_id, name order_name FROM product_order ORDER BY id", productDb.getConnection())
+        ) {
+            List<OrderWithPayments> orders = new FetchPlan<>(OrderWithPayments.class)
+                .toMany("products", """
+                    SELECT id product_id, name product_name, order_id FROM product
+                    WHERE order_id IN (:parentKeys) ORDER BY id
+                    """, "order_id")
+                .toMany("payments", """
+                    SELECT id payment_id, amount, order_id FROM payment
+                    WHERE order_id IN (:parentKeys) ORDER BY id
+                    """, "order_id")
+                .getList(rootStatement);
+
+            assertEquals(3, orders.size());
+            assertEquals(
+                List.of(1, 2),
+                orders.get(0).getProducts().stream().map(ProductDb.Product::getProductId).toList()
+            );
+            assertEquals(List.of(100, 200), orders.get(0).getPayments().stream().map(Payment::getAmount).toList());
+            assertEquals(0, orders.get(1).getProducts().size());
+            assertEquals(0, orders.get(1).getPayments().size());
+            assertEquals(3, orders.get(2).getProducts().size());
+            assertEquals(List.of(300), orders.get(2).getPayments().stream().map(Payment::getAmount).toList());
+        }
+    }
+
+    @Test
+    void testNestedCollections() throws Exception {
+        String childQuery = """
+            SELECT id, comment, created_at, parent_comment_id FROM comment
+            WHERE parent_comment_id IN (:parentKeys) ORDER BY id
+            """;
+
+        try (NPPreparedStatement rootStatement = new NPPreparedStatement(
+            "SELECT * FROM comment WHERE parent_comment_id IS NULL ORDER BY id", commentsDb.getConnection())
+        ) {
+            List<RecursiveComment> comments = new FetchPlan<>(RecursiveComment.class)
+                .toMany("comments", childQuery, "parent_comment_id", new FetchPlan<>(RecursiveComment.class)
+                    .toMany("comments", childQuery, "parent_comment_id")
+                )
+                .getList(rootStatement);
+
+            assertEquals(LEVEL_COMMENT_COUNT, comments.size());
+            for (int i = 0; i < LEVEL_COMMENT_COUNT; i++) {
+                RecursiveComment curComment1 = comments.get(i);
+                assertEquals(seededData.get(i).getCommentData().getId(), curComment1.getId());
+                assertEquals(LEVEL_COMMENT_COUNT, curComment1.getComments().size());
+
+                for (int j = 0; j < LEVEL_COMMENT_COUNT; j++) {
+                    RecursiveComment curComment2 = curComment1.getComments().get(j);
+                    assertEquals(seededData.get(i).getCommentData().getChildComments().get(j).getId(), curComment2.getId());
+                    assertEquals(LEVEL_COMMENT_COUNT, curComment2.getComments().size());
+                    assertNull(curComment2.getComments().get(0).getComments());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSiblingCollectionsRejectedByJoin() throws Exception {
+        ProductDb productDb = ProductDb.getInstance();
+
+        try (Statement statement = productDb.getConnection().createStatement()) {
+            Result2Bean result2Bean = new Result2Bean(statement.executeQuery(
+                "SELECT id order_id, name order_name FROM product_order"
+            ));
+            assertThrows(JDBCBeanException.class, () -> result2Bean.getList(OrderWithPayments.class));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static jdbcBean.CommentsDb.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeneratedRowMappersTest extends SharedDbContext {
+
+    public GeneratedRowMappersTest() throws Exception {
+    }
+
+    @BeforeAll
+    void enable() {
+        GeneratedRowMappers.setEnabled(true);
+    }
+
+    @AfterAll
+    void disable() {
+        GeneratedRowMappers.setEnabled(false);
+    }
+
+    @Test
+    void testGeneratedToMany() throws Exception {
+        assertNotNull(GeneratedRowMappers.getRowMapper(BeanUtil.getAnnotationInfo(Comment1.class).shallowInfo()));
+
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            List<Comment1> comment1List = new Result2Bean(statement.executeQuery(Result2BeanTest.testQuery1))
+                .getList(Comment1.class);
+            assertEquals(LEVEL_COMMENT_COUNT, comment1List.size());
+
+            for (int i = 0; i < LEVEL_COMMENT_COUNT; i++) {
+                val curComment1 = comment1List.get(i);
+                val expectedComment1 = seededData.get(i);
+                assertEquals(expectedComment1.getCommentData().getId(), curComment1.getCommentData().getId());
+                assertEquals(expectedComment1.getCommentData().getComment(), curComment1.getCommentData().getComment());
+                assertEquals(expectedComment1.getCommentData().getCreatedAt(), curComment1.getCommentData().getCreatedAt());
+                assertEquals(LEVEL_COMMENT_COUNT, curComment1.getCommentData().getChildComments().size());
+
+                for (int j = 0; j < LEVEL_COMMENT_COUNT; j++) {
+                    val curComment2 = curComment1.getCommentData().getChildComments().get(j);
+                    val expectedComment2 = expectedComment1.getCommentData().getChildComments().get(j);
+                    assertEquals(expectedComment2.getId(), curComment2.getId());
+                    assertEquals(expectedComment2.getComment(), curComment2.getComment());
+                    assertEquals(LEVEL_COMMENT_COUNT, curComment2.getChildComments().size());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testGeneratedPrimitiveFields() throws Exception {
+        assertNotNull(GeneratedRowMappers.getRowMapper(
+            BeanUtil.getAnnotationInfo(Result2BeanTest.PrimitiveComment.class).shallowInfo()
+        ));
+
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            ResultSet resultSet = statement.executeQuery("""
+                SELECT id, parent_comment_id, CAST(id AS DOUBLE) / 2 AS ratio, parent_comment_id IS NULL AS is_root, id AS boxed_id
+                FROM comment WHERE id IN (1, 111) ORDER BY id
+                """);
+            List<Result2BeanTest.PrimitiveComment> comments = new Result2Bean(resultSet)
+                .getList(Result2BeanTest.PrimitiveComment.class);
+
+            assertEquals(1, comments.get(0).getId());
+            assertEquals(11L, comments.get(0).getParentCommentId());
+            assertEquals(0.5, comments.get(0).getRatio());
+            assertFalse(comments.get(0).isRoot());
+            assertEquals(1, comments.get(0).getBoxedId());
+
+            assertEquals(111, comments.get(1).getId());
+            assertEquals(-1L, comments.get(1).getParentCommentId());
+            assertTrue(comments.get(1).isRoot());
+        }
+    }
+
+    @Test
+    void testFallbackWithoutAccessors() {
+        assertNull(GeneratedRowMappers.getRowMapper(
+            BeanUtil.getAnnotationInfo(Result2BeanTest.CommentWithoutAccessors.class).shallowInfo()
+        ));
+        assertNotNull(GeneratedRowMappers.getFallbackReason(Result2BeanTest.CommentWithoutAccessors.class));
+        assertNull(GeneratedRowMappers.getFallbackReason(Comment1.class));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.annotation.Mapped;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MapperRegistryTest extends SharedDbContext {
+
+    public MapperRegistryTest() throws Exception {
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class RegisteredComment {
+        @Mapped(type = JDBCType.INTEGER)
+        private Integer id;
+        @Mapped(type = JDBCType.VARCHAR)
+        private String comment;
+        private boolean mappedByRegistry;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class ConventionComment {
+        @Mapped(type = JDBCType.INTEGER)
+        private Integer id;
+        @Mapped(type = JDBCType.VARCHAR)
+        private String comment;
+        private boolean mappedByRegistry;
+    }
+
+    @AfterAll
+    void unregisterMappers() {
+        MapperRegistry.unregister(RegisteredComment.class);
+    }
+
+    @Test
+    void testRegisteredMappers() throws Exception {
+        MapperRegistry.registerRowMapper(RegisteredComment.class, (resultSet, columnIndexes) -> {
+            RegisteredComment comment = new RegisteredComment();
+            comment.setId(resultSet.getInt(columnIndexes[0]));
+            comment.setComment(resultSet.getString(columnIndexes[1]));
+            comment.setMappedByRegistry(true);
+            return comment;
+        });
+        MapperRegistry.registerParameterBinder(RegisteredComment.class, (statement, parameterIndexes, object) -> {
+            statement.setInt(parameterIndexes[0], object.getId());
+            statement.setString(parameterIndexes[1], object.getComment());
+        });
+
+        RegisteredComment parameters = new RegisteredComment();
+        parameters.setId(5);
+        parameters.setComment("comment 5");
+        try (NPPreparedStatement preparedStatement = new NPPreparedStatement(
+            "SELECT * FROM comment WHERE id = :id and comment = :comment", commentsDb.getConnection())
+        ) {
+            List<RegisteredComment> comments = preparedStatement.setParameters(parameters)
+                .execute()
+                .getList(RegisteredComment.class);
+
+            assertEquals(1, comments.size());
+            assertEquals(5, comments.get(0).getId());
+            assertEquals("comment 5", comments.get(0).getComment());
+            assertTrue(comments.get(0).isMappedByRegistry());
+        }
+    }
+
+    @Test
+    void testGeneratedMapperLookup() throws Exception {
+        assertInstanceOf(MapperRegistryTest_ConventionComment_Mapper.class,
+            MapperRegistry.getGeneratedMapper(ConventionComment.class));
+        assertNull(MapperRegistry.getGeneratedMapper(RegisteredComment.class));
+
+        ConventionComment parameters = new ConventionComment();
+        parameters.setId(7);
+        parameters.setComment("comment 7");
+        try (NPPreparedStatement preparedStatement = new NPPreparedStatement(
+            "SELECT * FROM comment WHERE comment = :comment and id = :id", commentsDb.getConnection())
+        ) {
+            ConventionComment comment = preparedStatement.setParameters(parameters)
+                .execute()
+                .getFirst(ConventionComment.class);
+
+            assertNotNull(comment);
+            assertEquals(7, comment.getId());
+            assertEquals("comment 7", comment.getComment());
+            assertTrue(comment.isMappedByRegistry());
+        }
+    }
+}
+
+/**
+ * Stands for the mapper the annotation processor would generate for {@link MapperRegistryTest.ConventionComment},
+ * to test the lookup by name. The processor output itself is tested by the processor module.
+ */
+final class MapperRegistryTest_ConventionComment_Mapper implements GeneratedMapper<MapperRegistryTest.ConventionComment> {
+
+    public MapperRegistryTest_ConventionComment_Mapper() {
+    }
+
+    @Override
+    public String[] mappedNames() {
+        return new String[]{"id", "comment"};
+    }
+
+    @Override
+    public boolean hasToMany() {
+        return false;
+    }
+
+    @Override
+    public MapperRegistryTest.ConventionComment mapRow(ResultSet resultSet, int[] columnIndexes) throws SQLException {
+        MapperRegistryTest.ConventionComment comment = new MapperRegistryTest.ConventionComment();
+        comment.setId(ColumnValues.getInteger(resultSet, columnIndexes[0]));
+        comment.setComment(ColumnValues.getString(resultSet, columnIndexes[1]));
+        comment.setMappedByRegistry(true);
+        return comment;
+    }
+
+    @Override
+    public void bind(PreparedStatement statement, int[] parameterIndexes, MapperRegistryTest.ConventionComment object)
+        throws SQLException {
+        statement.setObject(parameterIndexes[0], object.getId(), JDBCType.INTEGER);
+        statement.setObject(parameterIndexes[1], object.getComment(), JDBCType.VARCHAR);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.annotation.Mapped;
+import jdbcBean.exception.JDBCBeanException;
+import lombok.Data;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultiQueryTest extends SharedDbContext {
+
+    public MultiQueryTest() throws Exception {
+    }
+
+    @Data
+    public static class CommentCount {
+        @Mapped(type = JDBCType.BIGINT)
+        private long total;
+    }
+
+    @Data
+    public static class DashboardParameters {
+        @Mapped(type = JDBCType.INTEGER)
+        private int maxId = 3;
+    }
+
+    @BeforeAll
+    void createProcedure() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("""
+                CREATE PROCEDURE comment_dashboard(IN max_id INTEGER)
+                READS SQL DATA DYNAMIC RESULT SETS 2
+                BEGIN ATOMIC
+                    DECLARE recent CURSOR WITH RETURN FOR SELECT * FROM comment WHERE id <= max_id ORDER BY id;
+                    DECLARE counter CURSOR WITH RETURN FOR SELECT COUNT(*) total FROM comment;
+                    OPEN recent;
+                    OPEN counter;
+                END""");
+        }
+    }
+
+    @AfterAll
+    void dropProcedure() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("DROP PROCEDURE comment_dashboard");
+        }
+    }
+
+    @Test
+    void testCall() throws Exception {
+        MultiQuery multiQuery = MultiQuery.call("{call comment_dashboard(:max_id)}", CommentsDb.Comment.class, CommentCount.class);
+
+        MultiQuery.Results results = multiQuery.execute(commentsDb.getConnection(), new DashboardParameters());
+        assertEquals(
+            List.of(1, 2, 3),
+            results.getList(0, CommentsDb.Comment.class).stream().map(CommentsDb.Comment::getId).toList()
+        );
+        assertEquals(CommentsDb.totalCommentCount, results.getFirst(1, CommentCount.class).getTotal());
+        assertThrows(JDBCBeanException.class, () -> results.getList(1, CommentsDb.Comment.class));
+
+        MultiQuery.Results mapResults = multiQuery.executeFromMap(
+            commentsDb.getConnection(), Map.of("max_id", new SqlValue(1, JDBCType.INTEGER))
+        );
+        assertEquals(1, mapResults.getList(0, CommentsDb.Comment.class).size());
+    }
+
+    @Test
+    void testWithoutParameters() throws Exception {
+        MultiQuery multiQuery = MultiQuery.call("{call comment_dashboard(2)}", CommentsDb.Comment.class, CommentCount.class);
+
+        MultiQuery.Results results = multiQuery.execute(commentsDb.getConnection(), null);
+        assertEquals(2, results.getList(0, CommentsDb.Comment.class).size());
+        assertEquals(CommentsDb.totalCommentCount, results.getFirst(1, CommentCount.class).getTotal());
+    }
+
+    @Test
+    void testMissingResult() {
+        MultiQuery multiQuery = MultiQuery.call(
+            "{call comment_dashboard(:max_id)}", CommentsDb.Comment.class, CommentCount.class, CommentCount.class
+        );
+        assertThrows(JDBCBeanException.class, () -> multiQuery.execute(commentsDb.getConnection(), new DashboardParameters()));
+    }
+
+    /**
+     * Connection whose statements return {@code results} (result sets and update counts) in order,
+     * since HSQLDB doesn't accept several queries in one prepared statement
+     *
+     * @param boundValues receives the values bound to the statement by parameter index
+     */
+    private static Connection multiResultConnection(List<Object> results, Map<Integer, Object> boundValues) {
+        Connection[] connection = new Connection[1];
+        int[] current = {0};
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+            (proxy, method, args) -> {
+                Object result = current[0] < results.size() ? results.get(current[0]) : null;
+                return switch (method.getName()) {
+                    case "setObject", "setInt", "setLong", "setString", "setNull" -> boundValues.put((Integer) args[0], args[1]);
+                    case "execute" -> result instanceof ResultSet;
+                    case "getResultSet" -> result instanceof ResultSet ? result : null;
+                    case "getUpdateCount" -> result instanceof Integer ? result : -1;
+                    case "getMoreResults" -> {
+                        current[0]++;
+                        yield current[0] < results.size() && results.get(current[0]) instanceof ResultSet;
+                    }
+                    case "getConnection" -> connection[0];
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                };
+            });
+        connection[0] = (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("prepareStatement")) return statement;
+                throw new UnsupportedOperationException(method.getName());
+            });
+        return connection[0];
+    }
+
+    @Test
+    void testExecuteJoinedQueries() throws Exception {
+        MultiQuery multiQuery = new MultiQuery()
+            .add("SELECT * FROM comment WHERE id <= :max_id ORDER BY id", CommentsDb.Comment.class)
+            .add("SELECT COUNT(*) total FROM comment WHERE id > :max_id", CommentCount.class);
+
+        try (
+            Statement first = commentsDb.getConnection().createStatement();
+            Statement second = commentsDb.getConnection().createStatement()
+        ) {
+            // result sets and update counts in the order a driver returns them for the joined statement
+            List<Object> statementResults = List.of(
+                first.executeQuery("SELECT * FROM comment WHERE id <= 3 ORDER BY id"),
+                CommentsDb.totalCommentCount - 3,
+                second.executeQuery("SELECT COUNT(*) total FROM comment WHERE id > 3")
+            );
+            Map<Integer, Object> boundValues = new HashMap<>();
+
+            MultiQuery.Results results = multiQuery.execute(
+                multiResultConnection(statementResults, boundValues), new DashboardParameters()
+            );
+            assertEquals(
+                List.of(1, 2, 3),
+                results.getList(0, CommentsDb.Comment.class).stream().map(CommentsDb.Comment::getId).toList()
+            );
+            // the update count between the result sets is skipped
+            assertEquals(CommentsDb.totalCommentCount - 3, results.getFirst(1, CommentCount.class).getTotal());
+            // :max_id appears once in each fragment
+            assertEquals(Map.of(1, 3, 2, 3), boundValues);
+        }
+
+        // fewer result sets than queries
+        assertThrows(
+            JDBCBeanException.class,
+            () -> multiQuery.execute(multiResultConnection(List.of(5), new HashMap<>()), new DashboardParameters())
+        );
+    }
+
+    @Test
+    void testJoinedQueries() {
+        MultiQuery multiQuery = new MultiQuery()
+            .add("SELECT * FROM comment WHERE id <= :max_id", CommentsDb.Comment.class)
+            .add("SELECT COUNT(*) total FROM comment WHERE id > :max_id", CommentCount.class);
+        assertEquals("""
+            SELECT * FROM comment WHERE id <= :max_id;
+            SELECT COUNT(*) total FROM comment WHERE id > :max_id""", multiQuery.getNPSql());
+        assertArrayEquals(new int[]{1, 2}, QueryParser.parseNPSql(multiQuery.getNPSql()).getParamIndexes("max_id"));
+    }
+}
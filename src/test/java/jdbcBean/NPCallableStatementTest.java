@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.annotation.Embedded;
+import jdbcBean.annotation.Mapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.JDBCType;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NPCallableStatementTest extends SharedDbContext {
+
+    public NPCallableStatementTest() throws Exception {
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class CommentInfoQuery {
+        @Mapped(type = JDBCType.INTEGER)
+        private int commentId;
+    }
+
+    @Data
+    public static class CommentInfo {
+        @Mapped(type = JDBCType.VARCHAR)
+        private String comment;
+        @Mapped(type = JDBCType.INTEGER)
+        private Integer parentCommentId;
+        @Mapped(type = JDBCType.INTEGER)
+        private int childCount = -1;
+    }
+
+    public record CommentCounts(
+        @Mapped(type = JDBCType.INTEGER) int childCount
+    ) {
+    }
+
+    public record CommentInfoRecord(
+        @Mapped(type = JDBCType.VARCHAR) String comment,
+        @Mapped(type = JDBCType.INTEGER) Integer parentCommentId,
+        @Embedded CommentCounts counts
+    ) {
+    }
+
+    @BeforeAll
+    void createProcedure() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("""
+                CREATE PROCEDURE comment_info(
+                    IN comment_id INTEGER, OUT comment VARCHAR(100), OUT parent_comment_id INTEGER, OUT child_count INTEGER
+                )
+                READS SQL DATA
+                BEGIN ATOMIC
+                    SET comment = (SELECT c.comment FROM comment c WHERE c.id = comment_id);
+                    SET parent_comment_id = (SELECT c.parent_comment_id FROM comment c WHERE c.id = comment_id);
+                    SET child_count = (SELECT COUNT(*) FROM comment c WHERE c.parent_comment_id = comment_id);
+                END""");
+        }
+    }
+
+    @AfterAll
+    void dropProcedure() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("DROP PROCEDURE comment_info");
+        }
+    }
+
+    @Test
+    void testOutParameters() throws Exception {
+        String npSql = "{call comment_info(:comment_id, :comment, :parent_comment_id, :child_count)}";
+        try (NPCallableStatement statement = new NPCallableStatement(npSql, commentsDb.getConnection())) {
+            CommentInfo info = statement.registerOutParameters(CommentInfo.class)
+                .setParameters(new CommentInfoQuery(11))
+                .execute()
+                .getReturnedOutParameters(CommentInfo.class);
+            assertEquals("comment 11", info.getComment());
+            assertEquals(111, info.getParentCommentId());
+            assertEquals(CommentsDb.LEVEL_COMMENT_COUNT, info.getChildCount());
+
+            CommentInfo root = statement.setParameters(new CommentInfoQuery(111))
+                .execute()
+                .getReturnedOutParameters(CommentInfo.class);
+            assertNull(root.getParentCommentId());
+            assertEquals(CommentsDb.LEVEL_COMMENT_COUNT, root.getChildCount());
+        }
+        assertSame(
+            QueryParser.parseNPSql(npSql).getOutParameterPlan(CommentInfo.class),
+            QueryParser.parseNPSql(npSql).getOutParameterPlan(CommentInfo.class)
+        );
+    }
+
+    @Test
+    void testEmbeddedOutParameters() throws Exception {
+        try (NPCallableStatement statement = new NPCallableStatement(
+            "{call comment_info(:comment_id, :comment, :parent_comment_id, :child_count)}", commentsDb.getConnection()
+        )) {
+            CommentInfoRecord info = statement.registerOutParameters(CommentInfoRecord.class)
+                .setParameters(new CommentInfoQuery(1))
+                .execute()
+                .getReturnedOutParameters(CommentInfoRecord.class);
+            assertEquals(new CommentInfoRecord("comment 1", 11, new CommentCounts(0)), info);
+        }
+    }
+}
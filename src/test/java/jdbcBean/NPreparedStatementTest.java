@@ -26,16 +26,31 @@
 package jdbcBean;
 
 
+import jdbcBean.annotation.Embedded;
 import jdbcBean.annotation.Mapped;
+import jdbcBean.exception.JDBCBeanException;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.junit.jupiter.api.Test;
 
+import java.sql.Connection;
 import java.sql.JDBCType;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class NPreparedStatementTest extends SharedDbContext {
 
@@ -68,4 +83,361 @@ public class NPreparedStatementTest extends SharedDbContext {
         }
     }
 
+    @Test
+    void testRepeatedExecution() throws Exception {
+        try (NPPreparedStatement preparedStatement = new NPPreparedStatement(
+            "SELECT * FROM comment WHERE id = :id and comment = :comment", commentsDb.getConnection())
+        ) {
+            for (int id = 1; id <= 3; id++) {
+                CommentsDb.Comment comment = preparedStatement
+                    .setParameters(new SearchComment(id, "comment " + id))
+                    .execute()
+                    .getFirst(CommentsDb.Comment.class);
+
+                assertEquals(id, comment.getId());
+                assertEquals("comment " + id, comment.getComment());
+            }
+
+            preparedStatement.execute();
+            try (ResultSet resultSet = preparedStatement.getStatement().getResultSet()) {
+                assertSame(
+                    RowMappingPlan.getPlan(resultSet, CommentsDb.Comment.class, false,
+                        preparedStatement.getMappedQuery().getRowPlanCache(0)),
+                    RowMappingPlan.getPlan(resultSet, CommentsDb.Comment.class, false,
+                        preparedStatement.getMappedQuery().getRowPlanCache(0))
+                );
+                assertNotSame(
+                    RowMappingPlan.getPlan(resultSet, CommentsDb.Comment.class, false,
+                        preparedStatement.getMappedQuery().getRowPlanCache(0)),
+                    RowMappingPlan.getPlan(resultSet, CommentsDb.Comment.class, false,
+                        preparedStatement.getMappedQuery().getRowPlanCache(1))
+                );
+            }
+        }
+
+        // without cached parsing, plans stay with the statement's own MappedQuery
+        String npSql = "SELECT * FROM comment WHERE id = :id";
+        try (
+            NPPreparedStatement first = new NPPreparedStatement(npSql, commentsDb.getConnection(), false);
+            NPPreparedStatement second = new NPPreparedStatement(npSql, commentsDb.getConnection(), false)
+        ) {
+            assertNotSame(first.getMappedQuery().getRowPlanCache(0), second.getMappedQuery().getRowPlanCache(0));
+        }
+    }
+
+    @Test
+    void testStreaming() throws Exception {
+        try (NPPreparedStatement preparedStatement = new NPPreparedStatement(
+            "SELECT * FROM comment WHERE id <= :id ORDER BY id", commentsDb.getConnection())
+        ) {
+            preparedStatement.setStreaming(10).setObject("id", 100).execute();
+            assertFalse(commentsDb.getConnection().getAutoCommit());
+
+            try (Stream<CommentsDb.Comment> comments = preparedStatement.stream(CommentsDb.Comment.class)) {
+                assertEquals(5050, comments.mapToInt(CommentsDb.Comment::getId).sum());
+            }
+        }
+        assertTrue(commentsDb.getConnection().getAutoCommit());
+    }
+
+    @Test
+    void testBatch() throws Exception {
+        Connection connection = commentsDb.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE batch_comment (id INTEGER PRIMARY KEY, comment VARCHAR(100) NOT NULL)");
+        }
+
+        try (NPPreparedStatement preparedStatement = new NPPreparedStatement(
+            "INSERT INTO batch_comment (id, comment) VALUES (:id, :comment)", connection)
+        ) {
+            List<SearchComment> comments = IntStream.rangeClosed(1, 25)
+                .mapToObj(id -> new SearchComment(id, "comment " + id))
+                .toList();
+            int[] updateCounts = preparedStatement.executeBatch(comments, 10);
+            assertEquals(25, updateCounts.length);
+            assertTrue(Arrays.stream(updateCounts).allMatch(count -> count == 1 || count == Statement.SUCCESS_NO_INFO));
+
+            preparedStatement.setBatchSize(2)
+                .addBatchFromMap(Map.of(
+                    "id", new SqlValue(26, JDBCType.INTEGER),
+                    "comment", new SqlValue("comment 26", JDBCType.VARCHAR)
+                ))
+                .addBatch(new SearchComment(27, "comment 27"))
+                .addBatch(new SearchComment(28, "comment 28"));
+            assertEquals(3, preparedStatement.executeBatch().length);
+            assertEquals(0, preparedStatement.executeBatch().length);
+
+            try (Statement statement = connection.createStatement()) {
+                assertEquals(28, new Result2Bean(statement.executeQuery(
+                    "SELECT COUNT(*) FROM batch_comment WHERE comment = 'comment ' || id"
+                )).<Long>getScalar());
+            }
+        }
+        finally {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE batch_comment");
+            }
+        }
+    }
+
+    @Data
+    public static class PrimitiveSearch {
+        @Mapped(type = JDBCType.INTEGER)
+        private int id;
+        @Mapped(type = JDBCType.VARCHAR)
+        private String unusedName;
+        @Embedded
+        private CommentFilter filter;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class CommentFilter {
+        @Mapped(type = JDBCType.VARCHAR)
+        private String comment;
+    }
+
+    @Test
+    void testBindingPlan() throws Exception {
+        try (NPPreparedStatement preparedStatement = new NPPreparedStatement(
+            "SELECT * FROM comment WHERE id = :id AND comment = COALESCE(:comment, 'comment 5')", commentsDb.getConnection())
+        ) {
+            PrimitiveSearch search = new PrimitiveSearch();
+            search.setId(5);
+            search.setUnusedName("not a parameter");
+            CommentsDb.Comment comment = preparedStatement.setParameters(search)
+                .execute()
+                .getFirst(CommentsDb.Comment.class);
+            assertNotNull(comment);
+            assertEquals("comment 5", comment.getComment());
+
+            search.setFilter(new CommentFilter("comment 6"));
+            assertNull(preparedStatement.setParameters(search).execute().getFirst(CommentsDb.Comment.class));
+
+            assertSame(
+                preparedStatement.getMappedQuery().getBindingPlan(PrimitiveSearch.class),
+                preparedStatement.getMappedQuery().getBindingPlan(PrimitiveSearch.class)
+            );
+        }
+    }
+
+    @Test
+    void testRepeatedParameters() throws Exception {
+        try (NPPreparedStatement preparedStatement = new NPPreparedStatement("""
+            -- :ignored isn't a parameter, neither is ':comment'
+            SELECT * FROM comment
+            WHERE (CAST(:comment AS VARCHAR(255)) IS NULL OR comment = :comment) AND id BETWEEN :id AND :id + 1
+            ORDER BY id /* ? */""", commentsDb.getConnection())
+        ) {
+            List<CommentsDb.Comment> comments = preparedStatement
+                .setParameters(new SearchComment(5, null))
+                .execute()
+                .getList(CommentsDb.Comment.class);
+            assertEquals(List.of(5, 6), comments.stream().map(CommentsDb.Comment::getId).toList());
+
+            comments = preparedStatement
+                .setObject("id", 5)
+                .setObject("comment", "comment 6", JDBCType.VARCHAR)
+                .execute()
+                .getList(CommentsDb.Comment.class);
+            assertEquals(List.of(6), comments.stream().map(CommentsDb.Comment::getId).toList());
+        }
+    }
+
+    @Test
+    void testStatementCache() throws Exception {
+        StatementCache statementCache = new StatementCache(1);
+        Connection connection = commentsDb.getConnection();
+        String sql = "SELECT * FROM comment WHERE id = :id";
+
+        PreparedStatement firstStatement;
+        try (NPPreparedStatement statement = statementCache.prepare(sql, connection)) {
+            firstStatement = statement.getStatement();
+            assertEquals(1, statement.setObject("id", 1).execute().getFirst(CommentsDb.Comment.class).getId());
+        }
+        try (NPPreparedStatement statement = statementCache.prepare(sql, connection)) {
+            assertSame(firstStatement, statement.getStatement());
+            assertEquals(2, statement.setObject("id", 2).execute().getFirst(CommentsDb.Comment.class).getId());
+        }
+        assertFalse(firstStatement.isClosed());
+
+        // a second query evicts the first one from the connection's single slot
+        try (NPPreparedStatement statement = statementCache.prepare("SELECT * FROM comment", connection)) {
+            statement.execute();
+        }
+        assertTrue(firstStatement.isClosed());
+
+        CacheStats stats = statementCache.getStats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(1, stats.evictionCount());
+        assertEquals(1, stats.size());
+
+        statementCache.evict(connection);
+        assertEquals(0, statementCache.getStats().size());
+    }
+
+    @Test
+    void testCloseAfterConnection() throws Exception {
+        String sql = "SELECT * FROM comment WHERE id = :id";
+        StatementCache statementCache = new StatementCache(1);
+
+        Connection connection = CommentsDb.openConnection();
+        NPPreparedStatement statement = new NPPreparedStatement(sql, connection);
+        NPPreparedStatement streamingStatement = new NPPreparedStatement(sql, connection).setStreaming(10);
+        NPPreparedStatement cachedStatement = statementCache.prepare(sql, connection);
+        assertEquals(1, cachedStatement.setObject("id", 1).execute().getFirst(CommentsDb.Comment.class).getId());
+        connection.close();
+
+        statement.close();
+        streamingStatement.close();
+        cachedStatement.close();
+        assertEquals(0, statementCache.getStats().size());
+    }
+
+    @Test
+    void testListParameters() throws Exception {
+        String sql = "SELECT * FROM comment WHERE id IN (:ids) AND id <> :excludedId ORDER BY id";
+        try (NPPreparedStatement statement = new NPPreparedStatement(sql, commentsDb.getConnection(), Map.of("ids", List.of(1, 2, 3)))) {
+            assertEquals("SELECT * FROM comment WHERE id IN (?, ?, ?, ?) AND id <> ? ORDER BY id", statement.getMappedQuery().getTranslatedQuery());
+            List<CommentsDb.Comment> comments = statement.setObject("excludedId", 2).execute().getList(CommentsDb.Comment.class);
+            assertEquals(List.of(1, 3), comments.stream().map(CommentsDb.Comment::getId).toList());
+        }
+        try (NPPreparedStatement statement = new NPPreparedStatement(sql, commentsDb.getConnection(), Map.of("ids", List.of()))) {
+            assertTrue(statement.setObject("excludedId", 2).execute().getList(CommentsDb.Comment.class).isEmpty());
+        }
+        try (NPPreparedStatement statement = new NPPreparedStatement(sql, commentsDb.getConnection())) {
+            assertThrows(JDBCBeanException.class, () -> statement.setObject("ids", List.of(1, 2)));
+            assertThrows(JDBCBeanException.class, () -> statement.setObject("ids", Set.of(1), JDBCType.INTEGER));
+        }
+
+        List<Integer> ids = IntStream.rangeClosed(1, 1000).boxed().toList();
+        assertThrows(JDBCBeanException.class, () -> new NPPreparedStatement(sql, commentsDb.getConnection(), Map.of("ids", ids)));
+
+        List<CommentsDb.Comment> comments = NPPreparedStatement.getListInChunks(
+            "SELECT * FROM comment WHERE id IN (:ids) AND id <> :id ORDER BY id", commentsDb.getConnection(),
+            "ids", ids, new SearchComment(2, null), CommentsDb.Comment.class
+        );
+        assertEquals(999, comments.size());
+        assertEquals(1000, comments.get(comments.size() - 1).getId());
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class ArrayRow {
+        @Mapped(type = JDBCType.INTEGER)
+        private int id;
+        @Mapped(type = JDBCType.ARRAY)
+        private int[] intValues;
+        @Mapped(type = JDBCType.ARRAY)
+        private long[] longValues;
+        @Mapped(type = JDBCType.ARRAY)
+        private String[] names;
+        @Mapped(type = JDBCType.ARRAY)
+        private List<String> tags;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @SuppressWarnings("rawtypes")
+    public static class RawArrayRow {
+        @Mapped(type = JDBCType.INTEGER)
+        private int id;
+        @Mapped(type = JDBCType.ARRAY)
+        private List names;
+        @Mapped(type = JDBCType.ARRAY)
+        private List<?> tags;
+    }
+
+    @Test
+    void testArrays() throws Exception {
+        Connection connection = commentsDb.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                CREATE TABLE array_row (
+                    id INTEGER PRIMARY KEY, int_values INTEGER ARRAY, long_values BIGINT ARRAY,
+                    names VARCHAR(20) ARRAY, tags VARCHAR(20) ARRAY
+                )""");
+        }
+        try {
+            ArrayRow row = new ArrayRow();
+            row.setId(1);
+            row.setIntValues(new int[]{1, 2, 3});
+            row.setLongValues(new long[]{Long.MAX_VALUE});
+            row.setNames(new String[]{"a", "b"});
+            row.setTags(List.of("x"));
+            try (NPPreparedStatement statement = new NPPreparedStatement(
+                "INSERT INTO array_row VALUES (:id, :int_values, :long_values, :names, :tags)", connection)
+            ) {
+                statement.setParameters(row).execute();
+                row.setId(2);
+                row.setNames(null);
+                statement.setParameters(row).execute();
+            }
+
+            try (NPPreparedStatement statement = new NPPreparedStatement("SELECT * FROM array_row ORDER BY id", connection)) {
+                List<ArrayRow> rows = statement.execute().getList(ArrayRow.class);
+                assertArrayEquals(new int[]{1, 2, 3}, rows.get(0).getIntValues());
+                assertArrayEquals(new long[]{Long.MAX_VALUE}, rows.get(0).getLongValues());
+                assertArrayEquals(new String[]{"a", "b"}, rows.get(0).getNames());
+                assertEquals(List.of("x"), rows.get(0).getTags());
+                assertNull(rows.get(1).getNames());
+            }
+
+            // lists without an element class are bound with setObject
+            RawArrayRow rawRow = new RawArrayRow();
+            rawRow.setId(3);
+            try (NPPreparedStatement statement = new NPPreparedStatement(
+                "INSERT INTO array_row (id, names, tags) VALUES (:id, :names, :tags)", connection)
+            ) {
+                statement.setParameters(rawRow).execute();
+            }
+            try (NPPreparedStatement statement = new NPPreparedStatement("SELECT * FROM array_row WHERE id = 3", connection)) {
+                RawArrayRow readRow = statement.execute().getFirst(RawArrayRow.class);
+                assertEquals(3, readRow.getId());
+                assertNull(readRow.getTags());
+            }
+
+            // one statement shape for any number of keys
+            try (NPPreparedStatement statement = new NPPreparedStatement(
+                "SELECT * FROM comment WHERE id IN (UNNEST(:int_values)) ORDER BY id", connection)
+            ) {
+                List<CommentsDb.Comment> comments = statement.setParameters(row).execute().getList(CommentsDb.Comment.class);
+                assertEquals(List.of(1, 2, 3), comments.stream().map(CommentsDb.Comment::getId).toList());
+            }
+        }
+        finally {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE array_row");
+            }
+        }
+    }
+
+    @Test
+    void testAsync() throws Exception {
+        try (
+            QueryExecutor queryExecutor = new QueryExecutor(1);
+            NPPreparedStatement statement = new NPPreparedStatement("SELECT * FROM comment WHERE id < :id", commentsDb.getConnection());
+            Statement blockingStatement = commentsDb.getConnection().createStatement()
+        ) {
+            List<CommentsDb.Comment> comments = statement.setObject("id", 4)
+                .getListAsync(CommentsDb.Comment.class, queryExecutor)
+                .get(10, TimeUnit.SECONDS);
+            assertEquals(3, comments.size());
+
+            // the only permit is held: the next query waits, and doesn't start once cancelled
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Object> blocking = queryExecutor.submit(blockingStatement, () -> release.await(10, TimeUnit.SECONDS));
+            AtomicBoolean started = new AtomicBoolean(false);
+            CompletableFuture<Object> cancelled = queryExecutor.submit(blockingStatement, () -> started.getAndSet(true));
+            assertTrue(cancelled.cancel(true));
+            release.countDown();
+            blocking.get(10, TimeUnit.SECONDS);
+
+            queryExecutor.submit(blockingStatement, () -> null).get(10, TimeUnit.SECONDS);
+            assertFalse(started.get());
+            assertEquals(1, queryExecutor.availablePermits());
+        }
+    }
 }
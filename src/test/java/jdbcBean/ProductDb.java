@@ -59,6 +59,15 @@ public class ProductDb {
                 )
                 """);
 
+            statement.execute("""
+                CREATE TABLE payment (
+                    id INTEGER PRIMARY KEY,
+                    amount INTEGER NOT NULL,
+                    order_id INTEGER NOT NULL,
+                    FOREIGN KEY (order_id) REFERENCES product_order(id)
+                )
+                """);
+
             statement.execute("INSERT INTO product_order VALUES (1, 'order 1')");
             statement.execute("INSERT INTO product_order VALUES (2, 'order 2')");
             statement.execute("INSERT INTO product_order VALUES (3, 'order 3')");
@@ -67,6 +76,9 @@ public class ProductDb {
             statement.execute("INSERT INTO product VALUES (3, 'product 3', 3)");
             statement.execute("INSERT INTO product VALUES (4, 'product 4', 3)");
             statement.execute("INSERT INTO product VALUES (5, 'product 5', 3)");
+            statement.execute("INSERT INTO payment VALUES (1, 100, 1)");
+            statement.execute("INSERT INTO payment VALUES (2, 200, 1)");
+            statement.execute("INSERT INTO payment VALUES (3, 300, 3)");
         }
     }
 
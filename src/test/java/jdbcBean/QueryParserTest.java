@@ -25,10 +25,14 @@
 
 package jdbcBean;
 
+import jdbcBean.exception.JDBCBeanException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
+import java.util.Map;
+
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class QueryParserTest {
 
@@ -51,4 +55,64 @@ public class QueryParserTest {
         MappedQuery mappedQuery2 = QueryParser.parseNPSql("SELECT * FROM table_x WHERE id = :param_1");
         Assertions.assertEquals(1, mappedQuery2.getParamIndex("param_1"));
     }
+
+    @Test
+    void skipLiteralsAndComments() {
+        MappedQuery mappedQuery = QueryParser.parseNPSql("""
+            SELECT ':a', "b:c", 'it''s :d?', x::text, $$ :e ? $$, $fn$ :f $fn$ -- :g ?
+            FROM t /* :h ? */ WHERE y = :p AND z = :q OR y = :p""", false);
+        Assertions.assertEquals("""
+            SELECT ':a', "b:c", 'it''s :d?', x::text, $$ :e ? $$, $fn$ :f $fn$ -- :g ?
+            FROM t /* :h ? */ WHERE y = ? AND z = ? OR y = ?""", mappedQuery.getTranslatedQuery());
+        Assertions.assertArrayEquals(new int[]{1, 3}, mappedQuery.getParamIndexes("p"));
+        Assertions.assertEquals(1, mappedQuery.getParamIndex("p"));
+        Assertions.assertArrayEquals(new int[]{2}, mappedQuery.getParamIndexes("q"));
+        Assertions.assertEquals(0, mappedQuery.findParamIndexes("e").length);
+
+        Assertions.assertThrows(JDBCBeanException.class, () -> QueryParser.parseNPSql("SELECT 'abc", false));
+        Assertions.assertThrows(JDBCBeanException.class, () -> QueryParser.parseNPSql("SELECT ? FROM t", false));
+    }
+
+    @Test
+    void expandListParameters() {
+        MappedQuery mappedQuery = QueryParser.parseNPSql(
+            "SELECT * FROM t WHERE a IN (:ids) AND b = :b OR c IN (:ids)", false
+        );
+        MappedQuery expandedQuery = mappedQuery.expandListParameters(Map.of("ids", 2));
+        Assertions.assertEquals(
+            "SELECT * FROM t WHERE a IN (?, ?) AND b = ? OR c IN (?, ?)", expandedQuery.getTranslatedQuery()
+        );
+        Assertions.assertArrayEquals(new int[]{1, 2, 4, 5}, expandedQuery.getParamIndexes("ids"));
+        Assertions.assertArrayEquals(new int[]{3}, expandedQuery.getParamIndexes("b"));
+        Assertions.assertSame(expandedQuery, mappedQuery.expandListParameters(Map.of("ids", 2)));
+
+        Assertions.assertEquals(1, MappedQuery.getListBucketSize(0));
+        Assertions.assertEquals(1, MappedQuery.getListBucketSize(1));
+        Assertions.assertEquals(4, MappedQuery.getListBucketSize(3));
+        Assertions.assertEquals(4, MappedQuery.getListBucketSize(4));
+        Assertions.assertEquals(512, MappedQuery.getListBucketSize(300));
+    }
+
+    @Test
+    void boundedCache() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, null);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        Assertions.assertEquals(1, cache.get("a"));
+        // "b" wasn't read since it was added, it's evicted before "a"
+        cache.put("c", 3);
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertEquals(1, cache.get("a"));
+        Assertions.assertEquals(3, cache.get("c"));
+
+        CacheStats stats = cache.getStats();
+        Assertions.assertEquals(3, stats.hitCount());
+        Assertions.assertEquals(1, stats.missCount());
+        Assertions.assertEquals(1, stats.evictionCount());
+        Assertions.assertEquals(0.75, stats.hitRate());
+
+        cache.setMaxSize(0);
+        Assertions.assertEquals(0, cache.size());
+    }
 }
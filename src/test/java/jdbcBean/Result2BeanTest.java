@@ -26,15 +26,31 @@
 package jdbcBean;
 
 
+import jdbcBean.annotation.Embedded;
+import jdbcBean.annotation.Mapped;
+import jdbcBean.annotation.ToMany;
+import jdbcBean.exception.JDBCBeanException;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Value;
 import lombok.val;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.beans.ConstructorProperties;
+import java.sql.JDBCType;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static jdbcBean.CommentsDb.*;
 
@@ -133,6 +149,203 @@ public class Result2BeanTest extends SharedDbContext {
         }
     }
 
+    @Test
+    void testGroupedToMany() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            List<RecursiveComment> commentsList = new Result2Bean(statement.executeQuery(
+                testQuery1 + " ORDER BY c3.id DESC"
+            )).getGroupedList(RecursiveComment.class);
+            assertEquals(LEVEL_COMMENT_COUNT, commentsList.size());
+
+            commentsList.sort(Comparator.comparing(RecursiveComment::getId));
+            for (int i = 0; i < LEVEL_COMMENT_COUNT; i++) {
+                val expectedComment1 = seededData.get(i);
+                assertEquals(expectedComment1.getCommentData().getId(), commentsList.get(i).getId());
+                assertEquals(LEVEL_COMMENT_COUNT, commentsList.get(i).getComments().size());
+
+                for (RecursiveComment curComment2 : commentsList.get(i).getComments()) {
+                    assertEquals(LEVEL_COMMENT_COUNT, curComment2.getComments().size());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testGroupedToManyWithDuplicateRows() throws Exception {
+        ProductDb productDb = ProductDb.getInstance();
+
+        try (Statement statement = productDb.getConnection().createStatement()) {
+            List<ProductDb.Order> orders = new Result2Bean(statement.executeQuery("""
+                SELECT o.id order_id, o.name order_name, p.id product_id, p.name product_name
+                FROM product_order o
+                LEFT JOIN product p ON o.id = p.order_id
+                CROSS JOIN (VALUES (1), (2)) AS copy(n)
+                ORDER BY MOD(COALESCE(p.id, 0), 2), p.id DESC NULLS LAST, copy.n
+                """
+            )).getGroupedList(ProductDb.Order.class);
+
+            assertEquals(List.of(3, 1, 2), orders.stream().map(ProductDb.Order::getOrderId).toList());
+            assertEquals(
+                List.of(4, 5, 3),
+                orders.get(0).getProducts().stream().map(ProductDb.Product::getProductId).toList()
+            );
+            assertEquals(
+                List.of(2, 1),
+                orders.get(1).getProducts().stream().map(ProductDb.Product::getProductId).toList()
+            );
+            assertEquals(0, orders.get(2).getProducts().size());
+        }
+    }
+
+    @Test
+    void testStreamToMany() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            try (Stream<Comment1> stream = new Result2Bean(statement.executeQuery(testQuery1)).stream(Comment1.class)) {
+                List<Comment1> comment1List = stream.toList();
+                assertEquals(LEVEL_COMMENT_COUNT, comment1List.size());
+
+                for (int i = 0; i < LEVEL_COMMENT_COUNT; i++) {
+                    val curComment1 = comment1List.get(i);
+                    assertEquals(seededData.get(i).getCommentData().getId(), curComment1.getCommentData().getId());
+                    assertEquals(LEVEL_COMMENT_COUNT, curComment1.getCommentData().getChildComments().size());
+                    for (val curComment2 : curComment1.getCommentData().getChildComments()) {
+                        assertEquals(LEVEL_COMMENT_COUNT, curComment2.getChildComments().size());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testIteratorCloseBeforeEnd() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            ResultSet resultSet = statement.executeQuery(testQuery1);
+            try (CloseableIterator<Comment1> iterator = new Result2Bean(resultSet).iterator(Comment1.class)) {
+                assertTrue(iterator.hasNext());
+                Comment1 first = iterator.next();
+                assertEquals(seededData.get(0).getCommentData().getId(), first.getCommentData().getId());
+                assertEquals(LEVEL_COMMENT_COUNT, first.getCommentData().getChildComments().size());
+                assertFalse(resultSet.isClosed());
+            }
+            assertTrue(resultSet.isClosed());
+        }
+    }
+
+    @Test
+    void testPublish() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            ResultSet resultSet = statement.executeQuery(testQuery1);
+            List<Comment1> received = new ArrayList<>();
+            Flow.Subscription[] subscription = new Flow.Subscription[1];
+
+            // request one complete root object at a time, cancel after three of them
+            new Result2Bean(resultSet).publish(Comment1.class).subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    subscription[0] = s;
+                    s.request(1);
+                }
+
+                @Override
+                public void onNext(Comment1 item) {
+                    received.add(item);
+                    if (received.size() == 3) subscription[0].cancel();
+                    else subscription[0].request(1);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    fail(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    fail("cancelled before the end");
+                }
+            });
+
+            assertEquals(3, received.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(seededData.get(i).getCommentData().getId(), received.get(i).getCommentData().getId());
+                assertEquals(LEVEL_COMMENT_COUNT, received.get(i).getCommentData().getChildComments().size());
+            }
+            assertTrue(resultSet.isClosed());
+        }
+    }
+
+    @Test
+    void testPublishEndedBeforeRequest() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            for (boolean cancel : new boolean[]{true, false}) {
+                ResultSet resultSet = statement.executeQuery(testQuery1);
+                List<Throwable> errors = new ArrayList<>();
+
+                // cancel, or send an invalid request, before any row is read
+                new Result2Bean(resultSet).publish(Comment1.class).subscribe(new Flow.Subscriber<>() {
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        if (cancel) subscription.cancel();
+                        else subscription.request(0);
+                    }
+
+                    @Override
+                    public void onNext(Comment1 item) {
+                        fail("nothing requested");
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        errors.add(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        fail("nothing requested");
+                    }
+                });
+
+                assertEquals(cancel ? 0 : 1, errors.size());
+                assertTrue(resultSet.isClosed());
+            }
+        }
+    }
+
+    @Test
+    void testPublishUntilComplete() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            Flow.Publisher<Comment1> publisher = new Result2Bean(statement.executeQuery(testQuery1)).publish(Comment1.class);
+            List<Comment1> received = Collections.synchronizedList(new ArrayList<>());
+            CompletableFuture<Void> completed = new CompletableFuture<>();
+            publisher.subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(2);
+                }
+
+                @Override
+                public void onNext(Comment1 item) {
+                    received.add(item);
+                    if (received.size() % 2 == 0) subscription.request(2);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    completed.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.complete(null);
+                }
+            });
+            completed.get(10, TimeUnit.SECONDS);
+            assertEquals(LEVEL_COMMENT_COUNT, received.size());
+        }
+    }
+
     @Test
     void testScalar() throws Exception {
         try (Statement statement = commentsDb.getConnection().createStatement()) {
@@ -192,4 +405,177 @@ public class Result2BeanTest extends SharedDbContext {
             assertEquals(3, orders.get(2).getProducts().size());
         }
     }
+
+    public static class CommentWithoutAccessors {
+        @Mapped(type = JDBCType.INTEGER)
+        private Integer id;
+        @Mapped(type = JDBCType.VARCHAR)
+        private String comment;
+    }
+
+    @Test
+    void testFieldsWithoutAccessors() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            ResultSet resultSet = statement.executeQuery("""
+                SELECT * from comment WHERE id = 2
+                """);
+            CommentWithoutAccessors comment = new Result2Bean(resultSet).getFirst(CommentWithoutAccessors.class);
+            assertEquals(2, comment.id);
+            assertEquals("comment 2", comment.comment);
+        }
+    }
+
+    @Data
+    public static class PrimitiveComment {
+        @Mapped(type = JDBCType.INTEGER)
+        private int id;
+        @Mapped(type = JDBCType.BIGINT)
+        private long parentCommentId = -1;
+        @Mapped(type = JDBCType.DOUBLE)
+        private double ratio;
+        @Mapped(type = JDBCType.BOOLEAN)
+        private boolean isRoot;
+        @Mapped(type = JDBCType.INTEGER)
+        private Object boxedId;
+    }
+
+    @Test
+    void testPrimitiveFields() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            ResultSet resultSet = statement.executeQuery("""
+                SELECT id, parent_comment_id, CAST(id AS DOUBLE) / 2 AS ratio, parent_comment_id IS NULL AS is_root, id AS boxed_id
+                FROM comment WHERE id IN (1, 111) ORDER BY id
+                """);
+            List<PrimitiveComment> comments = new Result2Bean(resultSet).getList(PrimitiveComment.class);
+
+            assertEquals(1, comments.get(0).getId());
+            assertEquals(11L, comments.get(0).getParentCommentId());
+            assertEquals(0.5, comments.get(0).getRatio());
+            assertFalse(comments.get(0).isRoot());
+            assertEquals(1, comments.get(0).getBoxedId());
+
+            assertEquals(111, comments.get(1).getId());
+            assertEquals(-1L, comments.get(1).getParentCommentId());
+            assertTrue(comments.get(1).isRoot());
+        }
+    }
+
+    public record CommentText(
+        @Mapped(type = JDBCType.VARCHAR) String comment,
+        @Mapped(type = JDBCType.TIMESTAMP_WITH_TIMEZONE) OffsetDateTime createdAt
+    ) {
+    }
+
+    public record CommentRecord(
+        @Mapped(type = JDBCType.INTEGER) int id,
+        @Mapped(type = JDBCType.INTEGER) Integer parentCommentId,
+        @Embedded CommentText text,
+        String unmapped
+    ) {
+    }
+
+    @Test
+    void testRecords() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            ResultSet resultSet = statement.executeQuery("""
+                SELECT * FROM comment WHERE id IN (1, 111) ORDER BY id
+                """);
+            List<CommentRecord> comments = new Result2Bean(resultSet).getList(CommentRecord.class);
+
+            assertEquals(2, comments.size());
+            assertEquals(1, comments.get(0).id());
+            assertEquals(11, comments.get(0).parentCommentId());
+            assertEquals("comment 1", comments.get(0).text().comment());
+            assertNotNull(comments.get(0).text().createdAt());
+            assertNull(comments.get(0).unmapped());
+
+            assertEquals(111, comments.get(1).id());
+            assertNull(comments.get(1).parentCommentId());
+            assertEquals("comment 111", comments.get(1).text().comment());
+        }
+    }
+
+    public record ProductRecord(
+        @Mapped(type = JDBCType.INTEGER, isDistinct = true) Integer productId,
+        @Mapped(type = JDBCType.VARCHAR) String productName
+    ) {
+    }
+
+    @Value
+    public static class ImmutableOrder {
+        @Mapped(type = JDBCType.INTEGER, isDistinct = true)
+        Integer orderId;
+        @Mapped(type = JDBCType.VARCHAR)
+        String orderName;
+        @ToMany
+        List<ProductRecord> products;
+    }
+
+    @Test
+    void testFinalFieldsToMany() throws Exception {
+        ProductDb productDb = ProductDb.getInstance();
+
+        try (Statement statement = productDb.getConnection().createStatement()) {
+            List<ImmutableOrder> orders = new Result2Bean(statement.executeQuery("""
+                SELECT o.id order_id, o.name order_name, p.id product_id, p.name product_name
+                FROM product_order o
+                LEFT JOIN product p ON o.id = p.order_id
+                ORDER BY o.id, p.id
+                """
+            )).getList(ImmutableOrder.class);
+
+            assertEquals(3, orders.size());
+            assertEquals("order 1", orders.get(0).getOrderName());
+            assertEquals(
+                List.of(new ProductRecord(1, "product 1"), new ProductRecord(2, "product 2")),
+                orders.get(0).getProducts()
+            );
+            assertEquals(0, orders.get(1).getProducts().size());
+            assertEquals(3, orders.get(2).getProducts().size());
+        }
+    }
+
+    @Getter
+    public static class ReorderedComment {
+        @Mapped(type = JDBCType.INTEGER)
+        private final int id;
+        @Mapped(type = JDBCType.VARCHAR)
+        private final String comment;
+
+        @ConstructorProperties({"comment", "id"})
+        public ReorderedComment(String comment, int id) {
+            this.id = id;
+            this.comment = comment;
+        }
+    }
+
+    @Getter
+    public static class UnnamedComment {
+        @Mapped(type = JDBCType.INTEGER)
+        private final int id;
+        @Mapped(type = JDBCType.VARCHAR)
+        private final String comment;
+
+        public UnnamedComment(int id, String comment) {
+            this.id = id;
+            this.comment = comment;
+        }
+    }
+
+    @Test
+    void testFinalFieldsConstructorNames() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            ResultSet resultSet = statement.executeQuery("SELECT id, comment FROM comment WHERE id IN (1, 2) ORDER BY id");
+            List<ReorderedComment> comments = new Result2Bean(resultSet).getList(ReorderedComment.class);
+
+            assertEquals(List.of(1, 2), comments.stream().map(ReorderedComment::getId).toList());
+            assertEquals("comment 1", comments.get(0).getComment());
+        }
+
+        // parameters are matched by name, never by position: tests aren't compiled with -parameters
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            ResultSet resultSet = statement.executeQuery("SELECT id, comment FROM comment WHERE id = 1");
+            assertThrows(JDBCBeanException.class, () -> new Result2Bean(resultSet).getList(UnnamedComment.class));
+        }
+    }
 }
@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 LE MANH HIEU
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package jdbcBean;
+
+import jdbcBean.TransactionUtil.RetryPolicy;
+import jdbcBean.TransactionUtil.TransactionStats;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionUtilTest extends SharedDbContext {
+
+    private static final RetryPolicy retryPolicy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5));
+
+    public TransactionUtilTest() throws Exception {
+    }
+
+    @BeforeAll
+    void createTable() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("CREATE TABLE tx_counter (id INTEGER PRIMARY KEY)");
+        }
+    }
+
+    @AfterAll
+    void dropTable() throws Exception {
+        try (Statement statement = commentsDb.getConnection().createStatement()) {
+            statement.execute("DROP TABLE tx_counter");
+        }
+    }
+
+    @Test
+    void testRetry() throws Exception {
+        Connection connection = commentsDb.getConnection();
+        AtomicInteger attempts = new AtomicInteger();
+
+        TransactionStats stats = TransactionUtil.runTransaction(
+            Connection.TRANSACTION_SERIALIZABLE, connection, retryPolicy, tx -> {
+                try (Statement statement = tx.createStatement()) {
+                    statement.execute("INSERT INTO tx_counter VALUES (" + attempts.incrementAndGet() + ")");
+                }
+                if (attempts.get() < 3) throw new SQLException("serialization failure", "40001");
+            }
+        );
+
+        assertEquals(2, stats.retryCount());
+        assertTrue(stats.elapsedNanos() >= stats.backoffNanos());
+        assertTrue(connection.getAutoCommit());
+        assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+        // failed attempts were rolled back
+        try (Statement statement = connection.createStatement()) {
+            assertEquals(3, (Integer) new Result2Bean(statement.executeQuery("SELECT MIN(id) FROM tx_counter")).getScalar());
+            statement.execute("DELETE FROM tx_counter");
+        }
+    }
+
+    @Test
+    void testNoRetry() throws Exception {
+        Connection connection = commentsDb.getConnection();
+        AtomicInteger attempts = new AtomicInteger();
+
+        SQLException constraintError = assertThrows(SQLException.class, () -> TransactionUtil.runTransaction(
+            Connection.TRANSACTION_SERIALIZABLE, connection, retryPolicy, tx -> {
+                attempts.incrementAndGet();
+                throw new SQLException("constraint violation", "23505");
+            }
+        ));
+        assertEquals("23505", constraintError.getSQLState());
+        assertEquals(1, attempts.get());
+
+        attempts.set(0);
+        assertThrows(SQLException.class, () -> TransactionUtil.runTransaction(
+            Connection.TRANSACTION_SERIALIZABLE, connection, retryPolicy, tx -> {
+                attempts.incrementAndGet();
+                throw new SQLException("deadlock", "40P01");
+            }
+        ));
+        assertEquals(4, attempts.get());
+        assertTrue(connection.getAutoCommit());
+    }
+
+    @Test
+    void testTxContext() throws Exception {
+        Connection connection = commentsDb.getConnection();
+        String insertSql = "INSERT INTO tx_counter VALUES (:id)";
+        NPPreparedStatement[] insert = new NPPreparedStatement[1];
+
+        TransactionUtil.runTransactionWithContext(Connection.TRANSACTION_READ_COMMITTED, connection, tx -> {
+            insert[0] = tx.batch(insertSql);
+            for (int i = 1; i <= 10; i++) {
+                assertSame(insert[0], tx.batch(insertSql));
+                tx.batch(insertSql).setObject("id", i).addBatch();
+            }
+            // statements returned by the context survive a close
+            try (NPPreparedStatement count = tx.prepare("SELECT COUNT(*) FROM tx_counter WHERE id <= :id")) {
+                tx.flushBatches();
+                assertEquals(5L, ((Number) count.setObject("id", 5).execute().getScalar()).longValue());
+            }
+            assertSame(tx.prepare("SELECT COUNT(*) FROM tx_counter WHERE id <= :id"), tx.prepare("SELECT COUNT(*) FROM tx_counter WHERE id <= :id"));
+            tx.batch(insertSql).setObject("id", 11).addBatch();
+        });
+
+        assertTrue(insert[0].getStatement().isClosed());
+        try (Statement statement = connection.createStatement()) {
+            assertEquals(11L, ((Number) new Result2Bean(statement.executeQuery("SELECT COUNT(*) FROM tx_counter")).getScalar()).longValue());
+            statement.execute("DELETE FROM tx_counter");
+        }
+    }
+
+    @Test
+    void testIsRetryable() {
+        assertTrue(TransactionUtil.isRetryable(new RuntimeException(new SQLException("deadlock", "40P01"))));
+        SQLException batchError = new SQLException("batch failed", "HY000");
+        batchError.setNextException(new SQLException("serialization failure", "40001"));
+        assertTrue(TransactionUtil.isRetryable(batchError));
+        assertFalse(TransactionUtil.isRetryable(new SQLException("syntax error", "42000")));
+        assertTrue(TransactionUtil.isRetryable(new SQLTransactionRollbackException("rolled back")));
+        // the commit fails again, or may have been applied already
+        assertFalse(TransactionUtil.isRetryable(new SQLTransactionRollbackException("constraint violation", "40002")));
+        assertFalse(TransactionUtil.isRetryable(new SQLException("statement completion unknown", "40003")));
+    }
+}